@@ -13,7 +13,10 @@
 package org.openhab.binding.modbus.handler;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
@@ -68,6 +71,7 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
             implements ModbusReadCallback, ModbusFailureCallback<ModbusReadRequestBlueprint> {
 
         private volatile @Nullable AtomicStampedValue<PollResult> lastResult;
+        private final Map<ModbusDataThingHandler, ChildFingerprint> childFingerprints = new ConcurrentHashMap<>();
 
         public synchronized void handleResult(PollResult result) {
             // Ignore all incoming data and errors if configuration is not correct
@@ -84,7 +88,7 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
                 }
             }
             logger.debug("Thing {} received response {}", thing.getUID(), result);
-            notifyChildren(result);
+            notifyChildren(result, false);
             if (result.failure != null) {
                 Exception error = result.failure.getCause();
                 assert error != null;
@@ -124,30 +128,94 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
             return Optional.ofNullable(this.lastResult).map(result -> result.copyIfStampAfter(oldestStamp))
                     .map(result -> {
                         logger.debug("Thing {} reusing cached data: {}", thing.getUID(), result.getValue());
-                        notifyChildren(result.getValue());
+                        notifyChildren(result.getValue(), true);
                         return true;
                     }).orElse(false);
         }
 
-        private void notifyChildren(PollResult pollResult) {
+        /**
+         * Pass the result to children
+         *
+         * @param pollResult result to pass
+         * @param forceUpdate whether to pass data also to children whose data has not changed
+         */
+        private void notifyChildren(PollResult pollResult, boolean forceUpdate) {
             @Nullable
             AsyncModbusReadResult result = pollResult.result;
             @Nullable
             AsyncModbusFailure<ModbusReadRequestBlueprint> failure = pollResult.failure;
+            if (failure != null) {
+                // children need the data after recovering from the error
+                childFingerprints.clear();
+            }
             childCallbacks.forEach(handler -> {
                 if (result != null) {
-                    handler.onReadResult(result);
+                    if (isChildDataChanged(handler, result, forceUpdate)) {
+                        handler.onReadResult(result);
+                    }
                 } else if (failure != null) {
                     handler.handleReadError(failure);
                 }
             });
         }
 
+        /**
+         * Compare the data read by the child to the data passed to it previously
+         *
+         * Unchanged data is passed on every {@link ModbusPollerConfiguration#getUpdateUnchangedDataEveryNPolls()}
+         * polls only, which saves the transformation and state update of the child.
+         *
+         * @return whether the result should be passed to the child
+         */
+        private boolean isChildDataChanged(ModbusDataThingHandler handler, AsyncModbusReadResult result,
+                boolean forceUpdate) {
+            ModbusPollerConfiguration localConfig = config;
+            int updateUnchangedDataEveryNPolls = localConfig == null ? 1
+                    : localConfig.getUpdateUnchangedDataEveryNPolls();
+            if (updateUnchangedDataEveryNPolls <= 1) {
+                return true;
+            }
+            OptionalLong fingerprint = handler.getReadDataFingerprint(result);
+            if (!fingerprint.isPresent()) {
+                childFingerprints.remove(handler);
+                return true;
+            }
+            ChildFingerprint previous = childFingerprints.get(handler);
+            if (!forceUpdate && previous != null && previous.fingerprint == fingerprint.getAsLong()
+                    && ++previous.unchangedPolls < updateUnchangedDataEveryNPolls) {
+                logger.trace("Thing {} data unchanged for child {}, skipping update", thing.getUID(), handler);
+                return false;
+            }
+            childFingerprints.put(handler, new ChildFingerprint(fingerprint.getAsLong()));
+            return true;
+        }
+
+        /**
+         * Forget the data passed to the child, so that the next result is passed to it
+         */
+        public void resetChild(ModbusDataThingHandler handler) {
+            childFingerprints.remove(handler);
+        }
+
         /**
          * Rest data caches
          */
         public void resetCache() {
             lastResult = null;
+            childFingerprints.clear();
+        }
+    }
+
+    /**
+     * Data last passed to a child, and the number of polls it has not changed since
+     */
+    private static class ChildFingerprint {
+
+        public final long fingerprint;
+        public int unchangedPolls;
+
+        ChildFingerprint(long fingerprint) {
+            this.fingerprint = fingerprint;
         }
     }
 
@@ -379,6 +447,7 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
     @Override
     public void childHandlerInitialized(ThingHandler childHandler, Thing childThing) {
         if (childHandler instanceof ModbusDataThingHandler) {
+            this.callbackDelegator.resetChild((ModbusDataThingHandler) childHandler);
             this.childCallbacks.add((ModbusDataThingHandler) childHandler);
         }
     }
@@ -388,6 +457,7 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
     public void childHandlerDisposed(ThingHandler childHandler, Thing childThing) {
         if (childHandler instanceof ModbusDataThingHandler) {
             this.childCallbacks.remove(childHandler);
+            this.callbackDelegator.resetChild((ModbusDataThingHandler) childHandler);
         }
     }
 
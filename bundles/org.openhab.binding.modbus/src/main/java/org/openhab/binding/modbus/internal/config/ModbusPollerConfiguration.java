@@ -29,6 +29,7 @@ public class ModbusPollerConfiguration {
     private @Nullable String type;
     private int maxTries = 3;// backwards compatibility and tests
     private long cacheMillis = 50L;
+    private int updateUnchangedDataEveryNPolls = 1;
 
     /**
      * Gets refresh period in milliseconds
@@ -115,4 +116,21 @@ public class ModbusPollerConfiguration {
     public void setCacheMillis(long cacheMillis) {
         this.cacheMillis = cacheMillis;
     }
+
+    /**
+     * Gets how often data things are updated with unchanged data, in number of polls
+     *
+     * Data things are updated on every poll with value of one or less.
+     */
+    public int getUpdateUnchangedDataEveryNPolls() {
+        return updateUnchangedDataEveryNPolls;
+    }
+
+    /**
+     * Sets how often data things are updated with unchanged data, in number of polls
+     *
+     */
+    public void setUpdateUnchangedDataEveryNPolls(int updateUnchangedDataEveryNPolls) {
+        this.updateUnchangedDataEveryNPolls = updateUnchangedDataEveryNPolls;
+    }
 }
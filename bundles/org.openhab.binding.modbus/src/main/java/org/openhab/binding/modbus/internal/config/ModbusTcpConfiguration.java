@@ -32,6 +32,8 @@ public class ModbusTcpConfiguration {
     private int reconnectAfterMillis;
     private int connectTimeoutMillis;
     private boolean enableDiscovery;
+    private int pipelineWindowSize = 1;
+    private int pollCoalescingMaxGap = -1;
 
     public @Nullable String getHost() {
         return host;
@@ -104,4 +106,20 @@ public class ModbusTcpConfiguration {
     public void setDiscoveryEnabled(boolean enableDiscovery) {
         this.enableDiscovery = enableDiscovery;
     }
+
+    public int getPipelineWindowSize() {
+        return pipelineWindowSize;
+    }
+
+    public void setPipelineWindowSize(int pipelineWindowSize) {
+        this.pipelineWindowSize = pipelineWindowSize;
+    }
+
+    public int getPollCoalescingMaxGap() {
+        return pollCoalescingMaxGap;
+    }
+
+    public void setPollCoalescingMaxGap(int pollCoalescingMaxGap) {
+        this.pollCoalescingMaxGap = pollCoalescingMaxGap;
+    }
 }
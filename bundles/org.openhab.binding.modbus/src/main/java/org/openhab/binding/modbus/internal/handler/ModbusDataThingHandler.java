@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.NotImplementedException;
@@ -662,6 +663,42 @@ public class ModbusDataThingHandler extends BaseThingHandler {
         result.getBits().ifPresent(bits -> onBits(result.getRequest(), bits));
     }
 
+    /**
+     * Get the data this thing reads from the poll result, to detect unchanged data without processing it
+     *
+     * @param result poll result of the parent poller
+     * @return the bits of the registers (at most four) or of the single bit read by this thing. Empty if this thing
+     *         does not read, or the result does not contain the data.
+     */
+    public synchronized OptionalLong getReadDataFingerprint(AsyncModbusReadResult result) {
+        ValueType readValueType = this.readValueType;
+        if (!isReadEnabled || readValueType == null || !readIndex.isPresent() || hasConfigurationError()) {
+            return OptionalLong.empty();
+        }
+        int index = readIndex.get() - pollStart;
+        Optional<ModbusRegisterArray> registers = result.getRegisters();
+        Optional<BitArray> bits = result.getBits();
+        if (registers.isPresent()) {
+            ModbusRegisterArray localRegisters = registers.get();
+            // types smaller than a register are read from a single register
+            int count = Math.max(1, readValueType.getBits() / 16);
+            if (index < 0 || index + count > localRegisters.size()) {
+                return OptionalLong.empty();
+            }
+            long fingerprint = 0;
+            for (int i = 0; i < count; i++) {
+                fingerprint = (fingerprint << 16) | localRegisters.getUnsignedShort(index + i);
+            }
+            return OptionalLong.of(fingerprint);
+        } else if (bits.isPresent()) {
+            if (index < 0 || index >= bits.get().size()) {
+                return OptionalLong.empty();
+            }
+            return OptionalLong.of(bits.get().getBit(index) ? 1 : 0);
+        }
+        return OptionalLong.empty();
+    }
+
     public synchronized void handleReadError(AsyncModbusFailure<ModbusReadRequestBlueprint> failure) {
         onError(failure.getRequest(), failure.getCause());
     }
@@ -60,6 +60,8 @@ public class ModbusTcpThingHandler
         poolConfiguration.setInterConnectDelayMillis(config.getTimeBetweenReconnectMillis());
         poolConfiguration.setInterTransactionDelayMillis(config.getTimeBetweenTransactionsMillis());
         poolConfiguration.setReconnectAfterMillis(config.getReconnectAfterMillis());
+        poolConfiguration.setPipelineWindowSize(config.getPipelineWindowSize());
+        poolConfiguration.setPollCoalescingMaxGap(config.getPollCoalescingMaxGap());
     }
 
     @SuppressWarnings("null") // since Optional.map is always called with NonNull argument
@@ -37,6 +37,11 @@ public class ChannelConfig {
      * Instead a postCommand() call is performed.
      */
     public boolean postCommand = false;
+    /**
+     * If true, a received payload equal to the previously processed one is discarded, instead of updating the channel
+     * state again. Not applied to trigger and postCommand channels.
+     */
+    public boolean skipUnchangedPayloads = false;
     public @Nullable Integer qos;
     public boolean retained = false;
     /** If true, the state topic will not update a state, but trigger a channel instead. */
@@ -73,4 +73,9 @@ public class ChannelConfigBuilder {
         config.trigger = trigger;
         return this;
     }
+
+    public ChannelConfigBuilder withSkipUnchangedPayloads(boolean skipUnchangedPayloads) {
+        config.skipUnchangedPayloads = skipUnchangedPayloads;
+        return this;
+    }
 }
@@ -14,6 +14,7 @@ package org.openhab.binding.mqtt.generic;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.IllegalFormatException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -31,6 +32,7 @@ import org.openhab.core.io.transport.mqtt.MqttMessageSubscriber;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.thing.ChannelUID;
 import org.openhab.core.types.Command;
+import org.openhab.core.types.State;
 import org.openhab.core.types.TypeParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,6 +64,9 @@ public class ChannelState implements MqttMessageSubscriber {
     private @Nullable ScheduledFuture<?> scheduledFuture;
     private CompletableFuture<@Nullable Void> future = CompletableFuture.completedFuture(null);
     private final Object futureLock = new Object();
+    // Last payload and transformed value that updated the channel state, if unchanged payloads are skipped
+    private volatile byte @Nullable [] lastPayload;
+    private volatile @Nullable String lastTransformedValue;
 
     /**
      * Creates a new channel state.
@@ -146,9 +151,19 @@ public class ChannelState implements MqttMessageSubscriber {
             return;
         }
 
+        final boolean skipUnchanged = isSkippingUnchangedPayloads();
+        if (skipUnchanged && Arrays.equals(payload, lastPayload)) {
+            logger.trace("Payload on topic {} unchanged, skipping update of channel {}", topic, channelUID);
+            receivedOrTimeout();
+            return;
+        }
+
         if (cachedValue.isBinary()) {
             cachedValue.update(payload);
             channelStateUpdateListener.updateChannelState(channelUID, cachedValue.getChannelState());
+            if (skipUnchanged) {
+                lastPayload = payload;
+            }
             receivedOrTimeout();
             return;
         }
@@ -166,6 +181,13 @@ public class ChannelState implements MqttMessageSubscriber {
             }
         }
 
+        if (skipUnchanged && !transformationsIn.isEmpty() && strValue.equals(lastTransformedValue)) {
+            logger.trace("Transformed value '{}' unchanged, skipping update of channel {}", strValue, channelUID);
+            lastPayload = payload;
+            receivedOrTimeout();
+            return;
+        }
+
         // Is trigger?: Special handling
         if (config.trigger) {
             channelStateUpdateListener.triggerChannel(channelUID, strValue);
@@ -202,10 +224,33 @@ public class ChannelState implements MqttMessageSubscriber {
             channelStateUpdateListener.postChannelCommand(channelUID, (Command) cachedValue.getChannelState());
         } else {
             channelStateUpdateListener.updateChannelState(channelUID, cachedValue.getChannelState());
+            // relative commands like INCREASE change the state again when repeated
+            if (skipUnchanged && command instanceof State) {
+                lastPayload = payload;
+                lastTransformedValue = strValue;
+            } else {
+                resetLastPayload();
+            }
         }
         receivedOrTimeout();
     }
 
+    /**
+     * Returns true if received payloads equal to the one last processed are discarded. Triggers and commands are
+     * never discarded.
+     */
+    private boolean isSkippingUnchangedPayloads() {
+        return config.skipUnchangedPayloads && !config.trigger && !config.postCommand;
+    }
+
+    /**
+     * Forget the last processed payload, so that the next payload updates the channel state in any case
+     */
+    private void resetLastPayload() {
+        lastPayload = null;
+        lastTransformedValue = null;
+    }
+
     /**
      * Returns the state topic. Might be an empty string if this is a stateless channel (TRIGGER kind channel).
      */
@@ -256,6 +301,7 @@ public class ChannelState implements MqttMessageSubscriber {
         this.channelStateUpdateListener = null;
         hasSubscribed = false;
         cachedValue.resetState();
+        resetLastPayload();
     }
 
     private void receivedOrTimeout() {
@@ -333,6 +379,8 @@ public class ChannelState implements MqttMessageSubscriber {
      */
     public CompletableFuture<Boolean> publishValue(Command command) {
         cachedValue.update(command);
+        // the state changed locally, so the next received value has to update it even if unchanged
+        resetLastPayload();
 
         Value mqttCommandValue = cachedValue;
 
@@ -49,6 +49,7 @@ import org.openhab.binding.mqtt.generic.values.NumberValue;
 import org.openhab.binding.mqtt.generic.values.PercentageValue;
 import org.openhab.binding.mqtt.generic.values.TextValue;
 import org.openhab.core.io.transport.mqtt.MqttBrokerConnection;
+import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.HSBType;
 import org.openhab.core.library.types.RawType;
 import org.openhab.core.library.types.StringType;
@@ -172,6 +173,46 @@ public class ChannelStateTests {
         verify(channelStateUpdateListener, times(3)).updateChannelState(eq(channelUID), any());
     }
 
+    @Test
+    public void receiveUnchangedPayloadSkippedTest() {
+        ChannelConfig config = ChannelConfigBuilder.create("state", "command").withSkipUnchangedPayloads(true).build();
+        NumberValue value = new NumberValue(null, null, new BigDecimal(10), null);
+        ChannelState c = spy(new ChannelState(config, channelUID, value, channelStateUpdateListener));
+        c.start(connection, mock(ScheduledExecutorService.class), 100);
+
+        c.processMessage("state", "15".getBytes());
+        c.processMessage("state", "15".getBytes());
+        verify(channelStateUpdateListener, times(1)).updateChannelState(eq(channelUID), any());
+
+        c.processMessage("state", "16".getBytes());
+        assertThat(value.getChannelState().toString(), is("16"));
+        verify(channelStateUpdateListener, times(2)).updateChannelState(eq(channelUID), any());
+
+        // relative commands are never skipped
+        c.processMessage("state", "INCREASE".getBytes());
+        c.processMessage("state", "INCREASE".getBytes());
+        assertThat(value.getChannelState().toString(), is("36"));
+        verify(channelStateUpdateListener, times(4)).updateChannelState(eq(channelUID), any());
+
+        // the value published by openHAB has to be overwritten by the received one
+        c.processMessage("state", "16".getBytes());
+        c.publishValue(new DecimalType(20));
+        c.processMessage("state", "16".getBytes());
+        assertThat(value.getChannelState().toString(), is("16"));
+        verify(channelStateUpdateListener, times(6)).updateChannelState(eq(channelUID), any());
+    }
+
+    @Test
+    public void receiveUnchangedPayloadNotSkippedByDefaultTest() {
+        NumberValue value = new NumberValue(null, null, new BigDecimal(10), null);
+        ChannelState c = spy(new ChannelState(config, channelUID, value, channelStateUpdateListener));
+        c.start(connection, mock(ScheduledExecutorService.class), 100);
+
+        c.processMessage("state", "15".getBytes());
+        c.processMessage("state", "15".getBytes());
+        verify(channelStateUpdateListener, times(2)).updateChannelState(eq(channelUID), any());
+    }
+
     @Test
     public void receiveDecimalFractionalTest() {
         NumberValue value = new NumberValue(null, null, new BigDecimal(10.5), null);
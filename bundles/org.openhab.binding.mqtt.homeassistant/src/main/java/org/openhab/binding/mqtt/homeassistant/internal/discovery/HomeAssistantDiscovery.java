@@ -13,17 +13,17 @@
 package org.openhab.binding.mqtt.homeassistant.internal.discovery;
 
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNull;
@@ -32,12 +32,13 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.mqtt.discovery.AbstractMQTTDiscovery;
 import org.openhab.binding.mqtt.discovery.MQTTTopicDiscoveryService;
 import org.openhab.binding.mqtt.generic.MqttChannelTypeProvider;
+import org.openhab.binding.mqtt.generic.tools.DelayedBatchProcessing;
 import org.openhab.binding.mqtt.homeassistant.generic.internal.MqttBindingConstants;
 import org.openhab.binding.mqtt.homeassistant.internal.BaseChannelConfiguration;
 import org.openhab.binding.mqtt.homeassistant.internal.ChannelConfigurationTypeAdapterFactory;
 import org.openhab.binding.mqtt.homeassistant.internal.HaID;
 import org.openhab.binding.mqtt.homeassistant.internal.HandlerConfiguration;
-import org.openhab.core.config.discovery.DiscoveryResult;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.config.discovery.DiscoveryResultBuilder;
 import org.openhab.core.config.discovery.DiscoveryService;
 import org.openhab.core.io.transport.mqtt.MqttBrokerConnection;
@@ -45,29 +46,35 @@ import org.openhab.core.thing.ThingTypeUID;
 import org.openhab.core.thing.ThingUID;
 import org.openhab.core.thing.type.ThingType;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 
 /**
  * The {@link HomeAssistantDiscovery} is responsible for discovering device nodes that follow the
  * Home Assistant MQTT discovery convention (https://www.home-assistant.io/docs/mqtt/discovery/).
  *
+ * Received and cleared component configurations are collected with a {@link DelayedBatchProcessing} until no new
+ * configuration has been received for {@link #BATCH_DELAY_MILLIS}. The batch is then parsed in parallel by the
+ * {@link #PARSER_POOL_NAME} thread pool, and a single discovery result is published per device, off the MQTT callback
+ * thread.
+ *
  * @author David Graeff - Initial contribution
  */
 @Component(service = DiscoveryService.class, configurationPid = "discovery.mqttha")
 @NonNullByDefault
 public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
-    @SuppressWarnings("unused")
     private final Logger logger = LoggerFactory.getLogger(HomeAssistantDiscovery.class);
-    protected final Map<String, Set<HaID>> componentsPerThingID = new TreeMap<>();
-    protected final Map<String, ThingUID> thingIDPerTopic = new TreeMap<>();
-    protected final Map<String, DiscoveryResult> results = new ConcurrentHashMap<>();
+    protected final Map<String, Set<HaID>> componentsPerThingID = new ConcurrentHashMap<>();
+    protected final Map<String, ThingUID> thingIDPerTopic = new ConcurrentHashMap<>();
 
-    private @Nullable ScheduledFuture<?> future;
+    private final DelayedBatchProcessing<ReceivedConfig> delayedProcessing;
+    private final ExecutorService parser = ThreadPoolManager.getPool(PARSER_POOL_NAME);
     private final Gson gson;
 
     public static final Map<String, String> HA_COMP_TO_NAME = new TreeMap<>();
@@ -86,6 +93,46 @@ public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
 
     static final String BASE_TOPIC = "homeassistant";
 
+    /** Time to collect component configurations for a batch, in milliseconds */
+    static final int BATCH_DELAY_MILLIS = 2000;
+
+    /** Thread pool parsing the component configurations of a batch */
+    static final String PARSER_POOL_NAME = "mqtt-homeassistant-discovery";
+
+    /**
+     * Component configuration as received from the broker, an empty payload clears the configuration
+     */
+    static class ReceivedConfig {
+        final ThingUID connectionBridge;
+        final String topic;
+        final byte[] payload;
+
+        ReceivedConfig(ThingUID connectionBridge, String topic, byte[] payload) {
+            this.connectionBridge = connectionBridge;
+            this.topic = topic;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * Parsed component configuration
+     */
+    private static class DiscoveredComponent {
+        final ThingUID connectionBridge;
+        final String topic;
+        final HaID haID;
+        final BaseChannelConfiguration config;
+        final String thingID;
+
+        DiscoveredComponent(ReceivedConfig received, HaID haID, BaseChannelConfiguration config) {
+            this.connectionBridge = received.connectionBridge;
+            this.topic = received.topic;
+            this.haID = haID;
+            this.config = config;
+            this.thingID = config.getThingId(haID.objectID);
+        }
+    }
+
     @NonNullByDefault({})
     protected MqttChannelTypeProvider typeProvider;
 
@@ -95,6 +142,24 @@ public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
     public HomeAssistantDiscovery() {
         super(null, 3, true, BASE_TOPIC + "/#");
         this.gson = new GsonBuilder().registerTypeAdapterFactory(new ChannelConfigurationTypeAdapterFactory()).create();
+        this.delayedProcessing = new DelayedBatchProcessing<>(BATCH_DELAY_MILLIS, this::processConfigs, scheduler);
+    }
+
+    @Override
+    @Deactivate
+    protected void deactivate() {
+        super.deactivate();
+        discardPendingConfigs();
+    }
+
+    /**
+     * Cancel the pending batch, it must not be processed after the services it depends on are gone
+     */
+    private void discardPendingConfigs() {
+        List<ReceivedConfig> pending = delayedProcessing.join();
+        if (!pending.isEmpty()) {
+            logger.debug("Discarding {} unprocessed HomeAssistant component configurations", pending.size());
+        }
     }
 
     @Reference
@@ -104,6 +169,7 @@ public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
 
     public void unsetMQTTTopicDiscoveryService(@Nullable MQTTTopicDiscoveryService service) {
         mqttTopicDiscovery.unsubscribe(this);
+        discardPendingConfigs();
         this.mqttTopicDiscovery = null;
     }
 
@@ -118,12 +184,14 @@ public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
     }
 
     protected void unsetTypeProvider(MqttChannelTypeProvider provider) {
+        discardPendingConfigs();
         this.typeProvider = null;
     }
 
     @Override
     public Set<@NonNull ThingTypeUID> getSupportedThingTypes() {
-        return typeProvider.getThingTypeUIDs();
+        MqttChannelTypeProvider typeProvider = this.typeProvider;
+        return typeProvider == null ? Collections.emptySet() : typeProvider.getThingTypeUIDs();
     }
 
     @Override
@@ -139,66 +207,99 @@ public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
             return;
         }
 
-        // Reset the found-component timer.
-        // We will collect components for the thing label description for another 2 seconds.
-        final ScheduledFuture<?> future = this.future;
-        if (future != null) {
-            future.cancel(false);
+        // Collect the components for another 2 seconds, for the thing label description and to parse them together
+        delayedProcessing.accept(new ReceivedConfig(connectionBridge, topic, payload));
+    }
+
+    /**
+     * Callback of {@link DelayedBatchProcessing}. Parse the received configurations in parallel, remove the cleared
+     * ones, and publish a discovery result per thing.
+     */
+    protected void processConfigs(List<ReceivedConfig> receivedConfigs) {
+        // A batch which was already running when the discovery was deactivated
+        MqttChannelTypeProvider typeProvider = this.typeProvider;
+        if (typeProvider == null) {
+            logger.debug("Discarding {} HomeAssistant component configurations, discovery is stopped",
+                    receivedConfigs.size());
+            return;
         }
-        this.future = scheduler.schedule(this::publishResults, 2, TimeUnit.SECONDS);
 
-        BaseChannelConfiguration config = BaseChannelConfiguration
-                .fromString(new String(payload, StandardCharsets.UTF_8), gson);
+        // Only the latest configuration of a topic is relevant
+        Map<String, ReceivedConfig> latestPerTopic = new LinkedHashMap<>();
+        receivedConfigs.forEach(received -> latestPerTopic.put(received.topic, received));
+
+        List<CompletableFuture<@Nullable DiscoveredComponent>> parsing = latestPerTopic.values().stream()
+                .filter(received -> received.payload.length > 0)
+                .map(received -> CompletableFuture.supplyAsync(() -> parseConfig(received), parser))
+                .collect(Collectors.toList());
+
+        latestPerTopic.values().stream().filter(received -> received.payload.length == 0)
+                .forEach(received -> removeComponent(received.topic));
+
+        List<DiscoveredComponent> discovered = parsing.stream().map(CompletableFuture::join).filter(Objects::nonNull)
+                .collect(Collectors.toList());
 
         // We will of course find multiple of the same unique Thing IDs, for each different component another one.
         // Therefore the components are assembled into a list and given to the DiscoveryResult label for the user to
         // easily recognize object capabilities.
+        Map<ThingUID, List<DiscoveredComponent>> componentsPerThing = discovered.stream()
+                .collect(Collectors.groupingBy(this::getThingUID, LinkedHashMap::new, Collectors.toList()));
+        logger.debug("Discovered {} HomeAssistant components of {} things", discovered.size(),
+                componentsPerThing.size());
+
+        componentsPerThing.forEach((thingUID, thingComponents) -> {
+            // We need to keep track of already found component topics for a specific thing
+            Set<HaID> components = componentsPerThingID.computeIfAbsent(thingUID.getId(),
+                    key -> ConcurrentHashMap.newKeySet());
+            for (DiscoveredComponent component : thingComponents) {
+                ThingUID previousThingUID = thingIDPerTopic.put(component.topic, thingUID);
+                if (previousThingUID != null && !previousThingUID.equals(thingUID)) {
+                    // the component moved to another device
+                    removeComponent(previousThingUID, component.haID);
+                }
+                components.add(component.haID);
+            }
+            publishResult(typeProvider, thingUID, thingComponents.get(thingComponents.size() - 1), components);
+        });
+    }
 
-        HaID haID = new HaID(topic);
-        final String thingID = config.getThingId(haID.objectID);
+    private @Nullable DiscoveredComponent parseConfig(ReceivedConfig received) {
+        try {
+            BaseChannelConfiguration config = BaseChannelConfiguration
+                    .fromString(new String(received.payload, StandardCharsets.UTF_8), gson);
+            return config == null ? null : new DiscoveredComponent(received, new HaID(received.topic), config);
+        } catch (JsonParseException e) {
+            logger.debug("Configuration of HomeAssistant component {} invalid: {}", received.topic, e.getMessage());
+            return null;
+        }
+    }
 
+    private ThingUID getThingUID(DiscoveredComponent component) {
         final ThingTypeUID typeID = new ThingTypeUID(MqttBindingConstants.BINDING_ID,
-                MqttBindingConstants.HOMEASSISTANT_MQTT_THING.getId() + "_" + thingID);
-
-        final ThingUID thingUID = new ThingUID(typeID, connectionBridge, thingID);
-
-        thingIDPerTopic.put(topic, thingUID);
-
-        // We need to keep track of already found component topics for a specific thing
-        Set<HaID> components = componentsPerThingID.computeIfAbsent(thingID, key -> ConcurrentHashMap.newKeySet());
-        components.add(haID);
+                MqttBindingConstants.HOMEASSISTANT_MQTT_THING.getId() + "_" + component.thingID);
+        return new ThingUID(typeID, component.connectionBridge, component.thingID);
+    }
 
+    private void publishResult(MqttChannelTypeProvider typeProvider, ThingUID thingUID, DiscoveredComponent latest,
+            Set<HaID> components) {
         final String componentNames = components.stream().map(id -> id.component)
-                .map(c -> HA_COMP_TO_NAME.getOrDefault(c, c)).collect(Collectors.joining(", "));
+                .map(c -> HA_COMP_TO_NAME.getOrDefault(c, c)).distinct().collect(Collectors.joining(", "));
 
         final List<String> topics = components.stream().map(HaID::toShortTopic).collect(Collectors.toList());
 
         Map<String, Object> properties = new HashMap<>();
-        HandlerConfiguration handlerConfig = new HandlerConfiguration(haID.baseTopic, topics);
+        HandlerConfiguration handlerConfig = new HandlerConfiguration(latest.haID.baseTopic, topics);
         properties = handlerConfig.appendToProperties(properties);
-        properties = config.appendToProperties(properties);
-        properties.put("deviceId", thingID);
-
-        // Because we need the new properties map with the updated "components" list
-        results.put(thingUID.getAsString(),
-                DiscoveryResultBuilder.create(thingUID).withProperties(properties)
-                        .withRepresentationProperty("deviceId").withBridge(connectionBridge)
-                        .withLabel(config.getThingName() + " (" + componentNames + ")").build());
-    }
+        properties = latest.config.appendToProperties(properties);
+        properties.put("deviceId", latest.thingID);
 
-    protected void publishResults() {
-        Collection<DiscoveryResult> localResults;
+        final ThingTypeUID typeID = thingUID.getThingTypeUID();
+        ThingType type = typeProvider.derive(typeID, MqttBindingConstants.HOMEASSISTANT_MQTT_THING).build();
+        typeProvider.setThingTypeIfAbsent(typeID, type);
 
-        localResults = new ArrayList<>(results.values());
-        results.clear();
-        componentsPerThingID.clear();
-        for (DiscoveryResult result : localResults) {
-            final ThingTypeUID typeID = result.getThingTypeUID();
-            ThingType type = typeProvider.derive(typeID, MqttBindingConstants.HOMEASSISTANT_MQTT_THING).build();
-            typeProvider.setThingTypeIfAbsent(typeID, type);
-
-            thingDiscovered(result);
-        }
+        thingDiscovered(DiscoveryResultBuilder.create(thingUID).withProperties(properties)
+                .withRepresentationProperty("deviceId").withBridge(latest.connectionBridge)
+                .withLabel(latest.config.getThingName() + " (" + componentNames + ")").build());
     }
 
     @Override
@@ -206,17 +307,27 @@ public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
         if (!topic.endsWith("/config")) {
             return;
         }
-        if (thingIDPerTopic.containsKey(topic)) {
-            ThingUID thingUID = thingIDPerTopic.remove(topic);
-            final String thingID = thingUID.getId();
+        // Processed in order with the configurations received for the same topic
+        delayedProcessing.accept(new ReceivedConfig(connectionBridge, topic, new byte[0]));
+    }
 
-            HaID haID = new HaID(topic);
+    private void removeComponent(String topic) {
+        ThingUID thingUID = thingIDPerTopic.remove(topic);
+        if (thingUID != null) {
+            removeComponent(thingUID, new HaID(topic));
+        }
+    }
 
-            Set<HaID> components = componentsPerThingID.getOrDefault(thingID, Collections.emptySet());
-            components.remove(haID);
-            if (components.isEmpty()) {
-                thingRemoved(thingUID);
-            }
+    /**
+     * Remove the component from the thing, and the thing if this was its last component
+     */
+    private void removeComponent(ThingUID thingUID, HaID haID) {
+        final String thingID = thingUID.getId();
+        Set<HaID> components = componentsPerThingID.getOrDefault(thingID, Collections.emptySet());
+        components.remove(haID);
+        if (components.isEmpty()) {
+            componentsPerThingID.remove(thingID);
+            thingRemoved(thingUID);
         }
     }
 }
@@ -12,9 +12,10 @@
  */
 package org.openhab.binding.mqtt.homeassistant.internal.handler;
 
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -252,7 +253,8 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
 
     /**
      * Callback of {@link DelayedBatchProcessing}.
-     * Add all newly discovered components to the Thing and start the components.
+     * Add all newly discovered components to the Thing and start the components. Only the latest configuration of a
+     * component in the batch is used, and the channels of all components are added to the Thing at once.
      */
     @SuppressWarnings("null")
     @Override
@@ -262,8 +264,12 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
             return;
         }
 
+        Map<String, AbstractComponent<?>> latestPerComponent = new LinkedHashMap<>();
+        discoveredComponentsList.forEach(discovered -> latestPerComponent.put(discovered.uid().getId(), discovered));
+
+        List<Channel> channels = new ArrayList<>();
         synchronized (haComponents) { // sync whenever discoverComponents is started
-            for (AbstractComponent<?> discovered : discoveredComponentsList) {
+            for (AbstractComponent<?> discovered : latestPerComponent.values()) {
                 AbstractComponent<?> known = haComponents.get(discovered.uid().getId());
                 // Is component already known?
                 if (known != null) {
@@ -287,8 +293,9 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
                     return null;
                 });
 
-                Collection<Channel> channels = discovered.channelTypes().values().stream().map(CChannel::getChannel)
-                        .collect(Collectors.toList());
+                discovered.channelTypes().values().stream().map(CChannel::getChannel).forEach(channels::add);
+            }
+            if (!channels.isEmpty()) {
                 ThingHelper.addChannelsToThing(thing, channels);
             }
         }
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.homeassistant.internal.discovery;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.mqtt.generic.MqttChannelTypeProvider;
+import org.openhab.binding.mqtt.homeassistant.generic.internal.MqttBindingConstants;
+import org.openhab.binding.mqtt.homeassistant.internal.HaID;
+import org.openhab.binding.mqtt.homeassistant.internal.discovery.HomeAssistantDiscovery.ReceivedConfig;
+import org.openhab.core.config.discovery.DiscoveryResult;
+import org.openhab.core.thing.ThingTypeUID;
+import org.openhab.core.thing.ThingUID;
+import org.openhab.core.thing.type.ThingTypeBuilder;
+import org.openhab.core.thing.type.ThingTypeRegistry;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+public class HomeAssistantDiscoveryTests {
+
+    private static final ThingUID BRIDGE = new ThingUID(new ThingTypeUID("mqtt", "broker"), "local");
+
+    private final List<DiscoveryResult> discovered = new ArrayList<>();
+    private final List<ThingUID> removed = new ArrayList<>();
+    private HomeAssistantDiscovery discovery;
+
+    @BeforeEach
+    public void setUp() {
+        ThingTypeRegistry typeRegistry = mock(ThingTypeRegistry.class);
+        when(typeRegistry.getThingType(MqttBindingConstants.HOMEASSISTANT_MQTT_THING)).thenReturn(
+                ThingTypeBuilder.instance(MqttBindingConstants.HOMEASSISTANT_MQTT_THING, "HomeAssistant").build());
+
+        discovery = new HomeAssistantDiscovery() {
+            @Override
+            protected void thingDiscovered(DiscoveryResult discoveryResult) {
+                discovered.add(discoveryResult);
+            }
+
+            @Override
+            protected void thingRemoved(ThingUID thingUID) {
+                removed.add(thingUID);
+            }
+        };
+        discovery.setTypeProvider(new MqttChannelTypeProvider(typeRegistry));
+    }
+
+    private static ReceivedConfig config(String topic, String deviceId, String deviceName) {
+        String json = "{\"name\":\"component\",\"state_topic\":\"" + deviceId + "/state\",\"device\":{\"ids\":[\""
+                + deviceId + "\"],\"name\":\"" + deviceName + "\"}}";
+        return new ReceivedConfig(BRIDGE, topic, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ReceivedConfig cleared(String topic) {
+        return new ReceivedConfig(BRIDGE, topic, new byte[0]);
+    }
+
+    private static String thingID(DiscoveryResult result) {
+        return result.getThingUID().getId();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> topics(DiscoveryResult result) {
+        return (List<String>) result.getProperties().get("topics");
+    }
+
+    private static String shortTopic(String topic) {
+        return new HaID(topic).toShortTopic();
+    }
+
+    @Test
+    public void testLatestConfigPerTopicIsUsed() {
+        discovery.processConfigs(Arrays.asList(config("homeassistant/switch/dev1/a/config", "dev1", "First"),
+                config("homeassistant/switch/dev1/a/config", "dev1", "Second")));
+
+        assertThat(discovered.size(), is(1));
+        assertThat(discovered.get(0).getLabel(), is("Second (Switch)"));
+        assertThat(topics(discovered.get(0)), contains(shortTopic("homeassistant/switch/dev1/a/config")));
+    }
+
+    @Test
+    public void testComponentsAreGroupedPerDevice() {
+        discovery.processConfigs(Arrays.asList(config("homeassistant/switch/dev1/a/config", "dev1", "Device 1"),
+                config("homeassistant/sensor/dev2/b/config", "dev2", "Device 2"),
+                config("homeassistant/sensor/dev1/c/config", "dev1", "Device 1")));
+
+        assertThat(discovered.stream().map(HomeAssistantDiscoveryTests::thingID).collect(Collectors.toList()),
+                contains("dev1", "dev2"));
+        assertThat(topics(discovered.get(0)), containsInAnyOrder(shortTopic("homeassistant/switch/dev1/a/config"),
+                shortTopic("homeassistant/sensor/dev1/c/config")));
+        assertThat(topics(discovered.get(1)), contains(shortTopic("homeassistant/sensor/dev2/b/config")));
+    }
+
+    @Test
+    public void testComponentsAreKeptAcrossBatches() {
+        discovery.processConfigs(Arrays.asList(config("homeassistant/switch/dev1/a/config", "dev1", "Device 1")));
+        discovery.processConfigs(Arrays.asList(config("homeassistant/sensor/dev1/b/config", "dev1", "Device 1")));
+
+        assertThat(discovered.size(), is(2));
+        assertThat(topics(discovered.get(1)), containsInAnyOrder(shortTopic("homeassistant/switch/dev1/a/config"),
+                shortTopic("homeassistant/sensor/dev1/b/config")));
+        assertThat(discovered.get(1).getLabel(), containsString("Switch"));
+        assertThat(discovered.get(1).getLabel(), containsString("Sensor"));
+    }
+
+    @Test
+    public void testThingIsRemovedWithItsLastComponent() {
+        discovery.processConfigs(Arrays.asList(config("homeassistant/switch/dev1/a/config", "dev1", "Device 1"),
+                config("homeassistant/sensor/dev1/b/config", "dev1", "Device 1")));
+        ThingUID thingUID = discovered.get(0).getThingUID();
+
+        discovery.processConfigs(Arrays.asList(cleared("homeassistant/switch/dev1/a/config")));
+        assertThat(removed, is(empty()));
+
+        discovery.processConfigs(Arrays.asList(cleared("homeassistant/sensor/dev1/b/config")));
+        assertThat(removed, contains(thingUID));
+        assertThat(discovery.componentsPerThingID.isEmpty(), is(true));
+        assertThat(discovery.thingIDPerTopic.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testConfigClearedInTheSameBatchIsNotDiscovered() {
+        discovery.processConfigs(Arrays.asList(config("homeassistant/switch/dev1/a/config", "dev1", "Device 1"),
+                cleared("homeassistant/switch/dev1/a/config")));
+
+        assertThat(discovered, is(empty()));
+        assertThat(discovery.thingIDPerTopic.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testInvalidConfigIsSkipped() {
+        discovery.processConfigs(Arrays.asList(
+                new ReceivedConfig(BRIDGE, "homeassistant/switch/dev1/a/config",
+                        "{invalid".getBytes(StandardCharsets.UTF_8)),
+                config("homeassistant/sensor/dev1/b/config", "dev1", "Device 1")));
+
+        assertThat(discovered.size(), is(1));
+        assertThat(topics(discovered.get(0)), contains(shortTopic("homeassistant/sensor/dev1/b/config")));
+    }
+
+    @Test
+    public void testBatchIsDiscardedAfterTypeProviderIsGone() {
+        discovery.unsetTypeProvider(mock(MqttChannelTypeProvider.class));
+
+        discovery.processConfigs(Arrays.asList(config("homeassistant/switch/dev1/a/config", "dev1", "Device 1")));
+
+        assertThat(discovered, is(empty()));
+        assertThat(discovery.thingIDPerTopic.isEmpty(), is(true));
+        assertThat(discovery.getSupportedThingTypes(), is(empty()));
+    }
+}
@@ -13,9 +13,6 @@
 package org.openhab.io.transport.modbus;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.util.Optional;
 
@@ -101,117 +98,119 @@ public class ModbusBitUtilities {
      */
     public static Optional<DecimalType> extractStateFromRegisters(ModbusRegisterArray registers, int index,
             ModbusConstants.ValueType type) {
-        int endBitIndex = (type.getBits() >= 16 ? 16 * index : type.getBits() * index) + type.getBits() - 1;
-        // each register has 16 bits
-        int lastValidIndex = registers.size() * 16 - 1;
-        if (endBitIndex > lastValidIndex || index < 0) {
-            throw new IllegalArgumentException(
-                    String.format("Index=%d with type=%s is out-of-bounds given registers of size %d", index, type,
-                            registers.size()));
-        }
         switch (type) {
-            case BIT:
-                return Optional
-                        .of(new DecimalType((registers.getRegister(index / 16).toUnsignedShort() >> (index % 16)) & 1));
-            case INT8:
-                return Optional.of(new DecimalType(registers.getRegister(index / 2).getBytes()[1 - (index % 2)]));
-            case UINT8:
-                return Optional.of(new DecimalType(
-                        (registers.getRegister(index / 2).toUnsignedShort() >> (8 * (index % 2))) & 0xff));
-            case INT16: {
-                ByteBuffer buff = ByteBuffer.allocate(2);
-                buff.put(registers.getRegister(index).getBytes());
-                return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getShort(0)));
-            }
-            case UINT16:
-                return Optional.of(new DecimalType(registers.getRegister(index).toUnsignedShort()));
-            case INT32: {
-                ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getInt(0)));
-            }
-            case UINT32: {
-                ByteBuffer buff = ByteBuffer.allocate(8);
-                buff.position(4);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getLong(0)));
-            }
-            case FLOAT32: {
-                ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                try {
-                    return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getFloat(0)));
-                } catch (NumberFormatException e) {
-                    // floating point NaN or infinity encountered
-                    return Optional.empty();
-                }
-            }
-            case INT64: {
-                ByteBuffer buff = ByteBuffer.allocate(8);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index + 2).getBytes());
-                buff.put(registers.getRegister(index + 3).getBytes());
-                return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getLong(0)));
-            }
-            case UINT64: {
-                ByteBuffer buff = ByteBuffer.allocate(8);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index + 2).getBytes());
-                buff.put(registers.getRegister(index + 3).getBytes());
-                return Optional.of(
-                        new DecimalType(new BigDecimal(new BigInteger(1, buff.order(ByteOrder.BIG_ENDIAN).array()))));
-            }
-            case INT32_SWAP: {
-                ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
-                return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getInt(0)));
-            }
-            case UINT32_SWAP: {
-                ByteBuffer buff = ByteBuffer.allocate(8);
-                buff.position(4);
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
-                return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getLong(0)));
-            }
+            case FLOAT32:
             case FLOAT32_SWAP: {
-                ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
-                try {
-                    return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getFloat(0)));
-                } catch (NumberFormatException e) {
-                    // floating point NaN or infinity encountered
+                float value = extractFloatFromRegisters(registers, index, type);
+                if (Float.isNaN(value) || Float.isInfinite(value)) {
                     return Optional.empty();
                 }
+                return Optional.of(new DecimalType(value));
             }
-            case INT64_SWAP: {
-                ByteBuffer buff = ByteBuffer.allocate(8);
-                buff.put(registers.getRegister(index + 3).getBytes());
-                buff.put(registers.getRegister(index + 2).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
-                return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getLong(0)));
-            }
+            case UINT64:
             case UINT64_SWAP: {
-                ByteBuffer buff = ByteBuffer.allocate(8);
-                buff.put(registers.getRegister(index + 3).getBytes());
-                buff.put(registers.getRegister(index + 2).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
-                return Optional.of(
-                        new DecimalType(new BigDecimal(new BigInteger(1, buff.order(ByteOrder.BIG_ENDIAN).array()))));
+                long value = extractLongFromRegisters(registers, index, type);
+                if (value < 0) {
+                    // out of bounds of signed 64bit
+                    return Optional.of(new DecimalType(new BigDecimal(Long.toUnsignedString(value))));
+                }
+                return Optional.of(new DecimalType(value));
             }
+            default:
+                return Optional.of(new DecimalType(extractLongFromRegisters(registers, index, type)));
+        }
+    }
+
+    /**
+     * Read integer from registers without creating intermediate objects
+     *
+     * Interpretation of <tt>index</tt> and <tt>type</tt> is the same as with
+     * {@link #extractStateFromRegisters(ModbusRegisterArray, int, ModbusConstants.ValueType)}.
+     *
+     * @param registers list of registers, each register represent 16bit of data
+     * @param index zero based item index
+     * @param type integer item type
+     * @return the value. With UINT64 and UINT64_SWAP, the 64 bits of the unsigned value, i.e. negative with values
+     *         larger than {@link Long#MAX_VALUE}. See {@link Long#toUnsignedString(long)}
+     * @throws IllegalArgumentException when <tt>index</tt> is out of bounds of registers, or type is floating point
+     *             type
+     */
+    public static long extractLongFromRegisters(ModbusRegisterArray registers, int index,
+            ModbusConstants.ValueType type) {
+        checkBounds(registers, index, type);
+        switch (type) {
+            case BIT:
+                return (registers.getUnsignedShort(index / 16) >> (index % 16)) & 1;
+            case INT8:
+                return registers.getByte(2 * (index / 2) + 1 - (index % 2));
+            case UINT8:
+                return (registers.getUnsignedShort(index / 2) >> (8 * (index % 2))) & 0xff;
+            case INT16:
+                return registers.getShort(index);
+            case UINT16:
+                return registers.getUnsignedShort(index);
+            case INT32:
+                return registers.getInt(index);
+            case UINT32:
+                return registers.getInt(index) & 0xffffffffL;
+            case INT64:
+            case UINT64:
+                return registers.getLong(index);
+            case INT32_SWAP:
+                return swapInt(registers, index);
+            case UINT32_SWAP:
+                return swapInt(registers, index) & 0xffffffffL;
+            case INT64_SWAP:
+            case UINT64_SWAP:
+                return ((long) registers.getUnsignedShort(index + 3) << 48)
+                        | ((long) registers.getUnsignedShort(index + 2) << 32)
+                        | ((long) registers.getUnsignedShort(index + 1) << 16) | registers.getUnsignedShort(index);
+            default:
+                throw new IllegalArgumentException(type.getConfigValue());
+        }
+    }
+
+    /**
+     * Read floating point number from registers without creating intermediate objects
+     *
+     * Interpretation of <tt>index</tt> and <tt>type</tt> is the same as with
+     * {@link #extractStateFromRegisters(ModbusRegisterArray, int, ModbusConstants.ValueType)}.
+     *
+     * @param registers list of registers, each register represent 16bit of data
+     * @param index zero based register index
+     * @param type FLOAT32 or FLOAT32_SWAP
+     * @return the value, including NaN and infinity
+     * @throws IllegalArgumentException when <tt>index</tt> is out of bounds of registers, or type is not floating point
+     *             type
+     */
+    public static float extractFloatFromRegisters(ModbusRegisterArray registers, int index,
+            ModbusConstants.ValueType type) {
+        checkBounds(registers, index, type);
+        switch (type) {
+            case FLOAT32:
+                return Float.intBitsToFloat(registers.getInt(index));
+            case FLOAT32_SWAP:
+                return Float.intBitsToFloat(swapInt(registers, index));
             default:
                 throw new IllegalArgumentException(type.getConfigValue());
         }
     }
 
+    private static int swapInt(ModbusRegisterArray registers, int index) {
+        return (registers.getUnsignedShort(index + 1) << 16) | registers.getUnsignedShort(index);
+    }
+
+    private static void checkBounds(ModbusRegisterArray registers, int index, ModbusConstants.ValueType type) {
+        int endBitIndex = (type.getBits() >= 16 ? 16 * index : type.getBits() * index) + type.getBits() - 1;
+        // each register has 16 bits
+        int lastValidIndex = registers.size() * 16 - 1;
+        if (endBitIndex > lastValidIndex || index < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Index=%d with type=%s is out-of-bounds given registers of size %d", index, type,
+                            registers.size()));
+        }
+    }
+
     /**
      * Read data from registers and convert the result to StringType
      * Strings should start the the first byte of a register, but could
@@ -249,9 +248,9 @@ public class ModbusBitUtilities {
 
             byte chr;
             if (dest % 2 == 0) {
-                chr = (byte) ((registers.getRegister(src).getValue() >> 8));
+                chr = (byte) ((registers.getUnsignedShort(src) >> 8));
             } else {
-                chr = (byte) (registers.getRegister(src).getValue() & 0xff);
+                chr = (byte) (registers.getUnsignedShort(src) & 0xff);
                 src++;
             }
             if (chr == 0) {
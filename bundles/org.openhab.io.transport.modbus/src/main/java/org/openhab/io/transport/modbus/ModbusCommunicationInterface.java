@@ -47,7 +47,8 @@ public interface ModbusCommunicationInterface extends AutoCloseable {
      * @param request request to send
      * @param callback callback to call with data
      * @param callback callback to call in case of failure
-     * @return future representing the polled task
+     * @return future completing once the request has been executed and the callback invoked. Canceling the future
+     *         prevents the execution if the request is still queued.
      * @throws IllegalStateException when this communication has been closed already
      */
     public Future<?> submitOneTimePoll(ModbusReadRequestBlueprint request, ModbusReadCallback resultCallback,
@@ -89,7 +90,8 @@ public interface ModbusCommunicationInterface extends AutoCloseable {
      * @param request request to send
      * @param callback callback to call with response
      * @param callback callback to call in case of failure
-     * @return future representing the task
+     * @return future completing once the request has been executed and the callback invoked. Canceling the future
+     *         prevents the execution if the request is still queued.
      * @throws IllegalStateException when this communication has been closed already
      */
     public Future<?> submitOneTimeWrite(ModbusWriteRequestBlueprint request, ModbusWriteCallback resultCallback,
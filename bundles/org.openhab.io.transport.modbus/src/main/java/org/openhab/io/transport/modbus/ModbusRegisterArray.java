@@ -20,12 +20,19 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 /**
  * Immutable {@link ModbusRegisterArray} implementation
  *
+ * The register data is stored as big endian bytes, two bytes per register. Views created with
+ * {@link #subArray(int, int)} share the bytes with the original array. Use the primitive getters, e.g.
+ * {@link #getUnsignedShort(int)}, to read the data without creating a {@link ModbusRegister} per register.
+ *
  * @author Sami Salonen - Initial contribution
  */
 @NonNullByDefault
 public class ModbusRegisterArray implements Iterable<ModbusRegister> {
 
-    private final ModbusRegister[] registers;
+    private final byte[] bytes;
+    // index of the first byte of this array in bytes
+    private final int offset;
+    private final int size;
 
     /**
      * Construct plain <code>ModbusRegister[]</code> array from register values
@@ -47,7 +54,12 @@ public class ModbusRegisterArray implements Iterable<ModbusRegister> {
      * @param registers
      */
     public ModbusRegisterArray(ModbusRegister[] registers) {
-        this.registers = registers;
+        this(new byte[registers.length * 2], 0, registers.length);
+        for (int i = 0; i < registers.length; i++) {
+            byte[] registerBytes = registers[i].getBytes();
+            bytes[2 * i] = registerBytes[0];
+            bytes[2 * i + 1] = registerBytes[1];
+        }
     }
 
     /**
@@ -57,7 +69,48 @@ public class ModbusRegisterArray implements Iterable<ModbusRegister> {
      * @return
      */
     public ModbusRegisterArray(int... registerValues) {
-        this(registersFromValues(registerValues));
+        this(new byte[registerValues.length * 2], 0, registerValues.length);
+        for (int i = 0; i < registerValues.length; i++) {
+            bytes[2 * i] = (byte) (registerValues[i] >> 8);
+            bytes[2 * i + 1] = (byte) registerValues[i];
+        }
+    }
+
+    /**
+     * Construct ModbusRegisterArray from register data
+     *
+     * The bytes are not copied, and must not be modified after construction.
+     *
+     * @param bytes register data, two bytes per register, high byte first
+     * @throws IllegalArgumentException if the number of bytes is odd
+     */
+    public ModbusRegisterArray(byte[] bytes) {
+        this(bytes, 0, bytes.length / 2);
+        if (bytes.length % 2 != 0) {
+            throw new IllegalArgumentException("Register data must have even number of bytes, got " + bytes.length);
+        }
+    }
+
+    private ModbusRegisterArray(byte[] bytes, int offset, int size) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * Return a view of the registers, sharing the data with this instance
+     *
+     * @param index index of the first register of the view
+     * @param length number of registers in the view
+     * @return registers from index (inclusive) to index + length (exclusive)
+     * @throws IndexOutOfBoundsException if the registers are out of bounds
+     */
+    public ModbusRegisterArray subArray(int index, int length) {
+        if (index < 0 || length < 0 || index + length > size) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Registers %d-%d out of bounds of size %d", index, index + length, size));
+        }
+        return new ModbusRegisterArray(bytes, offset + 2 * index, length);
     }
 
     /**
@@ -70,7 +123,70 @@ public class ModbusRegisterArray implements Iterable<ModbusRegister> {
      * @throws IndexOutOfBoundsException if the index is out of bounds.
      */
     public ModbusRegister getRegister(int index) {
-        return registers[index];
+        checkIndex(index, 1);
+        return new ModbusRegister(bytes[offset + 2 * index], bytes[offset + 2 * index + 1]);
+    }
+
+    /**
+     * Return byte of the register data
+     *
+     * @param byteIndex index of the byte, 0 being the high byte of the first register and 1 the low byte of the first
+     *            register
+     * @throws IndexOutOfBoundsException if the index is out of bounds.
+     */
+    public byte getByte(int byteIndex) {
+        if (byteIndex < 0 || byteIndex >= 2 * size) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Byte index %d out of bounds of %d registers", byteIndex, size));
+        }
+        return bytes[offset + byteIndex];
+    }
+
+    /**
+     * Return register at the given index as unsigned 16 bit integer
+     *
+     * @param index the index of the register
+     * @throws IndexOutOfBoundsException if the index is out of bounds.
+     */
+    public int getUnsignedShort(int index) {
+        checkIndex(index, 1);
+        return ((bytes[offset + 2 * index] & 0xff) << 8) | (bytes[offset + 2 * index + 1] & 0xff);
+    }
+
+    /**
+     * Return register at the given index as signed 16 bit integer
+     *
+     * @param index the index of the register
+     * @throws IndexOutOfBoundsException if the index is out of bounds.
+     */
+    public short getShort(int index) {
+        return (short) getUnsignedShort(index);
+    }
+
+    /**
+     * Return registers (index) and (index + 1) as signed 32 bit integer, first register containing the most
+     * significant 16 bits
+     *
+     * @param index the index of the first register
+     * @throws IndexOutOfBoundsException if the registers are out of bounds.
+     */
+    public int getInt(int index) {
+        checkIndex(index, 2);
+        int start = offset + 2 * index;
+        return ((bytes[start] & 0xff) << 24) | ((bytes[start + 1] & 0xff) << 16) | ((bytes[start + 2] & 0xff) << 8)
+                | (bytes[start + 3] & 0xff);
+    }
+
+    /**
+     * Return registers (index) to (index + 3) as signed 64 bit integer, first register containing the most
+     * significant 16 bits
+     *
+     * @param index the index of the first register
+     * @throws IndexOutOfBoundsException if the registers are out of bounds.
+     */
+    public long getLong(int index) {
+        checkIndex(index, 4);
+        return ((long) getInt(index) << 32) | (getInt(index + 2) & 0xffffffffL);
     }
 
     /**
@@ -79,15 +195,22 @@ public class ModbusRegisterArray implements Iterable<ModbusRegister> {
      * @return
      */
     public int size() {
-        return registers.length;
+        return size;
+    }
+
+    private void checkIndex(int index, int registerCount) {
+        if (index < 0 || index + registerCount > size) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Register index %d out of bounds of %d registers", index, size));
+        }
     }
 
     @Override
     public String toString() {
-        if (registers.length == 0) {
+        if (size == 0) {
             return "ModbusRegisterArrayImpl(<empty>)";
         }
-        StringBuffer buffer = new StringBuffer(registers.length * 2).append("ModbusRegisterArrayImpl(");
+        StringBuffer buffer = new StringBuffer(size * 2).append("ModbusRegisterArrayImpl(");
         return appendHexString(buffer).append(')').toString();
     }
 
@@ -120,12 +243,16 @@ public class ModbusRegisterArray implements Iterable<ModbusRegister> {
      *
      */
     public StringBuffer appendHexString(StringBuffer buffer) {
-        IntStream.range(0, size()).forEachOrdered(index -> {
-            getRegister(index).appendHexString(buffer);
-            if (index < size() - 1) {
+        for (int i = 0; i < 2 * size; i++) {
+            int b = bytes[offset + i] & 0xff;
+            if (b < 0x10) {
+                buffer.append('0');
+            }
+            buffer.append(Integer.toHexString(b));
+            if (i < 2 * size - 1) {
                 buffer.append(' ');
             }
-        });
+        }
         return buffer;
     }
 }
@@ -61,6 +61,20 @@ public class EndpointPoolConfiguration {
      */
     private int connectTimeoutMillis;
 
+    /**
+     * How many requests can be outstanding on a single connection at the same time. Responses are matched to the
+     * requests by the transaction id of the MBAP header, so this is only supported with TCP endpoints. Default of 1
+     * means that a request is sent only after the response to the previous one has been received.
+     */
+    private int pipelineWindowSize = 1;
+
+    /**
+     * Regular polls with the same unit id, function code and poll period are merged into a single read when there are
+     * at most this many unused registers (or coils/discrete inputs) between them. Zero merges only overlapping and
+     * adjacent reads, and the default of -1 disables merging.
+     */
+    private int pollCoalescingMaxGap = -1;
+
     private static StandardToStringStyle toStringStyle = new StandardToStringStyle();
 
     static {
@@ -107,10 +121,27 @@ public class EndpointPoolConfiguration {
         this.connectTimeoutMillis = connectTimeoutMillis;
     }
 
+    public int getPipelineWindowSize() {
+        return pipelineWindowSize;
+    }
+
+    public void setPipelineWindowSize(int pipelineWindowSize) {
+        this.pipelineWindowSize = pipelineWindowSize;
+    }
+
+    public int getPollCoalescingMaxGap() {
+        return pollCoalescingMaxGap;
+    }
+
+    public void setPollCoalescingMaxGap(int pollCoalescingMaxGap) {
+        this.pollCoalescingMaxGap = pollCoalescingMaxGap;
+    }
+
     @Override
     public int hashCode() {
         return new HashCodeBuilder(2149, 3117).append(interTransactionDelayMillis).append(interConnectDelayMillis)
-                .append(connectMaxTries).append(reconnectAfterMillis).append(connectTimeoutMillis).toHashCode();
+                .append(connectMaxTries).append(reconnectAfterMillis).append(connectTimeoutMillis)
+                .append(pipelineWindowSize).append(pollCoalescingMaxGap).toHashCode();
     }
 
     @Override
@@ -119,7 +150,8 @@ public class EndpointPoolConfiguration {
                 .append("interTransactionDelayMillis", interTransactionDelayMillis)
                 .append("interConnectDelayMillis", interConnectDelayMillis).append("connectMaxTries", connectMaxTries)
                 .append("reconnectAfterMillis", reconnectAfterMillis)
-                .append("connectTimeoutMillis", connectTimeoutMillis).toString();
+                .append("connectTimeoutMillis", connectTimeoutMillis).append("pipelineWindowSize", pipelineWindowSize)
+                .append("pollCoalescingMaxGap", pollCoalescingMaxGap).toString();
     }
 
     @Override
@@ -137,6 +169,8 @@ public class EndpointPoolConfiguration {
         return new EqualsBuilder().append(interTransactionDelayMillis, rhs.interTransactionDelayMillis)
                 .append(interConnectDelayMillis, rhs.interConnectDelayMillis)
                 .append(connectMaxTries, rhs.connectMaxTries).append(reconnectAfterMillis, rhs.reconnectAfterMillis)
-                .append(connectTimeoutMillis, rhs.connectTimeoutMillis).isEquals();
+                .append(connectTimeoutMillis, rhs.connectTimeoutMillis)
+                .append(pipelineWindowSize, rhs.pipelineWindowSize)
+                .append(pollCoalescingMaxGap, rhs.pollCoalescingMaxGap).isEquals();
     }
 }
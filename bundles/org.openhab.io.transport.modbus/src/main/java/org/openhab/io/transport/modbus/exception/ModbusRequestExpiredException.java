@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.exception;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
+
+/**
+ * Exception for regular polls which waited for the endpoint past their deadline, and were dropped without sending
+ * the request
+ *
+ * @author openHAB Contributors - Initial contribution
+ *
+ */
+@NonNullByDefault
+public class ModbusRequestExpiredException extends ModbusTransportException {
+
+    private static final long serialVersionUID = -2722379012786433361L;
+    private ModbusSlaveEndpoint endpoint;
+    private long waitedMillis;
+
+    /**
+     *
+     * @param endpoint endpoint the request was queued for
+     * @param waitedMillis time the request waited in the queue
+     */
+    public ModbusRequestExpiredException(ModbusSlaveEndpoint endpoint, long waitedMillis) {
+        this.endpoint = endpoint;
+        this.waitedMillis = waitedMillis;
+    }
+
+    /**
+     * Get endpoint the request was queued for
+     *
+     * @return endpoint of the request
+     */
+    public ModbusSlaveEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Get time the request waited in the queue before it was dropped
+     *
+     * @return waiting time in milliseconds
+     */
+    public long getWaitedMillis() {
+        return waitedMillis;
+    }
+
+    @Override
+    public String getMessage() {
+        return String.format("Request waited %d ms for endpoint %s, past its deadline", waitedMillis, endpoint);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ModbusRequestExpiredException(endpoint=%s, waitedMillis=%d)", endpoint, waitedMillis);
+    }
+}
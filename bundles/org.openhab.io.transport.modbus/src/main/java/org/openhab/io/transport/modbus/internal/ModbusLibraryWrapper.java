@@ -24,7 +24,6 @@ import org.openhab.io.transport.modbus.BitArray;
 import org.openhab.io.transport.modbus.ModbusReadCallback;
 import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
 import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
-import org.openhab.io.transport.modbus.ModbusRegister;
 import org.openhab.io.transport.modbus.ModbusRegisterArray;
 import org.openhab.io.transport.modbus.ModbusWriteCoilRequestBlueprint;
 import org.openhab.io.transport.modbus.ModbusWriteRegisterRequestBlueprint;
@@ -87,11 +86,13 @@ public class ModbusLibraryWrapper {
     }
 
     private static ModbusRegisterArray modbusRegisterArrayFromInputRegisters(InputRegister[] inputRegisters) {
-        ModbusRegister[] registers = new ModbusRegister[inputRegisters.length];
+        byte[] bytes = new byte[inputRegisters.length * 2];
         for (int i = 0; i < inputRegisters.length; i++) {
-            registers[i] = new ModbusRegister(inputRegisters[i].getValue());
+            int value = inputRegisters[i].getValue();
+            bytes[2 * i] = (byte) (value >> 8);
+            bytes[2 * i + 1] = (byte) value;
         }
-        return new ModbusRegisterArray(registers);
+        return new ModbusRegisterArray(bytes);
     }
 
     /**
@@ -270,7 +271,7 @@ public class ModbusLibraryWrapper {
      * @return
      */
     public static Register[] convertRegisters(ModbusRegisterArray arr) {
-        return IntStream.range(0, arr.size()).mapToObj(i -> new SimpleInputRegister(arr.getRegister(i).getValue()))
+        return IntStream.range(0, arr.size()).mapToObj(i -> new SimpleInputRegister(arr.getUnsignedShort(i)))
                 .collect(Collectors.toList()).toArray(new Register[0]);
     }
 
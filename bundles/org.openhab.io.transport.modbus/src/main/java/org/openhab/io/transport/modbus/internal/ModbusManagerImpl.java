@@ -13,21 +13,35 @@
 package org.openhab.io.transport.modbus.internal;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 import javax.imageio.IIOException;
 
+import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.pool2.KeyedObjectPool;
 import org.apache.commons.pool2.SwallowedExceptionListener;
 import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
@@ -37,11 +51,13 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jetty.util.ConcurrentHashSet;
 import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.io.transport.modbus.AsyncModbusFailure;
+import org.openhab.io.transport.modbus.AsyncModbusReadResult;
 import org.openhab.io.transport.modbus.AsyncModbusWriteResult;
 import org.openhab.io.transport.modbus.ModbusCommunicationInterface;
 import org.openhab.io.transport.modbus.ModbusFailureCallback;
 import org.openhab.io.transport.modbus.ModbusManager;
 import org.openhab.io.transport.modbus.ModbusReadCallback;
+import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
 import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
 import org.openhab.io.transport.modbus.ModbusResultCallback;
 import org.openhab.io.transport.modbus.ModbusWriteCallback;
@@ -56,9 +72,12 @@ import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpointVisitor;
 import org.openhab.io.transport.modbus.endpoint.ModbusTCPSlaveEndpoint;
 import org.openhab.io.transport.modbus.endpoint.ModbusUDPSlaveEndpoint;
 import org.openhab.io.transport.modbus.exception.ModbusConnectionException;
+import org.openhab.io.transport.modbus.exception.ModbusRequestExpiredException;
+import org.openhab.io.transport.modbus.exception.ModbusSlaveErrorResponseException;
 import org.openhab.io.transport.modbus.exception.ModbusUnexpectedResponseFunctionCodeException;
 import org.openhab.io.transport.modbus.exception.ModbusUnexpectedResponseSizeException;
 import org.openhab.io.transport.modbus.exception.ModbusUnexpectedTransactionIdException;
+import org.openhab.io.transport.modbus.internal.ModbusPollPlanner.CoalescedPoll;
 import org.openhab.io.transport.modbus.internal.pooling.ModbusSlaveConnectionFactoryImpl;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -71,9 +90,12 @@ import net.wimpi.modbus.ModbusException;
 import net.wimpi.modbus.ModbusIOException;
 import net.wimpi.modbus.ModbusSlaveException;
 import net.wimpi.modbus.io.ModbusTransaction;
+import net.wimpi.modbus.io.ModbusTransport;
+import net.wimpi.modbus.msg.ExceptionResponse;
 import net.wimpi.modbus.msg.ModbusRequest;
 import net.wimpi.modbus.msg.ModbusResponse;
 import net.wimpi.modbus.net.ModbusSlaveConnection;
+import net.wimpi.modbus.net.TCPMasterConnection;
 
 /**
  * Main implementation of ModbusManager
@@ -122,6 +144,38 @@ public class ModbusManagerImpl implements ModbusManager {
                 ModbusUnexpectedResponseFunctionCodeException, ModbusUnexpectedResponseSizeException;
     }
 
+    /**
+     * Operation which can be split to creating the request and handling the response, for pipelined execution
+     */
+    private interface PipelinableOperation<T> extends ModbusOperation<T> {
+
+        /**
+         * Create the library request for the task
+         *
+         * @param task task to execute
+         * @return request to send to the slave
+         */
+        public ModbusRequest createRequest(T task);
+
+        /**
+         * Validate the response and call the result callback of the task
+         *
+         * @param timer aggregate stop watch for performance profiling
+         * @param task task which was executed
+         * @param libRequest request sent to the slave
+         * @param response response from the slave corresponding to request
+         *
+         * @throws ModbusUnexpectedTransactionIdException when transaction IDs of the request and
+         *             response do not match
+         * @throws ModbusUnexpectedResponseFunctionCodeException when response function code does not match the request
+         *             (ill-behaving slave)
+         * @throws ModbusUnexpectedResponseSizeException when data length of the response and request do not match
+         */
+        public void handleResponse(AggregateStopWatch timer, T task, ModbusRequest libRequest, ModbusResponse response)
+                throws ModbusUnexpectedTransactionIdException, ModbusUnexpectedResponseFunctionCodeException,
+                ModbusUnexpectedResponseSizeException;
+    }
+
     /**
      * Check that transaction id of the response and request match
      *
@@ -187,18 +241,17 @@ public class ModbusManagerImpl implements ModbusManager {
      * @author Sami Salonen - Initial contribution
      *
      */
-    private class PollOperation implements ModbusOperation<PollTask> {
+    private class PollOperation implements PipelinableOperation<PollTask> {
         @Override
         public void accept(AggregateStopWatch timer, PollTask task, ModbusSlaveConnection connection)
                 throws ModbusException, ModbusUnexpectedTransactionIdException,
                 ModbusUnexpectedResponseFunctionCodeException, ModbusUnexpectedResponseSizeException {
             ModbusSlaveEndpoint endpoint = task.getEndpoint();
             ModbusReadRequestBlueprint request = task.getRequest();
-            ModbusReadCallback callback = task.getResultCallback();
             String operationId = timer.operationId;
 
             ModbusTransaction transaction = ModbusLibraryWrapper.createTransactionForEndpoint(endpoint, connection);
-            ModbusRequest libRequest = ModbusLibraryWrapper.createRequest(request);
+            ModbusRequest libRequest = createRequest(task);
             transaction.setRequest(libRequest);
 
             logger.trace("Going execute transaction with request request (FC={}): {} [operation ID {}]",
@@ -206,7 +259,21 @@ public class ModbusManagerImpl implements ModbusManager {
             // Might throw ModbusIOException (I/O error) or ModbusSlaveException (explicit exception response from
             // slave)
             timer.transaction.timeRunnableWithModbusException(() -> transaction.execute());
-            ModbusResponse response = transaction.getResponse();
+            handleResponse(timer, task, libRequest, transaction.getResponse());
+        }
+
+        @Override
+        public ModbusRequest createRequest(PollTask task) {
+            return ModbusLibraryWrapper.createRequest(task.getRequest());
+        }
+
+        @Override
+        public void handleResponse(AggregateStopWatch timer, PollTask task, ModbusRequest libRequest,
+                ModbusResponse response) throws ModbusUnexpectedTransactionIdException,
+                ModbusUnexpectedResponseFunctionCodeException, ModbusUnexpectedResponseSizeException {
+            ModbusReadRequestBlueprint request = task.getRequest();
+            ModbusReadCallback callback = task.getResultCallback();
+            String operationId = timer.operationId;
             logger.trace("Response for read request (FC={}, transaction ID={}): {} [operation ID {}]",
                     response.getFunctionCode(), response.getTransactionID(), response.getHexMessage(), operationId);
             checkTransactionId(response, libRequest, operationId);
@@ -223,19 +290,17 @@ public class ModbusManagerImpl implements ModbusManager {
      * @author Sami Salonen - Initial contribution
      *
      */
-    private class WriteOperation implements ModbusOperation<WriteTask> {
+    private class WriteOperation implements PipelinableOperation<WriteTask> {
         @Override
         public void accept(AggregateStopWatch timer, WriteTask task, ModbusSlaveConnection connection)
                 throws ModbusException, ModbusUnexpectedTransactionIdException,
                 ModbusUnexpectedResponseFunctionCodeException {
             ModbusSlaveEndpoint endpoint = task.getEndpoint();
             ModbusWriteRequestBlueprint request = task.getRequest();
-            @Nullable
-            ModbusWriteCallback callback = task.getResultCallback();
             String operationId = timer.operationId;
 
             ModbusTransaction transaction = ModbusLibraryWrapper.createTransactionForEndpoint(endpoint, connection);
-            ModbusRequest libRequest = ModbusLibraryWrapper.createRequest(request);
+            ModbusRequest libRequest = createRequest(task);
             transaction.setRequest(libRequest);
 
             logger.trace("Going execute transaction with read request (FC={}): {} [operation ID {}]",
@@ -244,7 +309,22 @@ public class ModbusManagerImpl implements ModbusManager {
             // Might throw ModbusIOException (I/O error) or ModbusSlaveException (explicit exception response from
             // slave)
             timer.transaction.timeRunnableWithModbusException(() -> transaction.execute());
-            ModbusResponse response = transaction.getResponse();
+            handleResponse(timer, task, libRequest, transaction.getResponse());
+        }
+
+        @Override
+        public ModbusRequest createRequest(WriteTask task) {
+            return ModbusLibraryWrapper.createRequest(task.getRequest());
+        }
+
+        @Override
+        public void handleResponse(AggregateStopWatch timer, WriteTask task, ModbusRequest libRequest,
+                ModbusResponse response)
+                throws ModbusUnexpectedTransactionIdException, ModbusUnexpectedResponseFunctionCodeException {
+            ModbusWriteRequestBlueprint request = task.getRequest();
+            @Nullable
+            ModbusWriteCallback callback = task.getResultCallback();
+            String operationId = timer.operationId;
             logger.trace("Response for write request (FC={}, transaction ID={}): {} [operation ID {}]",
                     response.getFunctionCode(), response.getTransactionID(), response.getHexMessage(), operationId);
             checkTransactionId(response, libRequest, operationId);
@@ -287,13 +367,24 @@ public class ModbusManagerImpl implements ModbusManager {
      * You can generate large queue by spamming ModbusManager with one-off read or writes (submitOnTimePoll or
      * submitOneTimeWrite).
      *
-     * Note that there is no issue registering many regular polls, those do not "queue" the same way.
+     * Note that there is no issue registering many regular polls, those do not "queue" the same way: a regular poll
+     * replaces its previous execution if that is still queued.
      *
      * Presumably slow callbacks can increase queue size with callbackThreadPool
      */
     private static final long WARN_QUEUE_SIZE = 500;
     private static final long MONITOR_QUEUE_INTERVAL_MILLIS = 10000;
 
+    /**
+     * Deadline of operations which are executed no matter how long they wait in the queue
+     */
+    private static final long NO_DEADLINE = -1;
+
+    /**
+     * Number of poll periods a regular poll may wait in the queue before it is dropped
+     */
+    private static final int REGULAR_POLL_DEADLINE_PERIODS = 2;
+
     private final PollOperation pollOperation = new PollOperation();
     private final WriteOperation writeOperation = new WriteOperation();
 
@@ -318,6 +409,8 @@ public class ModbusManagerImpl implements ModbusManager {
     private volatile @Nullable ScheduledExecutorService scheduledThreadPoolExecutor;
     private volatile @Nullable ScheduledFuture<?> monitorFuture;
     private volatile Set<ModbusCommunicationInterfaceImpl> communicationInterfaces = new ConcurrentHashSet<>();
+    private final Map<ModbusSlaveEndpoint, EndpointQueue> endpointQueues = new ConcurrentHashMap<>();
+    private final Set<PollGroup> pollGroups = new ConcurrentHashSet<>();
 
     private void constructConnectionPool() {
         ModbusSlaveConnectionFactoryImpl connectionFactory = new ModbusSlaveConnectionFactoryImpl();
@@ -722,6 +815,843 @@ public class ModbusManagerImpl implements ModbusManager {
         }
     }
 
+    /**
+     * Queue the task for execution with the other tasks of the same endpoint
+     *
+     * @param task task to execute
+     * @param oneOffTask whether this is one-off, or execution of previously scheduled poll
+     * @param operation operation executing the task
+     * @param priority priority of the task among the other tasks of the endpoint
+     * @param deadlineMillis time after which the task is not executed anymore, {@link #NO_DEADLINE} if the task should
+     *            be executed no matter how long it waits
+     * @return future completing once the task has been executed and its callbacks invoked, or the task has been
+     *         dropped from the queue
+     */
+    private <R, C extends ModbusResultCallback, F extends ModbusFailureCallback<R>, T extends TaskWithEndpoint<R, C, F>> Future<?> execute(
+            T task, boolean oneOffTask, PipelinableOperation<T> operation, OperationPriority priority,
+            long deadlineMillis) {
+        ScheduledExecutorService executor = scheduledThreadPoolExecutor;
+        if (executor == null) {
+            // deactivated manager
+            logger.trace("Deactivated manager - not executing task {}", task);
+            OperationFuture future = new OperationFuture();
+            future.abort();
+            return future;
+        }
+        QueuedOperation<R, C, F, T> queuedOperation = new QueuedOperation<>(task, oneOffTask, operation, priority,
+                deadlineMillis);
+        endpointQueues.computeIfAbsent(task.getEndpoint(), EndpointQueue::new).submit(executor, queuedOperation);
+        return queuedOperation.future;
+    }
+
+    /**
+     * Priority classes of the operations, in the order of execution
+     */
+    private enum OperationPriority {
+        WRITE,
+        ONE_OFF_READ,
+        REGULAR_POLL
+    }
+
+    /**
+     * Future of a queued operation
+     *
+     * Completes once the operation has been executed and its callbacks invoked, or it has been dropped from the queue.
+     * The operation can be canceled as long as it has not been taken from the queue for execution.
+     *
+     * @author openHAB Contributors - Initial contribution
+     *
+     */
+    private static class OperationFuture extends CompletableFuture<@Nullable Void> {
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        /**
+         * Mark the operation started
+         *
+         * @return false if the operation was canceled before it was started
+         */
+        public boolean start() {
+            return started.compareAndSet(false, true) || !isCancelled();
+        }
+
+        /**
+         * Cancel the operation which will not be executed, regardless of whether it was started
+         */
+        public void abort() {
+            super.cancel(false);
+        }
+
+        public void finish() {
+            complete(null);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            // The operation in progress is not interrupted since the thread executes the other operations of the
+            // endpoint as well
+            return started.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+        }
+    }
+
+    /**
+     * Operation waiting in an {@link EndpointQueue}
+     *
+     * @author openHAB Contributors - Initial contribution
+     *
+     */
+    private class QueuedOperation<R, C extends ModbusResultCallback, F extends ModbusFailureCallback<R>, T extends TaskWithEndpoint<R, C, F>> {
+        private final T task;
+        private final boolean oneOffTask;
+        private final PipelinableOperation<T> operation;
+        private final OperationPriority priority;
+        private final long deadlineMillis;
+        private final long queuedMillis = System.currentTimeMillis();
+        private final OperationFuture future = new OperationFuture();
+        private long sequenceNumber;
+        private @Nullable ModbusRequest libRequest;
+        private int tryIndex;
+
+        public QueuedOperation(T task, boolean oneOffTask, PipelinableOperation<T> operation,
+                OperationPriority priority, long deadlineMillis) {
+            this.task = task;
+            this.oneOffTask = oneOffTask;
+            this.operation = operation;
+            this.priority = priority;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        /**
+         * @return whether this is a one-off task, or a poll task which is still registered
+         */
+        public boolean isRegistered() {
+            return oneOffTask || !(task instanceof PollTask) || scheduledPollTasks.containsKey(task);
+        }
+
+        public boolean isStale(long now) {
+            return deadlineMillis != NO_DEADLINE && now > deadlineMillis;
+        }
+
+        /**
+         * Execute the operation alone, with retries
+         */
+        public void execute() {
+            try {
+                executeOperation(task, oneOffTask, operation);
+            } finally {
+                future.finish();
+            }
+        }
+
+        /**
+         * Create the request of the next try, for pipelined execution
+         *
+         * @param transactionId transaction id of the request, unique among the requests in flight
+         * @return request to send
+         */
+        public ModbusRequest nextRequest(int transactionId) {
+            tryIndex++;
+            ModbusRequest libRequest = operation.createRequest(task);
+            libRequest.setTransactionID(transactionId);
+            this.libRequest = libRequest;
+            return libRequest;
+        }
+
+        public void handleResponse(AggregateStopWatch timer, ModbusResponse response)
+                throws ModbusSlaveException, ModbusUnexpectedTransactionIdException,
+                ModbusUnexpectedResponseFunctionCodeException, ModbusUnexpectedResponseSizeException {
+            ModbusRequest libRequest = this.libRequest;
+            if (libRequest == null) {
+                throw new IllegalStateException("Response received before sending the request");
+            }
+            // ModbusTransaction.execute() converts exception responses the same way
+            if (response instanceof ExceptionResponse) {
+                throw new ModbusSlaveException(((ExceptionResponse) response).getExceptionCode());
+            }
+            operation.handleResponse(timer, task, libRequest, response);
+            future.finish();
+        }
+
+        public int getTryIndex() {
+            return tryIndex;
+        }
+
+        public int getMaxTries() {
+            return task.getMaxTries();
+        }
+
+        public R getRequest() {
+            return task.getRequest();
+        }
+
+        public boolean isSameTask(QueuedOperation<?, ?, ?, ?> other) {
+            return task.equals(other.task);
+        }
+
+        public void fail(AggregateStopWatch timer, Exception error) {
+            try {
+                timer.callback.timeRunnable(
+                        () -> invokeCallbackWithError(task.getRequest(), task.getFailureCallback(), error));
+            } finally {
+                future.finish();
+            }
+        }
+
+        /**
+         * Drop the operation without executing it, invoking the failure callback
+         */
+        public void drop(Exception error) {
+            try {
+                invokeCallbackWithError(task.getRequest(), task.getFailureCallback(), error);
+            } catch (RuntimeException e) {
+                logger.warn("Failure callback of dropped operation {} failed unexpectedly", this, e);
+            } finally {
+                future.finish();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return task.toString();
+        }
+    }
+
+    /**
+     * Queue and statistics of the operations of a single endpoint
+     *
+     * Operations are executed one after another by a single thread at a time, in the order of
+     * {@link OperationPriority}, and in the order of submission within the same priority. A write thus never waits for
+     * more than the operation in progress, no matter how many regular polls are queued.
+     *
+     * A regular poll which is submitted again while the previous one is still queued takes the place of the previous
+     * one, and regular polls waiting past their deadline are dropped with {@link ModbusRequestExpiredException}, so
+     * that a saturated bus does not accumulate a backlog of stale polls.
+     *
+     * With a TCP endpoint and {@link EndpointPoolConfiguration#getPipelineWindowSize()} larger than one, several
+     * transactions are in flight on the same connection: up to window size requests are written back-to-back, and the
+     * responses are matched to the requests by transaction id. The delay between transactions is thus respected between
+     * the windows only. Failed operations are queued again for the next window until the tries are exhausted. I/O
+     * errors and responses not matching any outstanding request reset the connection, same as with the non-pipelined
+     * execution.
+     *
+     * @author openHAB Contributors - Initial contribution
+     *
+     */
+    private class EndpointQueue {
+        private final ModbusSlaveEndpoint endpoint;
+        private final PriorityBlockingQueue<QueuedOperation<?, ?, ?, ?>> queue = new PriorityBlockingQueue<>(11,
+                Comparator.comparing((QueuedOperation<?, ?, ?, ?> operation) -> operation.priority)
+                        .thenComparingLong(operation -> operation.sequenceNumber));
+        private final AtomicLong nextSequenceNumber = new AtomicLong();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        /**
+         * Transaction id of the previous pipelined request. Accessed by the draining thread only.
+         */
+        private int lastTransactionId;
+
+        // statistics
+        private final AtomicInteger maxQueueSize = new AtomicInteger();
+        private final LongAdder replacedPolls = new LongAdder();
+        private final LongAdder expiredPolls = new LongAdder();
+        private final LongAdder[] executedByPriority = newAdders();
+        private final LongAdder[] waitMillisByPriority = newAdders();
+        private final AtomicLongArray maxWaitMillisByPriority = new AtomicLongArray(OperationPriority.values().length);
+
+        public EndpointQueue(ModbusSlaveEndpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        private LongAdder[] newAdders() {
+            LongAdder[] adders = new LongAdder[OperationPriority.values().length];
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+
+        public void submit(ScheduledExecutorService executor, QueuedOperation<?, ?, ?, ?> operation) {
+            operation.sequenceNumber = nextSequenceNumber.getAndIncrement();
+            if (operation.priority == OperationPriority.REGULAR_POLL) {
+                for (QueuedOperation<?, ?, ?, ?> queued : queue) {
+                    if (queued.isSameTask(operation) && queue.remove(queued)) {
+                        logger.debug("Poll task {} is still queued from previous execution, replacing it", operation);
+                        replacedPolls.increment();
+                        operation.sequenceNumber = queued.sequenceNumber;
+                        // the replacing operation delivers the result instead
+                        queued.future.finish();
+                    }
+                }
+            }
+            queue.add(operation);
+            maxQueueSize.accumulateAndGet(queue.size(), Math::max);
+            if (!draining.get()) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            // Loop so that operations queued just before the previous draining thread gave up are not left behind
+            while (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                try {
+                    while (!queue.isEmpty()) {
+                        executeNext();
+                    }
+                } finally {
+                    draining.set(false);
+                }
+            }
+        }
+
+        /**
+         * Remove the queued operations without executing them, canceling their futures
+         */
+        public void clear() {
+            List<QueuedOperation<?, ?, ?, ?>> aborted = new ArrayList<>();
+            queue.drainTo(aborted);
+            aborted.forEach(operation -> operation.future.abort());
+        }
+
+        /**
+         * Take the next operation to execute, dropping the canceled, stale and unregistered ones
+         */
+        private @Nullable QueuedOperation<?, ?, ?, ?> poll() {
+            while (true) {
+                QueuedOperation<?, ?, ?, ?> operation = queue.poll();
+                if (operation == null) {
+                    return null;
+                }
+                long now = System.currentTimeMillis();
+                if (!operation.future.start()) {
+                    logger.debug("Operation {} was canceled while queued, not executing it", operation);
+                } else if (!operation.isRegistered()) {
+                    logger.debug("Poll task {} was unregistered -- not executing/proceeding with the poll", operation);
+                    operation.future.finish();
+                } else if (operation.isStale(now)) {
+                    long waited = now - operation.queuedMillis;
+                    logger.debug("Poll task {} waited in queue for {} ms, past its deadline, dropping it", operation,
+                            waited);
+                    expiredPolls.increment();
+                    operation.drop(new ModbusRequestExpiredException(endpoint, waited));
+                } else {
+                    int priority = operation.priority.ordinal();
+                    // retried operations are accounted only once
+                    if (operation.getTryIndex() == 0) {
+                        long waited = now - operation.queuedMillis;
+                        executedByPriority[priority].increment();
+                        waitMillisByPriority[priority].add(waited);
+                        maxWaitMillisByPriority.accumulateAndGet(priority, waited, Math::max);
+                    }
+                    return operation;
+                }
+            }
+        }
+
+        private void executeNext() {
+            ModbusSlaveConnectionFactoryImpl connectionFactory = ModbusManagerImpl.this.connectionFactory;
+            if (connectionFactory == null || scheduledThreadPoolExecutor == null) {
+                // deactivated manager
+                logger.trace("Deactivated manager - aborting {} queued operations.", queue.size());
+                clear();
+                return;
+            }
+            @SuppressWarnings("null") // since cfg in lambda cannot be really null
+            int windowSize = Optional.ofNullable(connectionFactory.getEndpointPoolConfiguration(endpoint))
+                    .map(cfg -> cfg.getPipelineWindowSize()).orElse(1);
+            if (windowSize > 1 && endpoint instanceof ModbusTCPSlaveEndpoint) {
+                executeWindow(windowSize);
+            } else {
+                QueuedOperation<?, ?, ?, ?> operation = poll();
+                if (operation != null) {
+                    operation.execute();
+                }
+            }
+        }
+
+        private void executeWindow(int windowSize) {
+            AggregateStopWatch timer = new AggregateStopWatch();
+            timer.total.resume();
+            String operationId = timer.operationId;
+
+            logTaskQueueInfo();
+            List<QueuedOperation<?, ?, ?, ?>> window = new ArrayList<>(windowSize);
+            while (window.size() < windowSize) {
+                QueuedOperation<?, ?, ?, ?> operation = poll();
+                if (operation == null) {
+                    break;
+                }
+                window.add(operation);
+            }
+            if (window.isEmpty()) {
+                return;
+            }
+
+            Optional<ModbusSlaveConnection> connection = timer.connection
+                    .timeSupplier(() -> borrowConnection(endpoint));
+            try {
+                if (!connection.isPresent()) {
+                    logger.warn("Could not connect to endpoint {} -- aborting {} pipelined requests [operation ID {}]",
+                            endpoint, window.size(), operationId);
+                    window.forEach(operation -> operation.fail(timer, new ModbusConnectionException(endpoint)));
+                    return;
+                }
+                if (!executeTransactions(timer, window, connection.get())) {
+                    // Invalidate connection, and empty (so that new connection is acquired for the next window)
+                    timer.connection.timeConsumer(c -> invalidate(endpoint, c), connection);
+                    connection = Optional.empty();
+                }
+            } finally {
+                timer.connection.timeConsumer(c -> returnConnection(endpoint, c), connection);
+                timer.suspendAllRunning();
+                logger.debug("Pipelined Modbus operation of {} requests ended, timing info: {} [operation ID {}]",
+                        window.size(), timer, operationId);
+            }
+        }
+
+        private int nextTransactionId() {
+            // transaction id is unsigned 16 bit integer in the MBAP header
+            lastTransactionId = lastTransactionId % 0xFFFF + 1;
+            return lastTransactionId;
+        }
+
+        /**
+         * Send the requests of the window and handle the responses
+         *
+         * @return false if the connection should be reset
+         */
+        private boolean executeTransactions(AggregateStopWatch timer, List<QueuedOperation<?, ?, ?, ?>> window,
+                ModbusSlaveConnection connection) {
+            String operationId = timer.operationId;
+            ModbusTransport transport = ((TCPMasterConnection) connection).getModbusTransport();
+            // outstanding requests by transaction id, in the order they were sent
+            Map<Integer, QueuedOperation<?, ?, ?, ?>> inFlight = new LinkedHashMap<>();
+            List<QueuedOperation<?, ?, ?, ?>> unanswered = new LinkedList<>(window);
+            boolean keepConnection = true;
+            try {
+                timer.transaction.resume();
+                for (QueuedOperation<?, ?, ?, ?> operation : window) {
+                    ModbusRequest libRequest = operation.nextRequest(nextTransactionId());
+                    logger.trace("Sending pipelined request (FC={}, transaction ID={}): {} [operation ID {}]",
+                            libRequest.getFunctionCode(), libRequest.getTransactionID(), libRequest.getHexMessage(),
+                            operationId);
+                    transport.writeMessage(libRequest);
+                    inFlight.put(libRequest.getTransactionID(), operation);
+                }
+                while (!inFlight.isEmpty()) {
+                    ModbusResponse response = transport.readResponse();
+                    timer.transaction.suspend();
+                    int oldestTransactionId = inFlight.keySet().iterator().next();
+                    // headless responses carry no transaction id, the slave answers in order
+                    QueuedOperation<?, ?, ?, ?> operation = inFlight
+                            .remove(response.isHeadless() ? oldestTransactionId : response.getTransactionID());
+                    if (operation == null) {
+                        throw new ModbusUnexpectedTransactionIdException(oldestTransactionId,
+                                response.getTransactionID());
+                    }
+                    unanswered.remove(operation);
+                    try {
+                        operation.handleResponse(timer, response);
+                    } catch (ModbusSlaveException e) {
+                        // Slave returned explicit error response, no reason to re-establish new connection
+                        retryOrFail(timer, operation, new ModbusSlaveErrorResponseExceptionImpl(e));
+                    } catch (ModbusUnexpectedTransactionIdException | ModbusUnexpectedResponseFunctionCodeException
+                            | ModbusUnexpectedResponseSizeException e) {
+                        // Responses are still in sync, so the connection is reset only after the window
+                        retryOrFail(timer, operation, e);
+                        keepConnection = false;
+                    }
+                    timer.transaction.resume();
+                }
+            } catch (ModbusIOException e) {
+                logger.warn(
+                        "Pipelined transaction failed with I/O error, so reseting the connection. Error details: {} {} [operation ID {}]",
+                        e.getClass().getName(), e.getMessage(), operationId);
+                unanswered.forEach(operation -> retryOrFail(timer, operation, new ModbusSlaveIOExceptionImpl(e)));
+                keepConnection = false;
+            } catch (ModbusUnexpectedTransactionIdException e) {
+                logger.warn(
+                        "Pipelined response did not match any request in flight, so reseting the connection. Error details: {} {} [operation ID {}]",
+                        e.getClass().getName(), e.getMessage(), operationId);
+                unanswered.forEach(operation -> retryOrFail(timer, operation, e));
+                keepConnection = false;
+            } finally {
+                timer.transaction.suspend();
+            }
+            return keepConnection;
+        }
+
+        private void retryOrFail(AggregateStopWatch timer, QueuedOperation<?, ?, ?, ?> operation, Exception error) {
+            if (operation.getTryIndex() < operation.getMaxTries()) {
+                logger.warn(
+                        "Try {} out of {} failed when executing request ({}). Will try again soon. Error details: {} {} [operation ID {}]",
+                        operation.getTryIndex(), operation.getMaxTries(), operation.getRequest(),
+                        error.getClass().getName(), error.getMessage(), timer.operationId);
+                // retains the sequence number, and thus the place at the head of the queue
+                queue.add(operation);
+            } else {
+                logger.error(
+                        "Last try {} failed when executing request ({}). Aborting. Error details: {} {} [operation ID {}]",
+                        operation.getTryIndex(), operation.getRequest(), error.getClass().getName(),
+                        error.getMessage(), timer.operationId);
+                operation.fail(timer, error);
+            }
+        }
+
+        public void logStatistics() {
+            StringBuilder latencies = new StringBuilder();
+            for (OperationPriority priority : OperationPriority.values()) {
+                int index = priority.ordinal();
+                long executed = executedByPriority[index].sum();
+                latencies.append(String.format(" %s: %d executed, avg wait %d ms, max wait %d ms;", priority, executed,
+                        executed == 0 ? 0 : waitMillisByPriority[index].sum() / executed,
+                        maxWaitMillisByPriority.get(index)));
+            }
+            pollMonitorLogger.trace(
+                    "POLL MONITOR: endpoint {} queue size: {} (max {}), replaced polls: {}, expired polls: {}.{}",
+                    endpoint, queue.size(), maxQueueSize.get(), replacedPolls.sum(), expiredPolls.sum(), latencies);
+            if (queue.size() >= WARN_QUEUE_SIZE) {
+                pollMonitorLogger.warn(
+                        "Many ({}) operations queued for endpoint {}! The endpoint cannot keep up with the requests.",
+                        queue.size(), endpoint);
+            }
+        }
+
+        public EndpointQueueStatistics getStatistics() {
+            return new EndpointQueueStatistics(queue.size(), maxQueueSize.get(), replacedPolls.sum(),
+                    expiredPolls.sum(), executedByPriority[OperationPriority.WRITE.ordinal()].sum(),
+                    executedByPriority[OperationPriority.ONE_OFF_READ.ordinal()].sum(),
+                    executedByPriority[OperationPriority.REGULAR_POLL.ordinal()].sum());
+        }
+    }
+
+    /**
+     * Snapshot of the queue statistics of an endpoint
+     *
+     * @author openHAB Contributors - Initial contribution
+     *
+     */
+    public static class EndpointQueueStatistics {
+        private final int queueSize;
+        private final int maxQueueSize;
+        private final long replacedPolls;
+        private final long expiredPolls;
+        private final long executedWrites;
+        private final long executedOneOffReads;
+        private final long executedRegularPolls;
+
+        public EndpointQueueStatistics(int queueSize, int maxQueueSize, long replacedPolls, long expiredPolls,
+                long executedWrites, long executedOneOffReads, long executedRegularPolls) {
+            this.queueSize = queueSize;
+            this.maxQueueSize = maxQueueSize;
+            this.replacedPolls = replacedPolls;
+            this.expiredPolls = expiredPolls;
+            this.executedWrites = executedWrites;
+            this.executedOneOffReads = executedOneOffReads;
+            this.executedRegularPolls = executedRegularPolls;
+        }
+
+        /**
+         * @return number of operations waiting in the queue
+         */
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public int getMaxQueueSize() {
+            return maxQueueSize;
+        }
+
+        /**
+         * @return number of regular polls which were replaced by their next execution while still queued
+         */
+        public long getReplacedPolls() {
+            return replacedPolls;
+        }
+
+        /**
+         * @return number of regular polls which were dropped since they waited past their deadline
+         */
+        public long getExpiredPolls() {
+            return expiredPolls;
+        }
+
+        /**
+         * @return number of writes taken from the queue for execution, retries not included
+         */
+        public long getExecutedWrites() {
+            return executedWrites;
+        }
+
+        /**
+         * @return number of one-off reads taken from the queue for execution, retries not included
+         */
+        public long getExecutedOneOffReads() {
+            return executedOneOffReads;
+        }
+
+        /**
+         * @return number of regular polls taken from the queue for execution, retries not included
+         */
+        public long getExecutedRegularPolls() {
+            return executedRegularPolls;
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this).append("queueSize", queueSize).append("maxQueueSize", maxQueueSize)
+                    .append("replacedPolls", replacedPolls).append("expiredPolls", expiredPolls)
+                    .append("executedWrites", executedWrites).append("executedOneOffReads", executedOneOffReads)
+                    .append("executedRegularPolls", executedRegularPolls).toString();
+        }
+    }
+
+    /**
+     * Get the queue statistics of the endpoint
+     *
+     * @param endpoint endpoint to query
+     * @return statistics of the endpoint, or empty if no operations have been queued for the endpoint since its
+     *         communication interfaces were last closed
+     */
+    public Optional<EndpointQueueStatistics> getEndpointQueueStatistics(ModbusSlaveEndpoint endpoint) {
+        return Optional.ofNullable(endpointQueues.get(endpoint)).map(EndpointQueue::getStatistics);
+    }
+
+    /**
+     * Regular polls which are executed together, merging the adjacent reads with {@link ModbusPollPlanner}
+     *
+     * Polls are grouped by endpoint, unit id, function code and poll period. The group is scheduled with the initial
+     * delay of the poll registered first.
+     *
+     * If the slave rejects a merged read with an error response, e.g. because it spans addresses the slave doesn't
+     * have, the polls of the read are executed individually and the group stops merging its reads.
+     *
+     * @author openHAB Contributors - Initial contribution
+     *
+     */
+    private class PollGroup {
+        private final ModbusSlaveEndpoint endpoint;
+        private final int unitId;
+        private final ModbusReadFunctionCode functionCode;
+        private final long pollPeriodMillis;
+        private final Set<PollTask> tasks = new ConcurrentHashSet<>();
+        private volatile @Nullable ScheduledFuture<?> future;
+        private volatile boolean coalescingFailed;
+
+        public PollGroup(PollTask task, long pollPeriodMillis) {
+            this.endpoint = task.getEndpoint();
+            this.unitId = task.getRequest().getUnitID();
+            this.functionCode = task.getRequest().getFunctionCode();
+            this.pollPeriodMillis = pollPeriodMillis;
+        }
+
+        public boolean accepts(PollTask task, long pollPeriodMillis) {
+            return endpoint.equals(task.getEndpoint()) && unitId == task.getRequest().getUnitID()
+                    && functionCode == task.getRequest().getFunctionCode()
+                    && this.pollPeriodMillis == pollPeriodMillis;
+        }
+
+        public void execute() {
+            ModbusSlaveConnectionFactoryImpl connectionFactory = ModbusManagerImpl.this.connectionFactory;
+            if (connectionFactory == null) {
+                // deactivated manager
+                return;
+            }
+            @SuppressWarnings("null") // since cfg in lambda cannot be really null
+            int maxGap = Optional.ofNullable(connectionFactory.getEndpointPoolConfiguration(endpoint))
+                    .map(cfg -> cfg.getPollCoalescingMaxGap()).orElse(0);
+            long deadlineMillis = System.currentTimeMillis() + REGULAR_POLL_DEADLINE_PERIODS * pollPeriodMillis;
+            if (coalescingFailed) {
+                executeIndividually(tasks, deadlineMillis);
+                return;
+            }
+            for (CoalescedPoll poll : ModbusPollPlanner.plan(tasks, Math.max(0, maxGap))) {
+                if (poll.getTasks().size() == 1) {
+                    ModbusManagerImpl.this.execute(poll.getTasks().get(0), false, pollOperation,
+                            OperationPriority.REGULAR_POLL, deadlineMillis);
+                } else {
+                    logger.debug("Executing {} poll tasks with single read {}", poll.getTasks().size(),
+                            poll.getRequest());
+                    ModbusManagerImpl.this.execute(new CoalescedPollTask(this, poll), true, pollOperation,
+                            OperationPriority.REGULAR_POLL, deadlineMillis);
+                }
+            }
+        }
+
+        private void invokeCoalescedCallbacks(CoalescedPoll poll, AsyncModbusReadResult result) {
+            for (PollTask task : poll.getTasks()) {
+                // poll might have been unregistered during the read
+                if (scheduledPollTasks.containsKey(task)) {
+                    try {
+                        task.getResultCallback().handle(ModbusPollPlanner.slice(result, task.getRequest()));
+                    } catch (RuntimeException e) {
+                        logger.warn("Result callback of poll task {} failed unexpectedly", task, e);
+                    }
+                }
+            }
+        }
+
+        private void executeIndividually(Collection<PollTask> pollTasks, long deadlineMillis) {
+            for (PollTask task : pollTasks) {
+                ModbusManagerImpl.this.execute(task, false, pollOperation, OperationPriority.REGULAR_POLL,
+                        deadlineMillis);
+            }
+        }
+
+        private void invokeCoalescedFailureCallbacks(CoalescedPoll poll,
+                AsyncModbusFailure<ModbusReadRequestBlueprint> failure) {
+            if (failure.getCause() instanceof ModbusSlaveErrorResponseException) {
+                // the slave might reject the merged read only because of the unused addresses between the polls
+                if (!coalescingFailed) {
+                    coalescingFailed = true;
+                    logger.warn(
+                            "Slave {} rejected the merged read {} with {}. Executing the polls of the read individually from now on",
+                            endpoint, poll.getRequest(), failure.getCause().getMessage());
+                }
+                executeIndividually(poll.getTasks().stream().filter(scheduledPollTasks::containsKey)
+                        .collect(Collectors.toList()),
+                        System.currentTimeMillis() + REGULAR_POLL_DEADLINE_PERIODS * pollPeriodMillis);
+                return;
+            }
+            for (PollTask task : poll.getTasks()) {
+                if (scheduledPollTasks.containsKey(task)) {
+                    try {
+                        task.getFailureCallback()
+                                .handle(new AsyncModbusFailure<>(task.getRequest(), failure.getCause()));
+                    } catch (RuntimeException e) {
+                        logger.warn("Failure callback of poll task {} failed unexpectedly", task, e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Merged read of a poll group, invoking the callbacks of the polls it serves
+     *
+     * Equal to the merged read of the same group with the same request, so that the read replaces its previous
+     * execution if that is still queued.
+     *
+     * @author openHAB Contributors - Initial contribution
+     *
+     */
+    private static class CoalescedPollTask implements PollTask {
+        private final PollGroup group;
+        private final CoalescedPoll poll;
+
+        public CoalescedPollTask(PollGroup group, CoalescedPoll poll) {
+            this.group = group;
+            this.poll = poll;
+        }
+
+        @Override
+        public ModbusSlaveEndpoint getEndpoint() {
+            return group.endpoint;
+        }
+
+        @Override
+        public ModbusReadRequestBlueprint getRequest() {
+            return poll.getRequest();
+        }
+
+        @Override
+        public ModbusReadCallback getResultCallback() {
+            return result -> group.invokeCoalescedCallbacks(poll, result);
+        }
+
+        @Override
+        public ModbusFailureCallback<ModbusReadRequestBlueprint> getFailureCallback() {
+            return failure -> group.invokeCoalescedFailureCallbacks(poll, failure);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(group), poll.getRequest());
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            CoalescedPollTask other = (CoalescedPollTask) obj;
+            return group == other.group && poll.getRequest().equals(other.poll.getRequest());
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this).append("request", poll.getRequest())
+                    .append("tasks", poll.getTasks().size()).toString();
+        }
+    }
+
+    /**
+     * Add the task to the matching poll group, scheduling the group if it is new
+     *
+     * @return future of the poll group
+     */
+    private ScheduledFuture<?> registerCoalescedPoll(ScheduledExecutorService executor, PollTask task,
+            long pollPeriodMillis, long initialDelayMillis) {
+        @Nullable
+        PollGroup group = null;
+        for (PollGroup candidate : pollGroups) {
+            if (candidate.accepts(task, pollPeriodMillis)) {
+                group = candidate;
+                break;
+            }
+        }
+        if (group == null) {
+            PollGroup newGroup = new PollGroup(task, pollPeriodMillis);
+            newGroup.future = executor.scheduleWithFixedDelay(() -> {
+                long started = System.currentTimeMillis();
+                logger.debug("Executing scheduled ({}ms) group of {} poll tasks. Current millis: {}", pollPeriodMillis,
+                        newGroup.tasks.size(), started);
+                try {
+                    newGroup.execute();
+                } catch (RuntimeException e) {
+                    // Same as with single poll tasks, unhandled exceptions would halt the polling
+                    logger.warn(
+                            "Execution of scheduled ({}ms) group of poll tasks failed unexpectedly. Ignoring exception, polling again according to poll interval.",
+                            pollPeriodMillis, e);
+                }
+                logger.debug("Execution of scheduled ({}ms) group of poll tasks finished (=duration of {} millis)",
+                        pollPeriodMillis, System.currentTimeMillis() - started);
+            }, initialDelayMillis, pollPeriodMillis, TimeUnit.MILLISECONDS);
+            pollGroups.add(newGroup);
+            group = newGroup;
+        }
+        group.tasks.add(task);
+        return Objects.requireNonNull(group.future);
+    }
+
+    /**
+     * Remove the task from its poll group, canceling the group if it has no tasks left
+     *
+     * @return whether the task was part of a poll group
+     */
+    private boolean unregisterCoalescedPoll(PollTask task) {
+        for (PollGroup group : pollGroups) {
+            if (group.tasks.remove(task)) {
+                if (group.tasks.isEmpty()) {
+                    pollGroups.remove(group);
+                    ScheduledFuture<?> future = group.future;
+                    if (future != null) {
+                        future.cancel(true);
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isPollCoalescingEnabled(ModbusSlaveEndpoint endpoint) {
+        ModbusSlaveConnectionFactoryImpl connectionFactory = this.connectionFactory;
+        EndpointPoolConfiguration configuration = connectionFactory == null ? null
+                : connectionFactory.getEndpointPoolConfiguration(endpoint);
+        return configuration != null && configuration.getPollCoalescingMaxGap() >= 0;
+    }
+
     private class ModbusCommunicationInterfaceImpl implements ModbusCommunicationInterface {
 
         private volatile ModbusSlaveEndpoint endpoint;
@@ -745,16 +1675,9 @@ public class ModbusManagerImpl implements ModbusManager {
             }
             ScheduledExecutorService executor = scheduledThreadPoolExecutor;
             Objects.requireNonNull(executor, "Not activated!");
-            long scheduleTime = System.currentTimeMillis();
             BasicPollTask task = new BasicPollTask(endpoint, request, resultCallback, failureCallback);
             logger.debug("Scheduling one-off poll task {}", task);
-            Future<?> future = executor.submit(() -> {
-                long millisInThreadPoolWaiting = System.currentTimeMillis() - scheduleTime;
-                logger.debug("Will now execute one-off poll task {}, waited in thread pool for {}", task,
-                        millisInThreadPoolWaiting);
-                executeOperation(task, true, pollOperation);
-            });
-            return future;
+            return execute(task, true, pollOperation, OperationPriority.ONE_OFF_READ, NO_DEADLINE);
         }
 
         @Override
@@ -774,12 +1697,22 @@ public class ModbusManagerImpl implements ModbusManager {
                     logger.trace("Unregistering previous poll task (possibly with different period)");
                     unregisterRegularPoll(task);
                 }
+                if (isPollCoalescingEnabled(endpoint)) {
+                    ScheduledFuture<?> future = registerCoalescedPoll(executor, task, pollPeriodMillis,
+                            initialDelayMillis);
+                    scheduledPollTasks.put(task, future);
+                    pollTasksRegisteredByThisCommInterface.add(task);
+                    logger.trace("Registered poll task {} with period {} to be polled together with similar polls",
+                            task, pollPeriodMillis);
+                    return task;
+                }
                 ScheduledFuture<?> future = executor.scheduleWithFixedDelay(() -> {
                     long started = System.currentTimeMillis();
                     logger.debug("Executing scheduled ({}ms) poll task {}. Current millis: {}", pollPeriodMillis, task,
                             started);
                     try {
-                        executeOperation(task, false, pollOperation);
+                        execute(task, false, pollOperation, OperationPriority.REGULAR_POLL,
+                                started + REGULAR_POLL_DEADLINE_PERIODS * pollPeriodMillis);
                     } catch (RuntimeException e) {
                         // We want to catch all unexpected exceptions since all unhandled exceptions make
                         // ScheduledExecutorService halt the polling. It is better to print out the exception, and try
@@ -823,6 +1756,10 @@ public class ModbusManagerImpl implements ModbusManager {
                     logger.warn("Caller tried to unregister nonexisting poll task {}", task);
                     return false;
                 }
+                if (unregisterCoalescedPoll(task)) {
+                    logger.debug("Poll task {} removed from its group", task);
+                    return true;
+                }
                 logger.debug("Unregistering regular poll task {} (interrupting if necessary)", task);
                 future.cancel(true);
                 logger.debug("Poll task {} canceled", task);
@@ -839,15 +1776,8 @@ public class ModbusManagerImpl implements ModbusManager {
             ScheduledExecutorService localScheduledThreadPoolExecutor = scheduledThreadPoolExecutor;
             Objects.requireNonNull(localScheduledThreadPoolExecutor, "Not activated!");
             WriteTask task = new BasicWriteTask(endpoint, request, resultCallback, failureCallback);
-            long scheduleTime = System.currentTimeMillis();
             logger.debug("Scheduling one-off write task {}", task);
-            Future<?> future = localScheduledThreadPoolExecutor.submit(() -> {
-                long millisInThreadPoolWaiting = System.currentTimeMillis() - scheduleTime;
-                logger.debug("Will now execute one-off write task {}, waited in thread pool for {}", task,
-                        millisInThreadPoolWaiting);
-                executeOperation(task, true, writeOperation);
-            });
-            return future;
+            return execute(task, true, writeOperation, OperationPriority.WRITE, NO_DEADLINE);
         }
 
         @Override
@@ -911,6 +1841,10 @@ public class ModbusManagerImpl implements ModbusManager {
 
             // Make sure connections to this endpoint are closed when they are returned to pool (which
             // is usually pretty soon as transactions should be relatively short-lived)
+            EndpointQueue queue = endpointQueues.remove(endpoint);
+            if (queue != null) {
+                queue.clear();
+            }
             ModbusSlaveConnectionFactoryImpl localConnectionFactory = connectionFactory;
             if (localConnectionFactory != null) {
                 localConnectionFactory.disconnectOnReturn(endpoint, System.currentTimeMillis());
@@ -964,6 +1898,9 @@ public class ModbusManagerImpl implements ModbusManager {
                 connectionPool.close();
                 this.connectionPool = connectionPool = null;
             }
+            endpointQueues.values().forEach(EndpointQueue::clear);
+            endpointQueues.clear();
+            pollGroups.clear();
 
             if (monitorFuture != null) {
                 monitorFuture.cancel(true);
@@ -1008,6 +1945,8 @@ public class ModbusManagerImpl implements ModbusManager {
                 }
             }
 
+            endpointQueues.values().forEach(EndpointQueue::logStatistics);
+
             pollMonitorLogger.trace("</POLL MONITOR>");
         }
     }
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.io.transport.modbus.AsyncModbusReadResult;
+import org.openhab.io.transport.modbus.BitArray;
+import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.io.transport.modbus.PollTask;
+
+/**
+ * Plans the wire reads of regular polls executed together
+ *
+ * Polls reading the same unit with the same function code are merged into a single read when they overlap, are
+ * adjacent, or have at most the given number of unused registers (or coils/discrete inputs) between them. The merged
+ * read is limited to the maximum the protocol allows in a single request. The results of the merged read are sliced
+ * back to the polls with {@link #slice(AsyncModbusReadResult, ModbusReadRequestBlueprint)}.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusPollPlanner {
+
+    /**
+     * Maximum number of registers in a single read request (function codes 3 and 4)
+     */
+    public static final int MAX_REGISTERS_PER_READ = 125;
+
+    /**
+     * Maximum number of coils or discrete inputs in a single read request (function codes 1 and 2)
+     */
+    public static final int MAX_BITS_PER_READ = 2000;
+
+    private static final Comparator<PollTask> READ_ORDER = Comparator
+            .comparingInt((PollTask task) -> task.getRequest().getUnitID())
+            .thenComparing(task -> task.getRequest().getFunctionCode())
+            .thenComparingInt(task -> task.getRequest().getReference())
+            .thenComparingInt(task -> task.getRequest().getDataLength());
+
+    /**
+     * Read to execute, and the poll tasks it serves
+     */
+    public static class CoalescedPoll {
+        private final ModbusReadRequestBlueprint request;
+        private final List<PollTask> tasks;
+
+        public CoalescedPoll(ModbusReadRequestBlueprint request, List<PollTask> tasks) {
+            this.request = request;
+            this.tasks = Collections.unmodifiableList(tasks);
+        }
+
+        /**
+         * @return request to send, the request of the task itself if there is only one task
+         */
+        public ModbusReadRequestBlueprint getRequest() {
+            return request;
+        }
+
+        public List<PollTask> getTasks() {
+            return tasks;
+        }
+    }
+
+    /**
+     * Merge the reads of the tasks
+     *
+     * @param tasks tasks to execute
+     * @param maxGap maximum number of registers (or bits) between two reads which are still merged. Zero merges only
+     *            overlapping and adjacent reads
+     * @return reads to execute, ordered by unit id, function code and start address
+     */
+    public static List<CoalescedPoll> plan(Collection<PollTask> tasks, int maxGap) {
+        List<PollTask> sorted = new ArrayList<>(tasks);
+        sorted.sort(READ_ORDER);
+
+        List<CoalescedPoll> plan = new ArrayList<>();
+        List<PollTask> current = new ArrayList<>();
+        int start = 0;
+        int end = 0;
+        int maxTries = 0;
+        for (PollTask task : sorted) {
+            ModbusReadRequestBlueprint request = task.getRequest();
+            int taskEnd = request.getReference() + request.getDataLength();
+            if (!current.isEmpty()) {
+                ModbusReadRequestBlueprint first = current.get(0).getRequest();
+                int mergedEnd = Math.max(end, taskEnd);
+                if (first.getUnitID() == request.getUnitID() && first.getFunctionCode() == request.getFunctionCode()
+                        && request.getReference() - end <= maxGap
+                        && mergedEnd - start <= getMaxDataLength(request.getFunctionCode())) {
+                    current.add(task);
+                    end = mergedEnd;
+                    maxTries = Math.max(maxTries, request.getMaxTries());
+                    continue;
+                }
+                plan.add(toCoalescedPoll(current, start, end, maxTries));
+                current = new ArrayList<>();
+            }
+            current.add(task);
+            start = request.getReference();
+            end = taskEnd;
+            maxTries = request.getMaxTries();
+        }
+        if (!current.isEmpty()) {
+            plan.add(toCoalescedPoll(current, start, end, maxTries));
+        }
+        return plan;
+    }
+
+    /**
+     * Extract the data of a single request from the result of a merged read
+     *
+     * @param result result of the merged read
+     * @param request request contained by the merged read
+     * @return result as if the request had been executed alone
+     */
+    public static AsyncModbusReadResult slice(AsyncModbusReadResult result, ModbusReadRequestBlueprint request) {
+        int offset = request.getReference() - result.getRequest().getReference();
+        Optional<ModbusRegisterArray> registers = result.getRegisters();
+        if (registers.isPresent()) {
+            return new AsyncModbusReadResult(request, registers.get().subArray(offset, request.getDataLength()));
+        }
+        BitArray bits = result.getBits()
+                .orElseThrow(() -> new IllegalArgumentException("Result has neither registers nor bits"));
+        BitArray slice = new BitArray(request.getDataLength());
+        for (int i = 0; i < slice.size(); i++) {
+            slice.setBit(i, bits.getBit(offset + i));
+        }
+        return new AsyncModbusReadResult(request, slice);
+    }
+
+    private static int getMaxDataLength(ModbusReadFunctionCode functionCode) {
+        switch (functionCode) {
+            case READ_COILS:
+            case READ_INPUT_DISCRETES:
+                return MAX_BITS_PER_READ;
+            default:
+                return MAX_REGISTERS_PER_READ;
+        }
+    }
+
+    private static CoalescedPoll toCoalescedPoll(List<PollTask> tasks, int start, int end, int maxTries) {
+        ModbusReadRequestBlueprint first = tasks.get(0).getRequest();
+        if (tasks.size() == 1) {
+            return new CoalescedPoll(first, tasks);
+        }
+        return new CoalescedPoll(new ModbusReadRequestBlueprint(first.getUnitID(), first.getFunctionCode(), start,
+                end - start, maxTries), tasks);
+    }
+}
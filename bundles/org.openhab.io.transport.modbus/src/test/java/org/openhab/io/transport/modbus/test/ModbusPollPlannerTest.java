@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openhab.io.transport.modbus.AsyncModbusReadResult;
+import org.openhab.io.transport.modbus.BitArray;
+import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.io.transport.modbus.PollTask;
+import org.openhab.io.transport.modbus.endpoint.ModbusTCPSlaveEndpoint;
+import org.openhab.io.transport.modbus.internal.BasicPollTask;
+import org.openhab.io.transport.modbus.internal.ModbusPollPlanner;
+import org.openhab.io.transport.modbus.internal.ModbusPollPlanner.CoalescedPoll;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+public class ModbusPollPlannerTest {
+
+    private static PollTask task(int unitId, ModbusReadFunctionCode functionCode, int start, int length) {
+        return new BasicPollTask(new ModbusTCPSlaveEndpoint("localhost", 502),
+                new ModbusReadRequestBlueprint(unitId, functionCode, start, length, 3), result -> {
+                }, failure -> {
+                });
+    }
+
+    @Test
+    public void testAdjacentAndOverlappingReadsAreMerged() {
+        PollTask first = task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 10, 5);
+        PollTask second = task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 15, 5);
+        PollTask third = task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 12, 2);
+
+        List<CoalescedPoll> plan = ModbusPollPlanner.plan(Arrays.asList(second, third, first), 0);
+
+        assertThat(plan.size(), is(equalTo(1)));
+        assertThat(plan.get(0).getRequest(), is(equalTo(
+                new ModbusReadRequestBlueprint(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 10, 10, 3))));
+        assertThat(plan.get(0).getTasks(), is(equalTo(Arrays.asList(first, third, second))));
+    }
+
+    @Test
+    public void testGapTolerance() {
+        PollTask first = task(1, ModbusReadFunctionCode.READ_INPUT_REGISTERS, 0, 2);
+        PollTask second = task(1, ModbusReadFunctionCode.READ_INPUT_REGISTERS, 5, 2);
+
+        assertThat(ModbusPollPlanner.plan(Arrays.asList(first, second), 2).size(), is(equalTo(2)));
+
+        List<CoalescedPoll> plan = ModbusPollPlanner.plan(Arrays.asList(first, second), 3);
+        assertThat(plan.size(), is(equalTo(1)));
+        assertThat(plan.get(0).getRequest().getReference(), is(equalTo(0)));
+        assertThat(plan.get(0).getRequest().getDataLength(), is(equalTo(7)));
+    }
+
+    @Test
+    public void testSingleReadIsNotChanged() {
+        PollTask task = task(1, ModbusReadFunctionCode.READ_COILS, 3, 4);
+
+        List<CoalescedPoll> plan = ModbusPollPlanner.plan(Arrays.asList(task), 10);
+
+        assertThat(plan.size(), is(equalTo(1)));
+        assertThat(plan.get(0).getRequest(), is(sameInstance(task.getRequest())));
+    }
+
+    @Test
+    public void testDifferentUnitsAndFunctionCodesAreNotMerged() {
+        List<CoalescedPoll> plan = ModbusPollPlanner.plan(
+                Arrays.asList(task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 2),
+                        task(2, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 2, 2),
+                        task(1, ModbusReadFunctionCode.READ_INPUT_REGISTERS, 2, 2)),
+                10);
+
+        assertThat(plan.size(), is(equalTo(3)));
+    }
+
+    @Test
+    public void testProtocolLimits() {
+        List<CoalescedPoll> registers = ModbusPollPlanner.plan(
+                Arrays.asList(task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 100),
+                        task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 100, 25),
+                        task(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 125, 1)),
+                0);
+        assertThat(registers.size(), is(equalTo(2)));
+        assertThat(registers.get(0).getRequest().getDataLength(), is(equalTo(125)));
+
+        List<CoalescedPoll> coils = ModbusPollPlanner.plan(
+                Arrays.asList(task(1, ModbusReadFunctionCode.READ_COILS, 0, 1000),
+                        task(1, ModbusReadFunctionCode.READ_COILS, 1000, 1000)),
+                0);
+        assertThat(coils.size(), is(equalTo(1)));
+        assertThat(coils.get(0).getRequest().getDataLength(), is(equalTo(2000)));
+    }
+
+    @Test
+    public void testSliceRegisters() {
+        ModbusReadRequestBlueprint merged = new ModbusReadRequestBlueprint(1,
+                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 10, 5, 1);
+        ModbusReadRequestBlueprint request = new ModbusReadRequestBlueprint(1,
+                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 12, 2, 1);
+
+        AsyncModbusReadResult slice = ModbusPollPlanner
+                .slice(new AsyncModbusReadResult(merged, new ModbusRegisterArray(0, 1, 2, 3, 4)), request);
+
+        assertThat(slice.getRequest(), is(sameInstance(request)));
+        ModbusRegisterArray registers = slice.getRegisters().get();
+        assertThat(registers.size(), is(equalTo(2)));
+        assertThat(registers.getRegister(0).getValue(), is(equalTo(2)));
+        assertThat(registers.getRegister(1).getValue(), is(equalTo(3)));
+    }
+
+    @Test
+    public void testSliceBits() {
+        ModbusReadRequestBlueprint merged = new ModbusReadRequestBlueprint(1, ModbusReadFunctionCode.READ_COILS, 0, 4,
+                1);
+        ModbusReadRequestBlueprint request = new ModbusReadRequestBlueprint(1, ModbusReadFunctionCode.READ_COILS, 1,
+                3, 1);
+
+        AsyncModbusReadResult slice = ModbusPollPlanner
+                .slice(new AsyncModbusReadResult(merged, new BitArray(false, true, false, true)), request);
+
+        assertThat(slice.getBits().get(), is(equalTo(new BitArray(true, false, true))));
+    }
+}
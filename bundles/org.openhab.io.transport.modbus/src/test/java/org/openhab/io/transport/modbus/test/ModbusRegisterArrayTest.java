@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.io.transport.modbus.ModbusBitUtilities;
+import org.openhab.io.transport.modbus.ModbusConstants.ValueType;
+import org.openhab.io.transport.modbus.ModbusRegister;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+public class ModbusRegisterArrayTest {
+
+    @Test
+    public void testPrimitiveGetters() {
+        ModbusRegisterArray registers = new ModbusRegisterArray(0xFFFE, 0x1234, 0x0000, 0x0001);
+
+        assertThat(registers.size(), is(equalTo(4)));
+        assertThat(registers.getUnsignedShort(0), is(equalTo(0xFFFE)));
+        assertThat(registers.getShort(0), is(equalTo((short) -2)));
+        assertThat(registers.getByte(2), is(equalTo((byte) 0x12)));
+        assertThat(registers.getByte(3), is(equalTo((byte) 0x34)));
+        assertThat(registers.getInt(0), is(equalTo(0xFFFE1234)));
+        assertThat(registers.getLong(0), is(equalTo(0xFFFE123400000001L)));
+        assertThat(registers.getRegister(1).getValue(), is(equalTo(0x1234)));
+    }
+
+    @Test
+    public void testConstructors() {
+        ModbusRegisterArray fromBytes = new ModbusRegisterArray(new byte[] { 0x12, 0x34, (byte) 0xAB, (byte) 0xCD });
+        ModbusRegisterArray fromRegisters = new ModbusRegisterArray(
+                new ModbusRegister[] { new ModbusRegister(0x1234), new ModbusRegister((byte) 0xAB, (byte) 0xCD) });
+
+        assertThat(fromBytes.toHexString(), is(equalTo("12 34 ab cd")));
+        assertThat(fromRegisters.toHexString(), is(equalTo("12 34 ab cd")));
+        assertThrows(IllegalArgumentException.class, () -> new ModbusRegisterArray(new byte[] { 1, 2, 3 }));
+    }
+
+    @Test
+    public void testSubArray() {
+        ModbusRegisterArray registers = new ModbusRegisterArray(1, 2, 3, 4, 5);
+
+        ModbusRegisterArray view = registers.subArray(1, 3);
+
+        assertThat(view.size(), is(equalTo(3)));
+        assertThat(view.getUnsignedShort(0), is(equalTo(2)));
+        assertThat(view.getUnsignedShort(2), is(equalTo(4)));
+        assertThat(view.toHexString(), is(equalTo("00 02 00 03 00 04")));
+        assertThat(view.subArray(1, 1).getUnsignedShort(0), is(equalTo(3)));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.getUnsignedShort(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.getInt(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> registers.subArray(3, 3));
+    }
+
+    /**
+     * Primitive decoding gives the same values as the decoding to states, for all the value types
+     */
+    @ParameterizedTest
+    @MethodSource("org.openhab.io.transport.modbus.test.BitUtilitiesExtractStateFromRegistersTest#data")
+    public void testPrimitiveExtractionMatchesState(Object expectedResult, ValueType type,
+            ModbusRegisterArray registers, int index) {
+        if (!(expectedResult instanceof DecimalType)) {
+            // errors and NaN are covered by the state extraction tests
+            return;
+        }
+        BigDecimal expected = ((DecimalType) expectedResult).toBigDecimal();
+        switch (type) {
+            case FLOAT32:
+            case FLOAT32_SWAP: {
+                float value = ModbusBitUtilities.extractFloatFromRegisters(registers, index, type);
+                assertThat(new DecimalType(value).toBigDecimal().compareTo(expected), is(equalTo(0)));
+                break;
+            }
+            case UINT64:
+            case UINT64_SWAP: {
+                long value = ModbusBitUtilities.extractLongFromRegisters(registers, index, type);
+                assertThat(new BigDecimal(Long.toUnsignedString(value)).compareTo(expected), is(equalTo(0)));
+                break;
+            }
+            default: {
+                long value = ModbusBitUtilities.extractLongFromRegisters(registers, index, type);
+                assertThat(BigDecimal.valueOf(value).compareTo(expected), is(equalTo(0)));
+            }
+        }
+    }
+}
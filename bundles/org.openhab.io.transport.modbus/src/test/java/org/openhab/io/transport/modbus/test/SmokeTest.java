@@ -14,6 +14,7 @@ package org.openhab.io.transport.modbus.test;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assumptions.*;
 
@@ -25,12 +26,16 @@ import java.net.Socket;
 import java.net.SocketImpl;
 import java.net.SocketImplFactory;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -40,6 +45,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openhab.io.transport.modbus.BitArray;
 import org.openhab.io.transport.modbus.ModbusCommunicationInterface;
+import org.openhab.io.transport.modbus.ModbusFailureCallback;
+import org.openhab.io.transport.modbus.ModbusReadCallback;
 import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
 import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
 import org.openhab.io.transport.modbus.ModbusRegisterArray;
@@ -50,15 +57,22 @@ import org.openhab.io.transport.modbus.endpoint.EndpointPoolConfiguration;
 import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
 import org.openhab.io.transport.modbus.endpoint.ModbusTCPSlaveEndpoint;
 import org.openhab.io.transport.modbus.exception.ModbusConnectionException;
+import org.openhab.io.transport.modbus.exception.ModbusRequestExpiredException;
 import org.openhab.io.transport.modbus.exception.ModbusSlaveErrorResponseException;
 import org.openhab.io.transport.modbus.exception.ModbusSlaveIOException;
+import org.openhab.io.transport.modbus.internal.ModbusManagerImpl.EndpointQueueStatistics;
 import org.slf4j.LoggerFactory;
 
+import net.wimpi.modbus.ModbusCoupler;
 import net.wimpi.modbus.msg.ModbusRequest;
+import net.wimpi.modbus.msg.ReadMultipleRegistersRequest;
 import net.wimpi.modbus.msg.WriteCoilRequest;
 import net.wimpi.modbus.msg.WriteMultipleCoilsRequest;
+import net.wimpi.modbus.procimg.IllegalAddressException;
+import net.wimpi.modbus.procimg.Register;
 import net.wimpi.modbus.procimg.SimpleDigitalIn;
 import net.wimpi.modbus.procimg.SimpleDigitalOut;
+import net.wimpi.modbus.procimg.SimpleProcessImage;
 import net.wimpi.modbus.procimg.SimpleRegister;
 import net.wimpi.modbus.util.BitVector;
 
@@ -408,6 +422,51 @@ public class SmokeTest extends IntegrationTestSupport {
         }
     }
 
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testOneOffReadsPipelined() throws Exception {
+        generateData();
+        ModbusSlaveEndpoint endpoint = getEndpoint();
+        EndpointPoolConfiguration configuration = new EndpointPoolConfiguration();
+        configuration.setPipelineWindowSize(4);
+
+        int requests = 10;
+        AtomicInteger unexpectedCount = new AtomicInteger();
+        CountDownLatch callbackCalled = new CountDownLatch(requests);
+        List<AtomicReference<Object>> data = new ArrayList<>();
+        try (ModbusCommunicationInterface comms = modbusManager.newModbusCommunicationInterface(endpoint,
+                configuration)) {
+            for (int i = 0; i < requests; i++) {
+                AtomicReference<Object> lastData = new AtomicReference<>();
+                data.add(lastData);
+                comms.submitOneTimePoll(new ModbusReadRequestBlueprint(SLAVE_UNIT_ID,
+                        ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, i, 5, 1), result -> {
+                            Optional<@NonNull ModbusRegisterArray> registersOptional = result.getRegisters();
+                            if (registersOptional.isPresent()) {
+                                lastData.set(registersOptional.get());
+                            } else {
+                                unexpectedCount.incrementAndGet();
+                            }
+                            callbackCalled.countDown();
+                        }, failure -> {
+                            unexpectedCount.incrementAndGet();
+                            callbackCalled.countDown();
+                        });
+            }
+            assertTrue(callbackCalled.await(60, TimeUnit.SECONDS));
+
+            assertThat(unexpectedCount.get(), is(equalTo(0)));
+            for (int i = 0; i < requests; i++) {
+                ModbusRegisterArray registers = (ModbusRegisterArray) data.get(i).get();
+                assertThat(registers.size(), is(equalTo(5)));
+                testHoldingValues(registers, i);
+            }
+        }
+    }
+
     /**
      *
      * @throws Exception
@@ -561,6 +620,271 @@ public class SmokeTest extends IntegrationTestSupport {
         }
     }
 
+    private EndpointQueueStatistics queueStatistics(ModbusSlaveEndpoint endpoint) {
+        return modbusManager.getEndpointQueueStatistics(endpoint).get();
+    }
+
+    private List<Integer> requestFunctionCodes() {
+        List<Integer> functionCodes = new ArrayList<>();
+        synchronized (modbustRequestCaptor.getAllReturnValues()) {
+            modbustRequestCaptor.getAllReturnValues().forEach(request -> functionCodes.add(request.getFunctionCode()));
+        }
+        return functionCodes;
+    }
+
+    /**
+     * Submit a read keeping the slave busy for artificialServerWait, and wait for the slave to receive it
+     */
+    private Future<?> submitBlockingRead(ModbusCommunicationInterface comms) {
+        Future<?> future = comms.submitOneTimePoll(
+                new ModbusReadRequestBlueprint(SLAVE_UNIT_ID, ModbusReadFunctionCode.READ_COILS, 0, 1, 1), result -> {
+                }, failure -> {
+                });
+        waitForRequests(1);
+        return future;
+    }
+
+    /**
+     * Writes submitted while the slave is busy are executed before the one-off reads queued earlier
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testWriteIsExecutedBeforeQueuedReads() throws Exception {
+        generateData();
+        ModbusSlaveEndpoint endpoint = getEndpoint();
+        artificialServerWait = 200;
+
+        AtomicInteger unexpectedCount = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try (ModbusCommunicationInterface comms = modbusManager.newModbusCommunicationInterface(endpoint, null)) {
+            futures.add(submitBlockingRead(comms));
+            for (int i = 0; i < 3; i++) {
+                futures.add(comms.submitOneTimePoll(new ModbusReadRequestBlueprint(SLAVE_UNIT_ID,
+                        ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, i, 1, 1), result -> {
+                            if (!result.getRegisters().isPresent()) {
+                                unexpectedCount.incrementAndGet();
+                            }
+                        }, failure -> unexpectedCount.incrementAndGet()));
+            }
+            futures.add(comms.submitOneTimeWrite(
+                    new ModbusWriteCoilRequestBlueprint(SLAVE_UNIT_ID, 3, new BitArray(true), false, 1), result -> {
+                    }, failure -> unexpectedCount.incrementAndGet()));
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+
+            assertThat(unexpectedCount.get(), is(equalTo(0)));
+            // the read in progress is completed first, then the write overtakes the queued reads
+            assertThat(requestFunctionCodes(), is(equalTo(List.of(1, 5, 3, 3, 3))));
+            EndpointQueueStatistics statistics = queueStatistics(endpoint);
+            assertThat(statistics.getExecutedWrites(), is(equalTo(1L)));
+            assertThat(statistics.getExecutedOneOffReads(), is(equalTo(4L)));
+            assertThat(statistics.getMaxQueueSize(), is(equalTo(4)));
+            assertThat(statistics.getQueueSize(), is(equalTo(0)));
+        }
+    }
+
+    /**
+     * The future of a one-off read completes only after the callback has been called
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testOneOffReadFutureCompletesAfterCallback() throws Exception {
+        generateData();
+        ModbusSlaveEndpoint endpoint = getEndpoint();
+
+        AtomicBoolean callbackFinished = new AtomicBoolean();
+        try (ModbusCommunicationInterface comms = modbusManager.newModbusCommunicationInterface(endpoint, null)) {
+            Future<?> future = comms.submitOneTimePoll(new ModbusReadRequestBlueprint(SLAVE_UNIT_ID,
+                    ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 1, 1), result -> {
+                        try {
+                            Thread.sleep(200);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        callbackFinished.set(true);
+                    }, failure -> {
+                    });
+            future.get(10, TimeUnit.SECONDS);
+            assertTrue(callbackFinished.get());
+            assertFalse(future.cancel(false));
+        }
+    }
+
+    /**
+     * Canceling the future of a queued read prevents its execution
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCanceledOneOffReadIsNotExecuted() throws Exception {
+        generateData();
+        ModbusSlaveEndpoint endpoint = getEndpoint();
+        artificialServerWait = 300;
+
+        AtomicInteger canceledCallbackCount = new AtomicInteger();
+        try (ModbusCommunicationInterface comms = modbusManager.newModbusCommunicationInterface(endpoint, null)) {
+            Future<?> blockingRead = submitBlockingRead(comms);
+            Future<?> canceledRead = comms.submitOneTimePoll(new ModbusReadRequestBlueprint(SLAVE_UNIT_ID,
+                    ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 1, 1),
+                    result -> canceledCallbackCount.incrementAndGet(),
+                    failure -> canceledCallbackCount.incrementAndGet());
+            Future<?> nextRead = comms.submitOneTimePoll(new ModbusReadRequestBlueprint(SLAVE_UNIT_ID,
+                    ModbusReadFunctionCode.READ_INPUT_REGISTERS, 0, 1, 1), result -> {
+                    }, failure -> {
+                    });
+
+            assertTrue(canceledRead.cancel(false));
+            assertTrue(canceledRead.isCancelled());
+            assertFalse(blockingRead.cancel(false));
+            blockingRead.get(10, TimeUnit.SECONDS);
+            nextRead.get(10, TimeUnit.SECONDS);
+
+            assertThat(requestFunctionCodes(), is(equalTo(List.of(1, 4))));
+            assertThat(canceledCallbackCount.get(), is(equalTo(0)));
+            assertThat(queueStatistics(endpoint).getExecutedOneOffReads(), is(equalTo(2L)));
+        }
+    }
+
+    /**
+     * A regular poll submitted again while the previous one is still queued replaces the previous one
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testQueuedRegularPollIsReplaced() throws Exception {
+        generateData();
+        ModbusSlaveEndpoint endpoint = getEndpoint();
+        artificialServerWait = 500;
+
+        AtomicInteger unexpectedCount = new AtomicInteger();
+        CountDownLatch callbackCalled = new CountDownLatch(1);
+        try (ModbusCommunicationInterface comms = modbusManager.newModbusCommunicationInterface(endpoint, null)) {
+            Future<?> blockingRead = submitBlockingRead(comms);
+            comms.registerRegularPoll(new ModbusReadRequestBlueprint(SLAVE_UNIT_ID,
+                    ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 1, 1), 50, 0, result -> {
+                        callbackCalled.countDown();
+                    }, failure -> {
+                        unexpectedCount.incrementAndGet();
+                    });
+            blockingRead.get(10, TimeUnit.SECONDS);
+            assertTrue(callbackCalled.await(10, TimeUnit.SECONDS));
+
+            EndpointQueueStatistics statistics = queueStatistics(endpoint);
+            // the poll was submitted every 50 ms while the slave was busy, but waited in the queue only once
+            assertThat(statistics.getReplacedPolls(), is(greaterThan(0L)));
+            assertThat(statistics.getMaxQueueSize(), is(equalTo(1)));
+            assertThat(statistics.getExpiredPolls(), is(equalTo(0L)));
+            assertThat(unexpectedCount.get(), is(equalTo(0)));
+        }
+    }
+
+    /**
+     * A regular poll waiting in the queue past its deadline is dropped, and the failure callback is called
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRegularPollWaitingPastDeadlineIsDropped() throws Exception {
+        generateData();
+        ModbusSlaveEndpoint endpoint = getEndpoint();
+        artificialServerWait = 1000;
+
+        AtomicInteger resultCount = new AtomicInteger();
+        AtomicReference<Exception> lastError = new AtomicReference<>();
+        CountDownLatch failureCalled = new CountDownLatch(1);
+        ModbusReadRequestBlueprint request = new ModbusReadRequestBlueprint(SLAVE_UNIT_ID,
+                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 1, 1);
+        ModbusReadCallback resultCallback = result -> resultCount.incrementAndGet();
+        ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback = failure -> {
+            lastError.set(failure.getCause());
+            failureCalled.countDown();
+        };
+        try (ModbusCommunicationInterface comms = modbusManager.newModbusCommunicationInterface(endpoint, null)) {
+            submitBlockingRead(comms);
+            comms.registerRegularPoll(request, 100, 0, resultCallback, failureCallback);
+            waitForAssert(() -> assertThat(queueStatistics(endpoint).getQueueSize(), is(equalTo(1))));
+            // registering the same poll again with a long initial delay, so that the queued poll is not replaced
+            // before it expires 200 ms after its submission
+            comms.registerRegularPoll(request, 100, 60000, resultCallback, failureCallback);
+
+            assertTrue(failureCalled.await(10, TimeUnit.SECONDS));
+            assertThat(lastError.get(), is(instanceOf(ModbusRequestExpiredException.class)));
+            EndpointQueueStatistics statistics = queueStatistics(endpoint);
+            assertThat(statistics.getExpiredPolls(), is(equalTo(1L)));
+            assertThat(statistics.getExecutedRegularPolls(), is(equalTo(0L)));
+            assertThat(resultCount.get(), is(equalTo(0)));
+            assertThat(requestFunctionCodes(), is(equalTo(List.of(1))));
+        }
+    }
+
+    /**
+     * Regular polls merged across addresses the slave rejects are executed individually after the first error response
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRejectedMergedPollFallsBackToIndividualReads() throws Exception {
+        // slave without register 5, between the two polls
+        spi = new SimpleProcessImage() {
+            @Override
+            public Register[] getRegisterRange(int offset, int count) throws IllegalAddressException {
+                if (offset <= 5 && 5 < offset + count) {
+                    throw new IllegalAddressException();
+                }
+                return super.getRegisterRange(offset, count);
+            }
+        };
+        ModbusCoupler.getReference().setProcessImage(spi);
+        generateData();
+        ModbusSlaveEndpoint endpoint = getEndpoint();
+        EndpointPoolConfiguration configuration = new EndpointPoolConfiguration();
+        configuration.setPollCoalescingMaxGap(5);
+
+        AtomicInteger unexpectedCount = new AtomicInteger();
+        CountDownLatch firstCalled = new CountDownLatch(3);
+        CountDownLatch secondCalled = new CountDownLatch(3);
+        try (ModbusCommunicationInterface comms = modbusManager.newModbusCommunicationInterface(endpoint,
+                configuration)) {
+            comms.registerRegularPoll(new ModbusReadRequestBlueprint(SLAVE_UNIT_ID,
+                    ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 2, 2, 1), 150, 0, result -> {
+                        try {
+                            testHoldingValues(result.getRegisters().get(), 2);
+                        } catch (AssertionError e) {
+                            unexpectedCount.incrementAndGet();
+                        }
+                        firstCalled.countDown();
+                    }, failure -> {
+                        unexpectedCount.incrementAndGet();
+                    });
+            comms.registerRegularPoll(new ModbusReadRequestBlueprint(SLAVE_UNIT_ID,
+                    ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 7, 2, 1), 150, 0, result -> {
+                        try {
+                            testHoldingValues(result.getRegisters().get(), 7);
+                        } catch (AssertionError e) {
+                            unexpectedCount.incrementAndGet();
+                        }
+                        secondCalled.countDown();
+                    }, failure -> {
+                        unexpectedCount.incrementAndGet();
+                    });
+            assertTrue(firstCalled.await(10, TimeUnit.SECONDS));
+            assertTrue(secondCalled.await(10, TimeUnit.SECONDS));
+        }
+
+        // the polls never see the error of the merged read, which is only sent until it's rejected
+        assertThat(unexpectedCount.get(), is(equalTo(0)));
+        List<Integer> wordCounts = new ArrayList<>();
+        synchronized (modbustRequestCaptor.getAllReturnValues()) {
+            modbustRequestCaptor.getAllReturnValues()
+                    .forEach(request -> wordCounts.add(((ReadMultipleRegistersRequest) request).getWordCount()));
+        }
+        assertThat(wordCounts.stream().filter(count -> count == 7).count(), is(equalTo(1L)));
+        assertThat(wordCounts.stream().filter(count -> count == 2).count(), is(greaterThan(5L)));
+    }
+
     /**
      * Testing regular polling of coils
      *
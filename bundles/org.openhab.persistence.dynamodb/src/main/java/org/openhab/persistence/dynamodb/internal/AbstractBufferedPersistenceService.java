@@ -15,10 +15,12 @@ package org.openhab.persistence.dynamodb.internal;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.UUID;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -41,17 +43,21 @@ import org.slf4j.LoggerFactory;
 @NonNullByDefault
 public abstract class AbstractBufferedPersistenceService<T> implements PersistenceService {
 
-    private static final long BUFFER_OFFER_TIMEOUT_MILLIS = 500;
+    // capacity of the buffer if data is written immediately, it only holds the data until the flusher picks it up
+    private static final int WRITE_IMMEDIATELY_BUFFER_SIZE = 1000;
+    // time store() waits for the flusher to make room in a full buffer before the item is dropped
+    private static final long FULL_BUFFER_WAIT_MILLIS = 2000;
 
     private final Logger logger = LoggerFactory.getLogger(AbstractBufferedPersistenceService.class);
     protected @Nullable BlockingQueue<T> buffer;
+    private final AtomicLong droppedItems = new AtomicLong();
 
     private boolean writeImmediately;
 
     protected void resetWithBufferSize(int bufferSize) {
-        int capacity = Math.max(1, bufferSize);
-        buffer = new ArrayBlockingQueue<>(capacity, true);
         writeImmediately = bufferSize == 0;
+        int capacity = writeImmediately ? WRITE_IMMEDIATELY_BUFFER_SIZE : Math.max(1, bufferSize);
+        buffer = new ArrayBlockingQueue<>(capacity, true);
     }
 
     protected abstract T persistenceItemFromState(String name, State state, ZonedDateTime time);
@@ -60,6 +66,11 @@ public abstract class AbstractBufferedPersistenceService<T> implements Persisten
 
     protected abstract void flushBufferedData();
 
+    /**
+     * Flush the buffered data in the background. Must not block the calling thread.
+     */
+    protected abstract void requestFlush();
+
     @Override
     public void store(Item item) {
         store(item, null);
@@ -85,45 +96,73 @@ public abstract class AbstractBufferedPersistenceService<T> implements Persisten
         State state = item.getState();
         T persistenceItem = persistenceItemFromState(name, state, time);
         logger.trace("store() called with item {}, which was converted to {} [{}]", item, persistenceItem, uuid);
-        if (writeImmediately) {
-            logger.debug("Writing immediately item {} [{}]", realName, uuid);
-            // We want to write everything immediately
-            // Synchronous behavior to ensure buffer does not get full.
-            synchronized (this) {
-                boolean buffered = addToBuffer(persistenceItem);
-                assert buffered;
-                flushBufferedData();
+        long bufferStart = System.currentTimeMillis();
+        if (addToBuffer(persistenceItem)) {
+            logger.debug("Buffered item {} in {} ms. Total time for store(): {} [{}]", realName,
+                    System.currentTimeMillis() - bufferStart, System.currentTimeMillis() - storeStart, uuid);
+            if (writeImmediately || buffer.remainingCapacity() == 0) {
+                requestFlush();
             }
         } else {
-            long bufferStart = System.currentTimeMillis();
-            boolean buffered = addToBuffer(persistenceItem);
-            if (buffered) {
-                logger.debug("Buffered item {} in {} ms. Total time for store(): {} [{}]", realName,
-                        System.currentTimeMillis() - bufferStart, System.currentTimeMillis() - storeStart, uuid);
+            // Let the flusher make room, but block the caller (usually the event thread) only for a bounded time
+            requestFlush();
+            if (addToBuffer(persistenceItem, FULL_BUFFER_WAIT_MILLIS)) {
+                logger.debug("Buffered item {} after waiting {} ms for room in the buffer [{}]", realName,
+                        System.currentTimeMillis() - bufferStart, uuid);
             } else {
-                logger.debug(
-                        "Buffer is full. Writing buffered data immediately and trying again. Consider increasing bufferSize");
-                // Buffer is full, commit it immediately
-                flushBufferedData();
-                boolean buffered2 = addToBuffer(persistenceItem);
-                if (buffered2) {
-                    logger.debug("Buffered item in {} ms (2nd try, flushed buffer in-between) [{}]",
-                            System.currentTimeMillis() - bufferStart, uuid);
-                } else {
-                    // The unlikely case happened -- buffer got full again immediately
-                    logger.warn("Buffering failed for the second time -- Too small bufferSize? Discarding data [{}]",
-                            uuid);
-                }
+                itemsDropped(1, "the buffer is full, consider increasing bufferSize");
             }
         }
     }
 
     protected boolean addToBuffer(T persistenceItem) {
+        return buffer != null && buffer.offer(persistenceItem);
+    }
+
+    private boolean addToBuffer(T persistenceItem, long timeoutMillis) {
+        BlockingQueue<T> localBuffer = buffer;
         try {
-            return buffer != null && buffer.offer(persistenceItem, BUFFER_OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return localBuffer != null && localBuffer.offer(persistenceItem, timeoutMillis, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
-            logger.warn("Interrupted when trying to buffer data! Dropping data");
+            Thread.currentThread().interrupt();
             return false;
         }
     }
+
+    /**
+     * Puts the items of a failed write back into the buffer, so that they are written with the next flush. Items
+     * which don't fit into the buffer any more are dropped.
+     *
+     * @param items items to write again
+     */
+    protected void requeue(Collection<T> items) {
+        int dropped = 0;
+        for (T item : items) {
+            if (!addToBuffer(item)) {
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            itemsDropped(dropped, "the buffer is full, consider increasing bufferSize");
+        }
+    }
+
+    /**
+     * Records items which have not been stored and will not be retried
+     *
+     * @param count number of items
+     * @param reason why the items have been dropped
+     */
+    protected void itemsDropped(int count, String reason) {
+        long total = droppedItems.addAndGet(count);
+        logger.warn("Dropped {} item(s) because {}. {} item(s) have been dropped since the service was started",
+                count, reason, total);
+    }
+
+    /**
+     * Returns the number of items which have not been stored since the service was started
+     */
+    public long getDroppedItemCount() {
+        return droppedItems.get();
+    }
 }
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Batch size which adapts to the throughput DynamoDB grants: it is halved whenever a write is throttled and grows by
+ * one with every write that succeeds without throttling.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class AdaptiveBatchSize {
+    private final int min;
+    private final int max;
+    private final AtomicInteger size;
+
+    public AdaptiveBatchSize(int min, int max) {
+        this.min = min;
+        this.max = max;
+        this.size = new AtomicInteger(max);
+    }
+
+    public int get() {
+        return size.get();
+    }
+
+    public void onThrottled() {
+        size.updateAndGet(current -> Math.max(min, current / 2));
+    }
+
+    public void onSuccess() {
+        size.updateAndGet(current -> Math.min(max, current + 1));
+    }
+}
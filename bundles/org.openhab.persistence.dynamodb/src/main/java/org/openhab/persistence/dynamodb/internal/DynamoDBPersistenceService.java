@@ -23,10 +23,18 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -57,6 +65,7 @@ import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchWriteRetryStrategy;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
@@ -64,6 +73,7 @@ import com.amazonaws.services.dynamodbv2.document.BatchWriteItemOutcome;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndex;
 import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
 import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.amazonaws.services.dynamodbv2.model.TableStatus;
@@ -136,6 +146,7 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
                         "Even after retries failed to write some items. Last exception: {} {}, unprocessed items: {}",
                         lastException == null ? "null" : lastException.getClass().getName(),
                         lastException == null ? "null" : lastException.getMessage(), unprocessedItems);
+                itemsDropped(countWriteRequests(unprocessedItems), "DynamoDB did not accept them even after retries");
             }
         }
 
@@ -160,9 +171,42 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
         }
     }
 
+    /**
+     * Retries unprocessed items of a batch write with exponential back-off and jitter, and remembers whether DynamoDB
+     * throttled the batch, i.e. left some items unprocessed.
+     */
+    private static class ThrottleTrackingRetryStrategy implements BatchWriteRetryStrategy {
+        private volatile boolean throttled;
+
+        @Override
+        public int getMaxRetryOnUnprocessedItems(Map<String, List<WriteRequest>> batchWriteItemInput) {
+            return MAX_RETRIES_ON_UNPROCESSED_ITEMS;
+        }
+
+        @Override
+        public long getDelayBeforeRetryUnprocessedItems(Map<String, List<WriteRequest>> unprocessedItems,
+                int retriesAttempted) {
+            throttled = true;
+            long delay = Math.min(RETRY_MAX_DELAY_MILLIS,
+                    RETRY_BASE_DELAY_MILLIS << Math.min(Math.max(retriesAttempted, 0), 16));
+            // "equal jitter": keep half of the delay, randomize the rest to spread retries of concurrent batches
+            return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        }
+
+        public boolean isThrottled() {
+            return throttled;
+        }
+    }
+
     private static final int WAIT_ON_FIRST_RESOURCE_NOT_FOUND_MILLIS = 5000;
     private static final int[] WAIT_MILLIS_IN_RETRIES = new int[] { 100, 100, 200, 300, 500 };
     private static final String DYNAMODB_THREADPOOL_NAME = "dynamodbPersistenceService";
+    // Maximum number of items in a single BatchWriteItem request
+    private static final int MAX_BATCH_SIZE = 25;
+    private static final int WRITER_THREADS = 4;
+    private static final int MAX_RETRIES_ON_UNPROCESSED_ITEMS = 8;
+    private static final long RETRY_BASE_DELAY_MILLIS = 100;
+    private static final long RETRY_MAX_DELAY_MILLIS = 5000;
 
     private final ItemRegistry itemRegistry;
     private @Nullable DynamoDBClient db;
@@ -173,6 +217,10 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1,
             new NamedThreadFactory(DYNAMODB_THREADPOOL_NAME));
     private @Nullable ScheduledFuture<?> writeBufferedDataFuture;
+    private @Nullable ExecutorService writers;
+    private final AdaptiveBatchSize batchSize = new AdaptiveBatchSize(1, MAX_BATCH_SIZE);
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object flushLock = new Object();
 
     @Activate
     public DynamoDBPersistenceService(final @Reference ItemRegistry itemRegistry) {
@@ -212,6 +260,8 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
 
         writeBufferedDataFuture = null;
         resetWithBufferSize(dbConfig.getBufferSize());
+        writers = Executors.newFixedThreadPool(WRITER_THREADS,
+                new NamedThreadFactory(DYNAMODB_THREADPOOL_NAME + "-writer"));
         long commitIntervalMillis = dbConfig.getBufferCommitIntervalMillis();
         if (commitIntervalMillis > 0) {
             writeBufferedDataFuture = scheduler.scheduleWithFixedDelay(new Runnable() {
@@ -242,6 +292,24 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
             writeBufferedDataFuture.cancel(false);
             writeBufferedDataFuture = null;
         }
+        if (isProperlyConfigured) {
+            // write what is still buffered before the client goes away
+            try {
+                flushBufferedData();
+            } catch (RuntimeException e) {
+                logger.warn("Flushing buffered data on deactivation failed: {}", e.getMessage());
+            }
+            BlockingQueue<DynamoDBItem<?>> localBuffer = buffer;
+            if (localBuffer != null && !localBuffer.isEmpty()) {
+                itemsDropped(localBuffer.size(), "they could not be written before deactivation");
+                localBuffer.clear();
+            }
+        }
+        ExecutorService localWriters = writers;
+        if (localWriters != null) {
+            localWriters.shutdown();
+            writers = null;
+        }
         resetClient();
     }
 
@@ -357,10 +425,18 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
     }
 
     private DynamoDBMapper getDBMapper(String tableName) {
+        return getDBMapper(tableName, null);
+    }
+
+    private DynamoDBMapper getDBMapper(String tableName, @Nullable BatchWriteRetryStrategy batchWriteRetryStrategy) {
         try {
-            DynamoDBMapperConfig mapperConfig = new DynamoDBMapperConfig.Builder()
+            DynamoDBMapperConfig.Builder builder = new DynamoDBMapperConfig.Builder()
                     .withTableNameOverride(new DynamoDBMapperConfig.TableNameOverride(tableName))
-                    .withPaginationLoadingStrategy(PaginationLoadingStrategy.LAZY_LOADING).build();
+                    .withPaginationLoadingStrategy(PaginationLoadingStrategy.LAZY_LOADING);
+            if (batchWriteRetryStrategy != null) {
+                builder = builder.withBatchWriteRetryStrategy(batchWriteRetryStrategy);
+            }
+            DynamoDBMapperConfig mapperConfig = builder.build();
             return new DynamoDBMapper(db.getDynamoClient(), mapperConfig);
         } catch (AmazonClientException e) {
             logger.error("Error getting db mapper: {}", e.getMessage());
@@ -389,26 +465,108 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
     }
 
     @Override
-    protected void flushBufferedData() {
-        if (buffer != null && buffer.isEmpty()) {
+    protected void requestFlush() {
+        if (!flushRequested.compareAndSet(false, true)) {
+            // a flush is already pending and will pick up the new data
             return;
         }
-        logger.debug("Writing buffered data. Buffer size: {}", buffer.size());
+        try {
+            scheduler.execute(() -> {
+                try {
+                    flushBufferedData();
+                } catch (RuntimeException e) {
+                    logger.warn("Flushing of buffered data failed unexpectedly: {}", e.getMessage(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            flushRequested.set(false);
+            logger.debug("Could not schedule flushing of buffered data: {}", e.getMessage());
+        }
+    }
 
-        for (;;) {
-            Map<String, Deque<DynamoDBItem<?>>> itemsByTable = readBuffer();
-            // Write batch of data, one table at a time
-            for (Entry<String, Deque<DynamoDBItem<?>>> entry : itemsByTable.entrySet()) {
-                String tableName = entry.getKey();
-                Deque<DynamoDBItem<?>> batch = entry.getValue();
-                if (!batch.isEmpty()) {
-                    flushBatch(getDBMapper(tableName), batch);
+    /**
+     * Write all buffered data to DynamoDB.
+     *
+     * Items are grouped by table and split into batches of (at most) {@value #MAX_BATCH_SIZE} items. The batches are
+     * written concurrently and the size of the batches adapts to the throttling observed by DynamoDB.
+     *
+     * Synchronized in order to ensure that data is written in the order it was buffered and that callers return only
+     * after previously buffered data has been written.
+     *
+     * Batches which fail as a whole are put back into the buffer. The flush then stops, and the batches are written
+     * again with the next flush instead of being retried in a tight loop.
+     */
+    @Override
+    protected void flushBufferedData() {
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            BlockingQueue<DynamoDBItem<?>> localBuffer = buffer;
+            if (localBuffer == null || localBuffer.isEmpty()) {
+                return;
+            }
+            logger.debug("Writing buffered data. Buffer size: {}", localBuffer.size());
+
+            AtomicBoolean requeued = new AtomicBoolean();
+            while (!localBuffer.isEmpty() && !requeued.get()) {
+                Map<String, Deque<DynamoDBItem<?>>> itemsByTable = readBuffer();
+                List<Future<?>> writes = new ArrayList<>();
+                // Write batches of data, concurrently across tables
+                for (Entry<String, Deque<DynamoDBItem<?>>> entry : itemsByTable.entrySet()) {
+                    String tableName = entry.getKey();
+                    Deque<DynamoDBItem<?>> items = entry.getValue();
+                    while (!items.isEmpty()) {
+                        int size = batchSize.get();
+                        Deque<DynamoDBItem<?>> batch = new ArrayDeque<>(size);
+                        while (batch.size() < size && !items.isEmpty()) {
+                            batch.add(items.poll());
+                        }
+                        writes.add(submitBatch(tableName, batch, requeued));
+                    }
+                }
+                if (!awaitWrites(writes)) {
+                    return;
                 }
             }
-            if (buffer != null && buffer.isEmpty()) {
-                break;
+        }
+    }
+
+    private Future<?> submitBatch(String tableName, Deque<DynamoDBItem<?>> batch, AtomicBoolean requeued) {
+        Runnable write = () -> {
+            if (!flushBatch(tableName, batch)) {
+                requeued.set(true);
+            }
+        };
+        ExecutorService localWriters = writers;
+        if (localWriters != null) {
+            try {
+                return localWriters.submit(write);
+            } catch (RejectedExecutionException e) {
+                // service is being deactivated, write with the calling thread
             }
         }
+        write.run();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Wait for the given writes to complete
+     *
+     * @param writes futures of the writes
+     * @return false if interrupted while waiting, true otherwise
+     */
+    private boolean awaitWrites(List<Future<?>> writes) {
+        for (Future<?> write : writes) {
+            try {
+                write.get();
+            } catch (ExecutionException e) {
+                logger.warn("Writing batch of data failed unexpectedly: {}", e.getMessage(), e);
+            } catch (InterruptedException e) {
+                logger.debug("Interrupted while waiting for batches to be written");
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
     }
 
     private Map<String, Deque<DynamoDBItem<?>>> readBuffer() {
@@ -434,22 +592,47 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
     /**
      * Flush batch of data to DynamoDB
      *
-     * @param mapper mapper associated with the batch
+     * @param tableName table of the batch
      * @param batch batch of data to write to DynamoDB
+     * @return false if the batch failed as a whole and has been put back into the buffer, true otherwise
      */
-    private void flushBatch(DynamoDBMapper mapper, Deque<DynamoDBItem<?>> batch) {
+    private boolean flushBatch(String tableName, Deque<DynamoDBItem<?>> batch) {
         long currentTimeMillis = System.currentTimeMillis();
-        List<FailedBatch> failed = mapper.batchSave(batch);
+        ThrottleTrackingRetryStrategy retryStrategy = new ThrottleTrackingRetryStrategy();
+        DynamoDBMapper mapper = getDBMapper(tableName, retryStrategy);
+        List<FailedBatch> failed;
+        try {
+            failed = mapper.batchSave(batch);
+        } catch (AmazonClientException e) {
+            if (e instanceof ProvisionedThroughputExceededException) {
+                batchSize.onThrottled();
+            }
+            logger.warn("Writing batch of {} items to table {} failed, retrying with the next flush: {}", batch.size(),
+                    tableName, e.getMessage());
+            requeue(batch);
+            return false;
+        }
+        boolean throttled = retryStrategy.isThrottled();
         for (FailedBatch failedBatch : failed) {
-            if (failedBatch.getException() instanceof ResourceNotFoundException) {
+            Exception exception = failedBatch.getException();
+            if (exception instanceof ResourceNotFoundException) {
                 // Table did not exist. Try again after creating table
                 retryFlushAfterCreatingTable(mapper, batch, failedBatch);
             } else {
+                if (exception instanceof ProvisionedThroughputExceededException) {
+                    throttled = true;
+                }
                 logger.debug("Batch failed with {}. Retrying next with exponential back-off",
-                        failedBatch.getException().getMessage());
+                        exception == null ? "unprocessed items" : exception.getMessage());
                 new ExponentialBackoffRetry(failedBatch.getUnprocessedItems()).run();
             }
         }
+        if (throttled) {
+            batchSize.onThrottled();
+            logger.debug("Writes to table {} were throttled, batch size is now {}", tableName, batchSize.get());
+        } else if (failed.isEmpty()) {
+            batchSize.onSuccess();
+        }
         if (failed.isEmpty()) {
             logger.debug("flushBatch ended with {} items in {} ms: {}", batch.size(),
                     System.currentTimeMillis() - currentTimeMillis, batch);
@@ -458,6 +641,11 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
                     "flushBatch ended with {} items in {} ms: {}. There were some failed batches that were retried -- check logs for ERRORs to see if writes were successful",
                     batch.size(), System.currentTimeMillis() - currentTimeMillis, batch);
         }
+        return true;
+    }
+
+    private static int countWriteRequests(Map<String, List<WriteRequest>> writeRequests) {
+        return writeRequests.values().stream().mapToInt(List::size).sum();
     }
 
     /**
@@ -482,9 +670,16 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
         } else {
             logger.warn("Table creation failed. Not storing some parts of batch: {}. Unprocessed items: {}", batch,
                     failedBatch.getUnprocessedItems());
+            itemsDropped(countWriteRequests(failedBatch.getUnprocessedItems()), "their table could not be created");
         }
     }
 
+    /**
+     * Queries DynamoDB after writing the buffered data, so that the result contains everything stored so far.
+     *
+     * The buffered data is written synchronously on the calling thread: the query waits for pending writes,
+     * including their retries, before it is executed.
+     */
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
         logger.debug("got a query");
@@ -496,6 +691,8 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
             logger.warn("DynamoDB not connected. Not storing item.");
             return Collections.emptyList();
         }
+        // make sure the query sees the data stored so far
+        flushBufferedData();
 
         String itemName = filter.getItemName();
         Item item = getItemFromRegistry(itemName);
@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author openHAB Contributors - Initial contribution
+ *
+ */
+@NonNullByDefault
+public class AdaptiveBatchSizeTest {
+
+    @Test
+    public void testStartsWithMaximum() {
+        assertEquals(25, new AdaptiveBatchSize(1, 25).get());
+    }
+
+    @Test
+    public void testThrottlingHalvesDownToMinimum() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(1, 25);
+        batchSize.onThrottled();
+        assertEquals(12, batchSize.get());
+        for (int i = 0; i < 10; i++) {
+            batchSize.onThrottled();
+        }
+        assertEquals(1, batchSize.get());
+    }
+
+    @Test
+    public void testSuccessGrowsUpToMaximum() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(1, 25);
+        batchSize.onThrottled();
+        batchSize.onSuccess();
+        assertEquals(13, batchSize.get());
+        for (int i = 0; i < 20; i++) {
+            batchSize.onSuccess();
+        }
+        assertEquals(25, batchSize.get());
+    }
+}
@@ -179,6 +179,11 @@ public class BaseIntegrationTest {
         config.put("accessKey", System.getProperty("DYNAMODBTEST_ACCESS"));
         config.put("secretKey", System.getProperty("DYNAMODBTEST_SECRET"));
         config.put("tablePrefix", "dynamodb-integration-tests-");
+        String endpoint = System.getProperty("DYNAMODBTEST_ENDPOINT");
+        if (endpoint != null) {
+            // e.g. DynamoDB Local
+            config.put("endpoint", endpoint);
+        }
 
         // Disable buffering
         config.put("bufferSize", "0");
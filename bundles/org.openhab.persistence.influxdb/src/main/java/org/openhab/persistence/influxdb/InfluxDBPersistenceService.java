@@ -12,9 +12,14 @@
  */
 package org.openhab.persistence.influxdb;
 
+import java.io.File;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -23,10 +28,16 @@ import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.OpenHAB;
 import org.openhab.core.config.core.ConfigurableService;
+import org.openhab.core.items.GroupItem;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemRegistry;
 import org.openhab.core.items.MetadataRegistry;
+import org.openhab.core.library.items.DimmerItem;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.RollershutterItem;
+import org.openhab.core.library.types.StringType;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
@@ -35,11 +46,13 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
+import org.openhab.persistence.influxdb.internal.InfluxDBBufferFile;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBHistoricItem;
 import org.openhab.persistence.influxdb.internal.InfluxDBPersistentItemInfo;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
 import org.openhab.persistence.influxdb.internal.InfluxDBStateConvertUtils;
+import org.openhab.persistence.influxdb.internal.InfluxDBWritePipeline;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
 import org.openhab.persistence.influxdb.internal.ItemToStorePointCreator;
@@ -81,6 +94,9 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
 
     protected static final String CONFIG_URI = "persistence:influxdb";
 
+    private static final String BUFFER_FILE_NAME = OpenHAB.getUserDataFolder() + File.separator + "persistence"
+            + File.separator + "influxdb" + File.separator + "buffer.dat";
+
     // External dependencies
     private final ItemRegistry itemRegistry;
     private final MetadataRegistry metadataRegistry;
@@ -91,6 +107,7 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
     // Relax rules because can only be null if component is not active
     private @NonNullByDefault({}) ItemToStorePointCreator itemToStorePointCreator;
     private @NonNullByDefault({}) InfluxDBRepository influxDBRepository;
+    private @NonNullByDefault({}) InfluxDBWritePipeline writePipeline;
 
     @Activate
     public InfluxDBPersistenceService(final @Reference ItemRegistry itemRegistry,
@@ -110,6 +127,9 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
             itemToStorePointCreator = new ItemToStorePointCreator(configuration, metadataRegistry);
             influxDBRepository = createInfluxDBRepository();
             influxDBRepository.connect();
+            writePipeline = new InfluxDBWritePipeline(influxDBRepository, configuration,
+                    configuration.isBufferSpill() ? new InfluxDBBufferFile(Paths.get(BUFFER_FILE_NAME)) : null);
+            writePipeline.start();
         } else {
             logger.error("Cannot load configuration, persistence service wont work");
         }
@@ -128,6 +148,10 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
     @Deactivate
     public void deactivate() {
         logger.debug("InfluxDB persistence service deactivated");
+        if (writePipeline != null) {
+            writePipeline.stop();
+            writePipeline = null;
+        }
         if (influxDBRepository != null) {
             influxDBRepository.disconnect();
             influxDBRepository = null;
@@ -199,16 +223,17 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
 
     @Override
     public void store(Item item, @Nullable String alias) {
-        if (influxDBRepository != null && influxDBRepository.isConnected()) {
+        InfluxDBWritePipeline currentWritePipeline = writePipeline;
+        if (currentWritePipeline != null) {
             InfluxPoint point = itemToStorePointCreator.convert(item, alias);
             if (point != null) {
                 logger.trace("Storing item {} in InfluxDB point {}", item, point);
-                influxDBRepository.write(point);
+                currentWritePipeline.add(point);
             } else {
                 logger.trace("Ignoring item {} as is cannot be converted to a InfluxDB point", item);
             }
         } else {
-            logger.debug("store ignored, InfluxDB is not yet connected");
+            logger.debug("store ignored, InfluxDB persistence service is not active");
         }
     }
 
@@ -222,19 +247,78 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
                     filter.getItemName(), filter.getOrdering().toString(), filter.getState(), filter.getOperator(),
                     filter.getBeginDate(), filter.getEndDate(), filter.getPageSize(), filter.getPageNumber());
 
+            // resolve the items once per query instead of once per row
+            Map<String, @Nullable Item> items = new HashMap<>();
+            String itemName = filter.getItemName();
+            Item item = itemName != null ? resolveItem(itemName, items) : null;
+
+            Duration downsampleInterval = getDownsampleInterval(filter, item);
             String query = RepositoryFactory.createQueryCreator(configuration).createQuery(filter,
-                    configuration.getRetentionPolicy());
+                    configuration.getRetentionPolicy(), downsampleInterval);
             logger.trace("Query {}", query);
-            List<InfluxRow> results = influxDBRepository.query(query);
-            return results.stream().map(this::mapRow2HistoricItem).collect(Collectors.toList());
+            InfluxDBRepository repository = influxDBRepository;
+            // every iteration runs the query, its rows are mapped while they are received
+            return () -> {
+                Iterator<InfluxRow> rows = repository.query(query);
+                Map<String, @Nullable Item> rowItems = new HashMap<>(items);
+                return new Iterator<HistoricItem>() {
+                    @Override
+                    public boolean hasNext() {
+                        return rows.hasNext();
+                    }
+
+                    @Override
+                    public HistoricItem next() {
+                        InfluxRow row = rows.next();
+                        Item rowItem = itemName != null ? item : resolveItem(row.getItemName(), rowItems);
+                        return mapRow2HistoricItem(row, rowItem);
+                    }
+                };
+            };
         } else {
             logger.debug("query ignored, InfluxDB is not yet connected");
             return Collections.emptyList();
         }
     }
 
-    private HistoricItem mapRow2HistoricItem(InfluxRow row) {
-        State state = InfluxDBStateConvertUtils.objectToState(row.getValue(), row.getItemName(), itemRegistry);
+    private @Nullable Item resolveItem(String itemName, Map<String, @Nullable Item> items) {
+        if (items.containsKey(itemName)) {
+            return items.get(itemName);
+        }
+        Item item = itemRegistry.get(itemName);
+        if (item == null) {
+            logger.debug("Could not find item '{}' in registry", itemName);
+        }
+        items.put(itemName, item);
+        return item;
+    }
+
+    /**
+     * Returns the interval to downsample a query to if its range is larger than the configured number of points,
+     * only numeric items without a value filter and pagination are downsampled.
+     */
+    private @Nullable Duration getDownsampleInterval(FilterCriteria filter, @Nullable Item item) {
+        int maxPoints = configuration.getQueryMaxPoints();
+        ZonedDateTime beginDate = filter.getBeginDate();
+        if (maxPoints <= 0 || beginDate == null || !isNumericItem(item) || filter.getState() != null
+                || filter.getPageSize() != Integer.MAX_VALUE) {
+            return null;
+        }
+        ZonedDateTime endDate = filter.getEndDate();
+        long rangeSeconds = Duration.between(beginDate, endDate != null ? endDate : ZonedDateTime.now()).getSeconds();
+        long intervalSeconds = (rangeSeconds + maxPoints - 1) / maxPoints;
+        return intervalSeconds > 1 ? Duration.ofSeconds(intervalSeconds) : null;
+    }
+
+    private boolean isNumericItem(@Nullable Item item) {
+        Item baseItem = item instanceof GroupItem ? ((GroupItem) item).getBaseItem() : item;
+        return baseItem instanceof NumberItem || baseItem instanceof DimmerItem
+                || baseItem instanceof RollershutterItem;
+    }
+
+    private HistoricItem mapRow2HistoricItem(InfluxRow row, @Nullable Item item) {
+        State state = item != null ? InfluxDBStateConvertUtils.objectToState(row.getValue(), item)
+                : new StringType(String.valueOf(row.getValue()));
         return new InfluxDBHistoricItem(row.getItemName(), state,
                 ZonedDateTime.ofInstant(row.getTime(), ZoneId.systemDefault()));
     }
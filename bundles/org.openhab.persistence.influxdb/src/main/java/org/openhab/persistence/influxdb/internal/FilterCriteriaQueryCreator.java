@@ -12,7 +12,10 @@
  */
 package org.openhab.persistence.influxdb.internal;
 
+import java.time.Duration;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.persistence.FilterCriteria;
 
 /**
@@ -29,7 +32,19 @@ public interface FilterCriteriaQueryCreator {
      * @param retentionPolicy Name of the retentionPolicy/bucket to use in query
      * @return Created query as an String
      */
-    String createQuery(FilterCriteria criteria, String retentionPolicy);
+    default String createQuery(FilterCriteria criteria, String retentionPolicy) {
+        return createQuery(criteria, retentionPolicy, null);
+    }
+
+    /**
+     * Create query from {@link FilterCriteria} which optionally downsamples the values to the mean of each interval
+     *
+     * @param criteria Criteria to create query from
+     * @param retentionPolicy Name of the retentionPolicy/bucket to use in query
+     * @param downsampleInterval Length of the intervals to aggregate, null to return the raw values
+     * @return Created query as an String
+     */
+    String createQuery(FilterCriteria criteria, String retentionPolicy, @Nullable Duration downsampleInterval);
 
     default String getOperationSymbol(FilterCriteria.Operator operator, InfluxDBVersion version) {
         switch (operator) {
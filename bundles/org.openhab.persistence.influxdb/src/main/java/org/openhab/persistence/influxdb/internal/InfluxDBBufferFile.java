@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the points that could not be written when the service is stopped, so that they are written after the next
+ * start.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBBufferFile {
+    private static final byte VERSION = 1;
+
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_BOOLEAN = 2;
+    private static final byte VALUE_INTEGER = 3;
+    private static final byte VALUE_LONG = 4;
+    private static final byte VALUE_DECIMAL = 5;
+
+    private final Logger logger = LoggerFactory.getLogger(InfluxDBBufferFile.class);
+
+    private final Path file;
+
+    public InfluxDBBufferFile(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Writes the points to the file, replacing its previous content.
+     *
+     * @param points Points to keep
+     */
+    public void save(Collection<InfluxPoint> points) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            int skipped = 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                out.writeByte(VERSION);
+                for (InfluxPoint point : points) {
+                    if (isFinite(point.getValue())) {
+                        writePoint(out, point);
+                    } else {
+                        // InfluxDB doesn't accept NaN and infinite values either
+                        skipped++;
+                    }
+                }
+            }
+            if (skipped > 0) {
+                logger.warn("Skipped {} points with a value that is not a finite number", skipped);
+            }
+            logger.debug("Saved {} points to {}", points.size() - skipped, file);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Couldn't save {} points to {}: {}", points.size(), file, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the points which have been saved before and deletes the file.
+     *
+     * @return The saved points, empty if there are none
+     */
+    public List<InfluxPoint> load() {
+        List<InfluxPoint> points = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return points;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                logger.warn("Ignoring {} because of unknown version {}", file, version);
+            } else {
+                while (true) {
+                    try {
+                        points.add(readPoint(in));
+                    } catch (EOFException e) {
+                        break;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Couldn't read all points from {}: {}", file, e.getMessage());
+        }
+        try {
+            Files.delete(file);
+        } catch (IOException e) {
+            logger.warn("Couldn't delete {}: {}", file, e.getMessage());
+        }
+        logger.debug("Loaded {} points from {}", points.size(), file);
+        return points;
+    }
+
+    private static boolean isFinite(@Nullable Object value) {
+        if (value instanceof Double) {
+            return Double.isFinite((Double) value);
+        } else if (value instanceof Float) {
+            return Float.isFinite((Float) value);
+        }
+        return true;
+    }
+
+    private void writePoint(DataOutputStream out, InfluxPoint point) throws IOException {
+        writeString(out, point.getMeasurementName());
+        out.writeLong(point.getTime().toEpochMilli());
+        writeValue(out, point.getValue());
+        Map<String, String> tags = point.getTags();
+        out.writeInt(tags.size());
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            writeString(out, tag.getKey());
+            writeString(out, tag.getValue());
+        }
+    }
+
+    private InfluxPoint readPoint(DataInputStream in) throws IOException {
+        InfluxPoint.Builder builder = InfluxPoint.newBuilder(readString(in))
+                .withTime(Instant.ofEpochMilli(in.readLong())).withValue(readValue(in));
+        int tagCount = in.readInt();
+        for (int i = 0; i < tagCount; i++) {
+            builder.withTag(readString(in), readString(in));
+        }
+        return builder.build();
+    }
+
+    private void writeValue(DataOutputStream out, @Nullable Object value) throws IOException {
+        if (value instanceof String) {
+            out.writeByte(VALUE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(VALUE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(VALUE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(VALUE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Number) {
+            out.writeByte(VALUE_DECIMAL);
+            writeString(out, new BigDecimal(value.toString()).toString());
+        } else {
+            throw new UnnexpectedConditionException("Not expected value type");
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case VALUE_STRING:
+                return readString(in);
+            case VALUE_BOOLEAN:
+                return in.readBoolean();
+            case VALUE_INTEGER:
+                return in.readInt();
+            case VALUE_LONG:
+                return in.readLong();
+            case VALUE_DECIMAL:
+                return new BigDecimal(readString(in));
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -40,6 +40,12 @@ public class InfluxDBConfiguration {
     public static final String ADD_CATEGORY_TAG_PARAM = "addCategoryTag";
     public static final String ADD_LABEL_TAG_PARAM = "addLabelTag";
     public static final String ADD_TYPE_TAG_PARAM = "addTypeTag";
+    public static final String BATCH_SIZE_PARAM = "batchSize";
+    public static final String FLUSH_INTERVAL_PARAM = "flushInterval";
+    public static final String FLUSH_JITTER_PARAM = "flushJitter";
+    public static final String BUFFER_SIZE_PARAM = "bufferSize";
+    public static final String BUFFER_SPILL_PARAM = "bufferSpill";
+    public static final String QUERY_MAX_POINTS_PARAM = "queryMaxPoints";
     public static InfluxDBConfiguration NO_CONFIGURATION = new InfluxDBConfiguration(Collections.emptyMap());
     private final Logger logger = LoggerFactory.getLogger(InfluxDBConfiguration.class);
     private final String url;
@@ -55,6 +61,13 @@ public class InfluxDBConfiguration {
     private final boolean addTypeTag;
     private final boolean addLabelTag;
 
+    private final int batchSize;
+    private final int flushInterval;
+    private final int flushJitter;
+    private final int bufferSize;
+    private final boolean bufferSpill;
+    private final int queryMaxPoints;
+
     public InfluxDBConfiguration(Map<String, @Nullable Object> config) {
         url = (@NonNull String) config.getOrDefault(URL_PARAM, "http://127.0.0.1:8086");
         user = (@NonNull String) config.getOrDefault(USER_PARAM, "openhab");
@@ -68,6 +81,13 @@ public class InfluxDBConfiguration {
         addCategoryTag = getConfigBooleanValue(config, ADD_CATEGORY_TAG_PARAM, false);
         addLabelTag = getConfigBooleanValue(config, ADD_LABEL_TAG_PARAM, false);
         addTypeTag = getConfigBooleanValue(config, ADD_TYPE_TAG_PARAM, false);
+
+        batchSize = Math.max(1, getConfigIntValue(config, BATCH_SIZE_PARAM, 200));
+        flushInterval = Math.max(10, getConfigIntValue(config, FLUSH_INTERVAL_PARAM, 1000));
+        flushJitter = Math.max(0, getConfigIntValue(config, FLUSH_JITTER_PARAM, 0));
+        bufferSize = Math.max(batchSize, getConfigIntValue(config, BUFFER_SIZE_PARAM, 10000));
+        bufferSpill = getConfigBooleanValue(config, BUFFER_SPILL_PARAM, false);
+        queryMaxPoints = Math.max(0, getConfigIntValue(config, QUERY_MAX_POINTS_PARAM, 0));
     }
 
     private static boolean getConfigBooleanValue(Map<String, @Nullable Object> config, String key,
@@ -82,6 +102,20 @@ public class InfluxDBConfiguration {
         }
     }
 
+    private int getConfigIntValue(Map<String, @Nullable Object> config, String key, int defaultValue) {
+        Object object = config.get(key);
+        if (object instanceof Number) {
+            return ((Number) object).intValue();
+        } else if (object instanceof String && !((String) object).isBlank()) {
+            try {
+                return Integer.parseInt(((String) object).trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value {} for {}, using {}", object, key, defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
     private InfluxDBVersion parseInfluxVersion(@Nullable Object value) {
         try {
             return InfluxDBVersion.valueOf((String) value);
@@ -158,6 +192,30 @@ public class InfluxDBConfiguration {
         return addLabelTag;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getFlushInterval() {
+        return flushInterval;
+    }
+
+    public int getFlushJitter() {
+        return flushJitter;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public boolean isBufferSpill() {
+        return bufferSpill;
+    }
+
+    public int getQueryMaxPoints() {
+        return queryMaxPoints;
+    }
+
     public String getUser() {
         return user;
     }
@@ -176,7 +234,9 @@ public class InfluxDBConfiguration {
                 + password.length() + " chars" + '\'' + ", token='" + token.length() + " chars" + '\''
                 + ", databaseName='" + databaseName + '\'' + ", retentionPolicy='" + retentionPolicy + '\''
                 + ", version=" + version + ", replaceUnderscore=" + replaceUnderscore + ", addCategoryTag="
-                + addCategoryTag + ", addTypeTag=" + addTypeTag + ", addLabelTag=" + addLabelTag + '}';
+                + addCategoryTag + ", addTypeTag=" + addTypeTag + ", addLabelTag=" + addLabelTag + ", batchSize="
+                + batchSize + ", flushInterval=" + flushInterval + ", flushJitter=" + flushJitter + ", bufferSize="
+                + bufferSize + ", bufferSpill=" + bufferSpill + ", queryMaxPoints=" + queryMaxPoints + '}';
         return sb;
     }
 
@@ -12,6 +12,7 @@
  */
 package org.openhab.persistence.influxdb.internal;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -58,17 +59,19 @@ public interface InfluxDBRepository {
     Map<String, Integer> getStoredItemsCount();
 
     /**
-     * Executes Flux query
+     * Executes query and returns the result rows while they are received. The rows are only held until they are
+     * read, a reader which stops iterating lets the query be cancelled once its timeout passes.
      *
      * @param query Query
-     * @return Query results
+     * @return Iterator over the result rows, empty if the query failed
      */
-    List<InfluxRow> query(String query);
+    Iterator<InfluxRow> query(String query);
 
     /**
-     * Write point to database
+     * Write points to database in a single request
      *
-     * @param influxPoint Point to write
+     * @param influxPoints Points to write
+     * @return True if the points have been written, otherwise false
      */
-    void write(InfluxPoint influxPoint);
+    boolean write(List<InfluxPoint> influxPoints);
 }
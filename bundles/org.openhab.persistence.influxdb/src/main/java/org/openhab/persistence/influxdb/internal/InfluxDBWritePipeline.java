@@ -0,0 +1,249 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffers points and writes them in batches to the {@link InfluxDBRepository}.
+ *
+ * Points are flushed every flush interval (plus a random jitter) or as soon as a full batch is buffered. Points that
+ * cannot be written, because the repository isn't connected or the write fails, stay in the buffer and are retried
+ * with the next flush, after connecting the repository again. If the buffer is full the oldest points are dropped. Points which are still buffered when the
+ * pipeline is stopped are saved to the {@link InfluxDBBufferFile} if there is one.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBWritePipeline {
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+
+    private final Logger logger = LoggerFactory.getLogger(InfluxDBWritePipeline.class);
+
+    private final InfluxDBRepository repository;
+    private final @Nullable InfluxDBBufferFile bufferFile;
+    private final int batchSize;
+    private final int flushInterval;
+    private final int flushJitter;
+
+    private final LinkedBlockingDeque<InfluxPoint> buffer;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicBoolean dropLogged = new AtomicBoolean();
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile @Nullable ScheduledExecutorService executor;
+    private volatile boolean reconnectNeeded;
+
+    public InfluxDBWritePipeline(InfluxDBRepository repository, InfluxDBConfiguration configuration,
+            @Nullable InfluxDBBufferFile bufferFile) {
+        this.repository = repository;
+        this.bufferFile = bufferFile;
+        this.batchSize = configuration.getBatchSize();
+        this.flushInterval = configuration.getFlushInterval();
+        this.flushJitter = configuration.getFlushJitter();
+        this.buffer = new LinkedBlockingDeque<>(configuration.getBufferSize());
+    }
+
+    /**
+     * Loads the points saved by a previous run and starts flushing
+     */
+    public synchronized void start() {
+        InfluxDBBufferFile currentBufferFile = bufferFile;
+        if (currentBufferFile != null) {
+            currentBufferFile.load().forEach(this::enqueue);
+        }
+        ScheduledThreadPoolExecutor createdExecutor = new ScheduledThreadPoolExecutor(1,
+                new NamedThreadFactory("influxdb"));
+        // the next scheduled flush is not waited for when stopping, the pipeline flushes on its own
+        createdExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor = createdExecutor;
+        scheduleFlush(createdExecutor);
+    }
+
+    /**
+     * Stops flushing, tries to write the buffered points a last time and saves the rest
+     */
+    public synchronized void stop() {
+        ScheduledExecutorService currentExecutor = executor;
+        executor = null;
+        if (currentExecutor != null) {
+            // let a running write finish instead of interrupting it
+            currentExecutor.shutdown();
+            try {
+                if (!currentExecutor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    logger.warn("Timeout waiting for the last write to finish");
+                    currentExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                currentExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        if (!buffer.isEmpty()) {
+            List<InfluxPoint> remaining = new ArrayList<>(buffer.size());
+            buffer.drainTo(remaining);
+            InfluxDBBufferFile currentBufferFile = bufferFile;
+            if (currentBufferFile != null) {
+                currentBufferFile.save(remaining);
+            } else {
+                dropped.addAndGet(remaining.size());
+                logger.warn("{} points couldn't be written to InfluxDB and are lost", remaining.size());
+            }
+        }
+        logger.debug("InfluxDB write pipeline stopped: {}", this);
+    }
+
+    /**
+     * Adds a point to the buffer. If the buffer is full the oldest point is dropped.
+     *
+     * @param point Point to write
+     */
+    public void add(InfluxPoint point) {
+        enqueue(point);
+        if (buffer.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            ScheduledExecutorService currentExecutor = executor;
+            try {
+                if (currentExecutor != null) {
+                    currentExecutor.execute(this::flush);
+                }
+            } catch (RejectedExecutionException e) {
+                // the pipeline is being stopped and flushes on its own
+            }
+        }
+    }
+
+    private void enqueue(InfluxPoint point) {
+        while (!buffer.offerLast(point)) {
+            if (buffer.pollFirst() != null) {
+                dropped.incrementAndGet();
+                if (dropLogged.compareAndSet(false, true)) {
+                    logger.warn("InfluxDB write buffer is full, dropping the oldest points");
+                }
+            }
+        }
+        queued.incrementAndGet();
+    }
+
+    /**
+     * Writes the buffered points in batches
+     *
+     * @return True if the buffer has been written completely, otherwise false
+     */
+    boolean flush() { // Visible for testing
+        flushRequested.set(false);
+        List<InfluxPoint> batch = new ArrayList<>(batchSize);
+        while (!buffer.isEmpty()) {
+            if ((reconnectNeeded || !repository.isConnected()) && !reconnect()) {
+                logger.debug("InfluxDB isn't connected, keeping {} points buffered", buffer.size());
+                return false;
+            }
+            buffer.drainTo(batch, batchSize);
+            boolean success;
+            try {
+                success = repository.write(batch);
+            } catch (RuntimeException e) {
+                logger.warn("Writing {} points failed: {}", batch.size(), e.getMessage());
+                success = false;
+            }
+            if (!success) {
+                requeue(batch);
+                // the connection may be broken, connect again before the retry
+                reconnectNeeded = true;
+                return false;
+            }
+            written.addAndGet(batch.size());
+            batch.clear();
+            dropLogged.set(false);
+        }
+        return true;
+    }
+
+    private boolean reconnect() {
+        try {
+            repository.disconnect();
+            reconnectNeeded = !repository.connect();
+        } catch (RuntimeException e) {
+            logger.debug("Connecting to InfluxDB failed: {}", e.getMessage());
+            reconnectNeeded = true;
+        }
+        return !reconnectNeeded;
+    }
+
+    private void requeue(List<InfluxPoint> batch) {
+        // restore the original order at the head of the buffer, if new points filled it up in the meantime the
+        // oldest points of the batch are dropped
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            if (!buffer.offerFirst(batch.get(i))) {
+                dropped.addAndGet(i + 1);
+                logger.warn("InfluxDB write buffer is full, dropping {} points", i + 1);
+                break;
+            }
+        }
+    }
+
+    private void scheduleFlush(ScheduledExecutorService currentExecutor) {
+        long delay = flushInterval + (flushJitter > 0 ? ThreadLocalRandom.current().nextInt(flushJitter + 1) : 0);
+        try {
+            currentExecutor.schedule(() -> {
+                try {
+                    flush();
+                } finally {
+                    scheduleFlush(currentExecutor);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the pipeline has been stopped
+        }
+    }
+
+    public long getQueuedCount() {
+        return queued.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+
+    @Override
+    public String toString() {
+        return "queued = " + queued.get() + ", written = " + written.get() + ", dropped = " + dropped.get()
+                + ", buffered = " + buffer.size();
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands the rows of a streamed query from the client callbacks over to the thread which iterates the result, so that
+ * the rows are processed while the response is still being received.
+ *
+ * The queue is bounded: the client callbacks wait while it is full, so at most its capacity of rows is held between
+ * the client and the reader. If the reader doesn't take a row within the timeout, e.g. because it stopped iterating,
+ * the remaining rows are discarded and the client is told to stop.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxRowQueue implements Iterator<InfluxRow> {
+    private static final InfluxRow END = new InfluxRow(Instant.EPOCH, "", "");
+
+    private final Logger logger = LoggerFactory.getLogger(InfluxRowQueue.class);
+
+    private final String query;
+    private final BlockingQueue<InfluxRow> rows;
+    private final long timeout;
+    private final TimeUnit unit;
+    private volatile boolean closed;
+    private volatile @Nullable Throwable failure;
+    private @Nullable InfluxRow next;
+
+    /**
+     * @param query Query the rows belong to, used for logging
+     * @param capacity Maximum number of rows held in the queue
+     * @param timeout Maximum time to wait for the next row, and for space in the queue
+     * @param unit Unit of the timeout
+     */
+    public InfluxRowQueue(String query, int capacity, long timeout, TimeUnit unit) {
+        this.query = query;
+        this.rows = new ArrayBlockingQueue<>(capacity);
+        this.timeout = timeout;
+        this.unit = unit;
+    }
+
+    /**
+     * Adds a received row, waiting while the queue is full
+     *
+     * @param row Row to add
+     * @return False if the reader is gone and the query should be cancelled, otherwise true
+     */
+    public boolean add(InfluxRow row) {
+        return put(row);
+    }
+
+    /**
+     * Marks the query as complete
+     */
+    public void complete() {
+        put(END);
+    }
+
+    /**
+     * Marks the query as failed
+     *
+     * @param throwable Cause of the failure
+     */
+    public void fail(Throwable throwable) {
+        failure = throwable;
+        put(END);
+    }
+
+    private boolean put(InfluxRow row) {
+        try {
+            if (!closed && !rows.offer(row, timeout, unit)) {
+                logger.debug("Discarding the rest of query {}, its result is not read", query);
+                close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+        }
+        return !closed;
+    }
+
+    /**
+     * Stops reading the result, rows received afterwards are discarded
+     */
+    public void close() {
+        closed = true;
+        rows.clear();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        } else if (closed) {
+            return false;
+        }
+        try {
+            InfluxRow row = rows.poll(timeout, unit);
+            if (row == null) {
+                logger.warn("Query {} failed: timeout waiting for the query result", query);
+                close();
+            } else if (row == END) {
+                Throwable currentFailure = failure;
+                if (currentFailure != null) {
+                    logger.warn("Query {} failed: {}", query, currentFailure.getMessage());
+                }
+                close();
+            } else {
+                next = row;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Query {} failed: interrupted waiting for the query result", query);
+            close();
+        }
+        return next != null;
+    }
+
+    @Override
+    public InfluxRow next() {
+        InfluxRow row = hasNext() ? next : null;
+        if (row == null) {
+            throw new NoSuchElementException();
+        }
+        next = null;
+        return row;
+    }
+}
@@ -13,10 +13,14 @@
 package org.openhab.persistence.influxdb.internal.influx1;
 
 import static org.influxdb.querybuilder.BuiltQuery.QueryBuilder.*;
+import static org.influxdb.querybuilder.time.DurationLiteral.SECOND;
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.*;
 import static org.openhab.persistence.influxdb.internal.InfluxDBStateConvertUtils.stateToObject;
 
+import java.time.Duration;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 import org.influxdb.dto.Query;
 import org.influxdb.querybuilder.Appender;
 import org.influxdb.querybuilder.BuiltQuery;
@@ -36,7 +40,7 @@ import org.openhab.persistence.influxdb.internal.InfluxDBVersion;
 public class Influx1FilterCriteriaQueryCreatorImpl implements FilterCriteriaQueryCreator {
 
     @Override
-    public String createQuery(FilterCriteria criteria, String retentionPolicy) {
+    public String createQuery(FilterCriteria criteria, String retentionPolicy, @Nullable Duration downsampleInterval) {
         final String tableName;
         boolean hasCriteriaName = criteria.getItemName() != null;
         if (hasCriteriaName) {
@@ -45,8 +49,14 @@ public class Influx1FilterCriteriaQueryCreatorImpl implements FilterCriteriaQuer
             tableName = "/.*/";
         }
 
-        Select select = select(COLUMN_VALUE_NAME_V1).fromRaw(null,
-                fullQualifiedTableName(retentionPolicy, tableName, hasCriteriaName));
+        Select select;
+        if (downsampleInterval != null) {
+            select = select().mean(COLUMN_VALUE_NAME_V1).as(COLUMN_VALUE_NAME_V1).fromRaw(null,
+                    fullQualifiedTableName(retentionPolicy, tableName, hasCriteriaName));
+        } else {
+            select = select(COLUMN_VALUE_NAME_V1).fromRaw(null,
+                    fullQualifiedTableName(retentionPolicy, tableName, hasCriteriaName));
+        }
 
         Where where = select.where();
         if (criteria.getBeginDate() != null) {
@@ -64,6 +74,10 @@ public class Influx1FilterCriteriaQueryCreatorImpl implements FilterCriteriaQuer
                     stateToObject(criteria.getState())));
         }
 
+        if (downsampleInterval != null) {
+            select = where.groupBy(time(downsampleInterval.getSeconds(), SECOND));
+        }
+
         if (criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING) {
             select = select.orderBy(desc());
         } else if (criteria.getOrdering() == FilterCriteria.Ordering.ASCENDING) {
@@ -17,16 +17,18 @@ import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.COLUMN
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.FIELD_VALUE_NAME;
 
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.influxdb.InfluxDB;
 import org.influxdb.InfluxDBFactory;
+import org.influxdb.dto.BatchPoints;
 import org.influxdb.dto.Point;
 import org.influxdb.dto.Pong;
 import org.influxdb.dto.Query;
@@ -35,6 +37,7 @@ import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
+import org.openhab.persistence.influxdb.internal.InfluxRowQueue;
 import org.openhab.persistence.influxdb.internal.UnnexpectedConditionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,6 +50,12 @@ import org.slf4j.LoggerFactory;
  */
 @NonNullByDefault
 public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
+    private static final int QUERY_CHUNK_SIZE = 10000;
+    private static final long QUERY_TIMEOUT_SECONDS = 60;
+    private static final int QUERY_QUEUE_CAPACITY = 1000;
+    // error set by the client on the last chunk of a chunked query
+    private static final String CHUNKED_QUERY_DONE = "DONE";
+
     private final Logger logger = LoggerFactory.getLogger(InfluxDB1RepositoryImpl.class);
     private InfluxDBConfiguration configuration;
     @Nullable
@@ -67,7 +76,6 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
                 configuration.getPassword());
         createdClient.setDatabase(configuration.getDatabaseName());
         createdClient.setRetentionPolicy(configuration.getRetentionPolicy());
-        createdClient.enableBatch(200, 100, TimeUnit.MILLISECONDS);
         this.client = createdClient;
         return checkConnectionStatus();
     }
@@ -110,13 +118,28 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
     }
 
     @Override
-    public void write(InfluxPoint point) {
+    public boolean write(List<InfluxPoint> points) {
         final InfluxDB currentClient = this.client;
         if (currentClient != null) {
-            Point clientPoint = convertPointToClientFormat(point);
-            currentClient.write(configuration.getDatabaseName(), configuration.getRetentionPolicy(), clientPoint);
+            BatchPoints.Builder batchPoints = BatchPoints.database(configuration.getDatabaseName())
+                    .retentionPolicy(configuration.getRetentionPolicy());
+            for (InfluxPoint point : points) {
+                try {
+                    batchPoints.point(convertPointToClientFormat(point));
+                } catch (UnnexpectedConditionException e) {
+                    logger.warn("Ignoring point {}: {}", point, e.getMessage());
+                }
+            }
+            try {
+                currentClient.write(batchPoints.build());
+                return true;
+            } catch (RuntimeException e) {
+                logger.warn("Writing {} points failed: {}", points.size(), e.getMessage());
+                return false;
+            }
         } else {
-            logger.warn("Write point {} ignored due to client isn't connected", point);
+            logger.debug("Write of {} points deferred due to client isn't connected", points.size());
+            return false;
         }
     }
 
@@ -143,20 +166,39 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
     }
 
     @Override
-    public List<InfluxRow> query(String query) {
+    public Iterator<InfluxRow> query(String query) {
         final InfluxDB currentClient = client;
         if (currentClient != null) {
             Query parsedQuery = new Query(query, configuration.getDatabaseName());
-            List<QueryResult.Result> results = currentClient.query(parsedQuery, TimeUnit.MILLISECONDS).getResults();
-            return convertClientResutToRepository(results);
+            InfluxRowQueue rows = new InfluxRowQueue(query, QUERY_QUEUE_CAPACITY, QUERY_TIMEOUT_SECONDS,
+                    TimeUnit.SECONDS);
+            currentClient.query(parsedQuery, QUERY_CHUNK_SIZE, result -> {
+                String error = result.getError();
+                if (error == null) {
+                    try {
+                        convertClientResultToRepository(result, rows::add);
+                    } catch (RuntimeException e) {
+                        rows.fail(e);
+                    }
+                } else if (CHUNKED_QUERY_DONE.equals(error)) {
+                    rows.complete();
+                } else {
+                    rows.fail(new UnnexpectedConditionException(error));
+                }
+            }, rows::complete);
+            return rows;
         } else {
-            logger.warn("Returning empty list because queryAPI isn't present");
-            return Collections.emptyList();
+            logger.warn("Returning empty result because client isn't connected");
+            return Collections.emptyIterator();
         }
     }
 
-    private List<InfluxRow> convertClientResutToRepository(List<QueryResult.Result> results) {
-        List<InfluxRow> rows = new ArrayList<>();
+    private void convertClientResultToRepository(QueryResult queryResult, Consumer<InfluxRow> rowConsumer) {
+        List<QueryResult.Result> results = queryResult.getResults();
+        if (results == null) {
+            logger.debug("query returned no results");
+            return;
+        }
         for (QueryResult.Result result : results) {
             List<QueryResult.Series> seriess = result.getSeries();
             if (result.getError() != null) {
@@ -190,18 +232,29 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
                                 throw new IllegalStateException("missing column");
                             }
                             for (int i = 0; i < valuess.size(); i++) {
-                                Double rawTime = (Double) valuess.get(i).get(timestampColumn);
-                                Instant time = Instant.ofEpochMilli(rawTime.longValue());
+                                Instant time = parseTime(valuess.get(i).get(timestampColumn));
                                 Object value = valuess.get(i).get(valueColumn);
+                                if (value == null) {
+                                    // empty interval of a downsampled query
+                                    continue;
+                                }
                                 logger.trace("adding historic item {}: time {} value {}", itemName, time, value);
-                                rows.add(new InfluxRow(time, itemName, value));
+                                rowConsumer.accept(new InfluxRow(time, itemName, value));
                             }
                         }
                     }
                 }
             }
         }
-        return rows;
+    }
+
+    private Instant parseTime(Object rawTime) {
+        // chunked queries return the time as RFC3339 string, otherwise it's returned in the requested epoch unit
+        if (rawTime instanceof String) {
+            return Instant.parse((String) rawTime);
+        } else {
+            return Instant.ofEpochMilli(((Number) rawTime).longValue());
+        }
     }
 
     @Override
@@ -16,9 +16,11 @@ import static com.influxdb.query.dsl.functions.restriction.Restrictions.measurem
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.*;
 import static org.openhab.persistence.influxdb.internal.InfluxDBStateConvertUtils.stateToObject;
 
+import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
 import org.openhab.persistence.influxdb.internal.InfluxDBVersion;
@@ -35,7 +37,7 @@ import com.influxdb.query.dsl.functions.restriction.Restrictions;
 @NonNullByDefault
 public class Influx2FilterCriteriaQueryCreatorImpl implements FilterCriteriaQueryCreator {
     @Override
-    public String createQuery(FilterCriteria criteria, String retentionPolicy) {
+    public String createQuery(FilterCriteria criteria, String retentionPolicy, @Nullable Duration downsampleInterval) {
         Flux flux = Flux.from(retentionPolicy);
 
         if (criteria.getBeginDate() != null || criteria.getEndDate() != null) {
@@ -62,6 +64,11 @@ public class Influx2FilterCriteriaQueryCreatorImpl implements FilterCriteriaQuer
             flux = flux.filter(restrictions);
         }
 
+        if (downsampleInterval != null) {
+            flux = flux.aggregateWindow(downsampleInterval.getSeconds(), ChronoUnit.SECONDS, "mean")
+                    .withPropertyValue("createEmpty", false);
+        }
+
         if (criteria.getOrdering() != null) {
             boolean desc = criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING;
             flux = flux.sort().withDesc(desc).withColumns(new String[] { COLUMN_TIME_NAME_V2 });
@@ -15,12 +15,13 @@ package org.openhab.persistence.influxdb.internal.influx2;
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.*;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -29,6 +30,7 @@ import org.openhab.persistence.influxdb.internal.InfluxDBConstants;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
+import org.openhab.persistence.influxdb.internal.InfluxRowQueue;
 import org.openhab.persistence.influxdb.internal.UnnexpectedConditionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +39,7 @@ import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.InfluxDBClientFactory;
 import com.influxdb.client.InfluxDBClientOptions;
 import com.influxdb.client.QueryApi;
-import com.influxdb.client.WriteApi;
+import com.influxdb.client.WriteApiBlocking;
 import com.influxdb.client.domain.Ready;
 import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
@@ -50,6 +52,9 @@ import com.influxdb.query.FluxTable;
  */
 @NonNullByDefault
 public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
+    private static final long QUERY_TIMEOUT_SECONDS = 60;
+    private static final int QUERY_QUEUE_CAPACITY = 1000;
+
     private final Logger logger = LoggerFactory.getLogger(InfluxDB2RepositoryImpl.class);
     private InfluxDBConfiguration configuration;
     @Nullable
@@ -57,7 +62,7 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
     @Nullable
     private QueryApi queryAPI;
     @Nullable
-    private WriteApi writeAPI;
+    private WriteApiBlocking writeAPI;
 
     public InfluxDB2RepositoryImpl(InfluxDBConfiguration configuration) {
         this.configuration = configuration;
@@ -94,7 +99,7 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
         this.client = createdClient;
         logger.debug("Succesfully connected to InfluxDB. Instance ready={}", createdClient.ready());
         queryAPI = createdClient.getQueryApi();
-        writeAPI = createdClient.getWriteApi();
+        writeAPI = createdClient.getWriteApiBlocking();
         return checkConnectionStatus();
     }
 
@@ -107,6 +112,8 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
         if (currentClient != null) {
             currentClient.close();
         }
+        this.queryAPI = null;
+        this.writeAPI = null;
         this.client = null;
     }
 
@@ -134,17 +141,33 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
     }
 
     /**
-     * Write point to database
+     * Write points to database in a single request
      *
-     * @param point
+     * @param points Points to write
+     * @return True if the points have been written, otherwise false
      */
     @Override
-    public void write(InfluxPoint point) {
-        final WriteApi currentWriteAPI = writeAPI;
+    public boolean write(List<InfluxPoint> points) {
+        final WriteApiBlocking currentWriteAPI = writeAPI;
         if (currentWriteAPI != null) {
-            currentWriteAPI.writePoint(convertPointToClientFormat(point));
+            List<Point> clientPoints = new ArrayList<>(points.size());
+            for (InfluxPoint point : points) {
+                try {
+                    clientPoints.add(convertPointToClientFormat(point));
+                } catch (UnnexpectedConditionException e) {
+                    logger.warn("Ignoring point {}: {}", point, e.getMessage());
+                }
+            }
+            try {
+                currentWriteAPI.writePoints(clientPoints);
+                return true;
+            } catch (RuntimeException e) {
+                logger.warn("Writing {} points failed: {}", points.size(), e.getMessage());
+                return false;
+            }
         } else {
-            logger.warn("Write point {} ignored due to writeAPI isn't present", point);
+            logger.debug("Write of {} points deferred due to writeAPI isn't present", points.size());
+            return false;
         }
     }
 
@@ -170,36 +193,34 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
     }
 
     /**
-     * Executes Flux query
+     * Executes Flux query and returns the result rows while they are received
      *
      * @param query Query
-     * @return Query results
+     * @return Iterator over the result rows, empty if the query failed
      */
     @Override
-    public List<InfluxRow> query(String query) {
+    public Iterator<InfluxRow> query(String query) {
         final QueryApi currentQueryAPI = queryAPI;
         if (currentQueryAPI != null) {
-            List<FluxTable> clientResult = currentQueryAPI.query(query);
-            return convertClientResutToRepository(clientResult);
+            InfluxRowQueue rows = new InfluxRowQueue(query, QUERY_QUEUE_CAPACITY, QUERY_TIMEOUT_SECONDS,
+                    TimeUnit.SECONDS);
+            currentQueryAPI.query(query, (cancellable, record) -> {
+                Object value = record.getValueByKey(COLUMN_VALUE_NAME_V2);
+                if (value != null) {
+                    String itemName = (String) record.getValueByKey(InfluxDBConstants.TAG_ITEM_NAME);
+                    Instant time = (Instant) record.getValueByKey(COLUMN_TIME_NAME_V2);
+                    if (!rows.add(new InfluxRow(time, itemName, value))) {
+                        cancellable.cancel();
+                    }
+                }
+            }, rows::fail, rows::complete);
+            return rows;
         } else {
-            logger.warn("Returning empty list because queryAPI isn't present");
-            return Collections.emptyList();
+            logger.warn("Returning empty result because queryAPI isn't present");
+            return Collections.emptyIterator();
         }
     }
 
-    private List<InfluxRow> convertClientResutToRepository(List<FluxTable> clientResult) {
-        return clientResult.stream().flatMap(this::mapRawResultToHistoric).collect(Collectors.toList());
-    }
-
-    private Stream<InfluxRow> mapRawResultToHistoric(FluxTable rawRow) {
-        return rawRow.getRecords().stream().map(r -> {
-            String itemName = (String) r.getValueByKey(InfluxDBConstants.TAG_ITEM_NAME);
-            Object value = r.getValueByKey(COLUMN_VALUE_NAME_V2);
-            Instant time = (Instant) r.getValueByKey(COLUMN_TIME_NAME_V2);
-            return new InfluxRow(time, itemName, value);
-        });
-    }
-
     /**
      * Return all stored item names with it's count of stored points
      *
@@ -12,10 +12,17 @@
  */
 package org.openhab.persistence.influxdb.internal;
 
-import static org.mockito.ArgumentMatchers.any;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.jdt.annotation.DefaultLocation;
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -28,6 +35,10 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.openhab.core.items.ItemRegistry;
 import org.openhab.core.items.MetadataRegistry;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.core.types.State;
 import org.openhab.persistence.influxdb.InfluxDBPersistenceService;
 
 /**
@@ -39,13 +50,14 @@ public class InfluxDBPersistenceServiceTest {
     private InfluxDBPersistenceService instance;
 
     private @Mock InfluxDBRepository influxDBRepository;
+    private @Mock ItemRegistry itemRegistry;
 
     private Map<String, @Nullable Object> validConfig;
     private Map<String, @Nullable Object> invalidConfig;
 
     @BeforeEach
     public void before() {
-        instance = new InfluxDBPersistenceService(mock(ItemRegistry.class), mock(MetadataRegistry.class)) {
+        instance = new InfluxDBPersistenceService(itemRegistry, mock(MetadataRegistry.class)) {
             @Override
             protected InfluxDBRepository createInfluxDBRepository() {
                 return influxDBRepository;
@@ -58,10 +70,12 @@ public class InfluxDBPersistenceServiceTest {
 
     @AfterEach
     public void after() {
+        instance.deactivate();
         validConfig = null;
         invalidConfig = null;
         instance = null;
         influxDBRepository = null;
+        itemRegistry = null;
     }
 
     @Test
@@ -93,15 +107,45 @@ public class InfluxDBPersistenceServiceTest {
     public void storeItemWithConnectedRepository() {
         instance.activate(validConfig);
         when(influxDBRepository.isConnected()).thenReturn(true);
+        when(influxDBRepository.write(anyList())).thenReturn(true);
         instance.store(ItemTestHelper.createNumberItem("number", 5));
-        verify(influxDBRepository).write(any());
+        verify(influxDBRepository, timeout(5000)).write(anyList());
     }
 
     @Test
-    public void storeItemWithDisconnectedRepositoryIsIgnored() {
+    public void storeItemWithDisconnectedRepositoryIsBuffered() {
         instance.activate(validConfig);
-        when(influxDBRepository.isConnected()).thenReturn(false);
+        AtomicBoolean connected = new AtomicBoolean(false);
+        when(influxDBRepository.isConnected()).thenAnswer(invocation -> connected.get());
+        when(influxDBRepository.write(anyList())).thenReturn(true);
         instance.store(ItemTestHelper.createNumberItem("number", 5));
-        verify(influxDBRepository, never()).write(any());
+        verify(influxDBRepository, timeout(5000)).isConnected();
+        verify(influxDBRepository, never()).write(anyList());
+
+        connected.set(true);
+        verify(influxDBRepository, timeout(5000)).write(anyList());
+    }
+
+    @Test
+    public void queryShouldResolveItemOnce() {
+        instance.activate(validConfig);
+        when(influxDBRepository.isConnected()).thenReturn(true);
+        when(itemRegistry.get("number")).thenReturn(ItemTestHelper.createNumberItem("number", 5));
+        when(influxDBRepository.query(anyString()))
+                .thenAnswer(invocation -> List.of(new InfluxRow(Instant.ofEpochMilli(1000), "number", 1.5),
+                        new InfluxRow(Instant.ofEpochMilli(2000), "number", 2.5)).iterator());
+
+        FilterCriteria filter = new FilterCriteria();
+        filter.setItemName("number");
+        Iterable<HistoricItem> results = instance.query(filter);
+        // the query runs when the result is iterated
+        verify(influxDBRepository, never()).query(anyString());
+
+        List<HistoricItem> result = new ArrayList<>();
+        results.forEach(result::add);
+
+        assertThat(result.size(), is(2));
+        assertThat(result.get(1).getState(), is((State) new DecimalType(2.5)));
+        verify(itemRegistry, times(1)).get("number");
     }
 }
@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class InfluxDBWritePipelineTest {
+    private @Mock InfluxDBRepository influxDBRepository;
+
+    private InfluxDBConfiguration configuration;
+
+    @BeforeEach
+    public void before() {
+        Map<String, @Nullable Object> config = ConfigurationTestHelper.createValidConfigurationParameters();
+        config.put(InfluxDBConfiguration.BATCH_SIZE_PARAM, 2);
+        config.put(InfluxDBConfiguration.BUFFER_SIZE_PARAM, "3");
+        configuration = new InfluxDBConfiguration(config);
+    }
+
+    @Test
+    public void flushShouldWriteInBatches() {
+        List<List<InfluxPoint>> batches = new ArrayList<>();
+        when(influxDBRepository.isConnected()).thenReturn(true);
+        when(influxDBRepository.write(anyList())).thenAnswer(invocation -> {
+            List<InfluxPoint> points = invocation.getArgument(0);
+            batches.add(new ArrayList<>(points));
+            return true;
+        });
+        InfluxDBWritePipeline instance = new InfluxDBWritePipeline(influxDBRepository, configuration, null);
+
+        instance.add(point("a", 1));
+        instance.add(point("b", 2));
+        instance.add(point("c", 3));
+
+        assertThat(instance.flush(), is(true));
+        assertThat(batches.size(), is(2));
+        assertThat(batches.get(0).size(), is(2));
+        assertThat(batches.get(1).get(0).getMeasurementName(), is("c"));
+        assertThat(instance.getWrittenCount(), is(3L));
+        assertThat(instance.getBufferedCount(), is(0));
+    }
+
+    @Test
+    public void failedWriteShouldKeepPointsInOrder() {
+        when(influxDBRepository.isConnected()).thenReturn(true);
+        when(influxDBRepository.write(anyList())).thenReturn(false);
+        InfluxDBWritePipeline instance = new InfluxDBWritePipeline(influxDBRepository, configuration, null);
+
+        instance.add(point("a", 1));
+        instance.add(point("b", 2));
+
+        assertThat(instance.flush(), is(false));
+        assertThat(instance.getBufferedCount(), is(2));
+
+        List<String> written = new ArrayList<>();
+        when(influxDBRepository.connect()).thenReturn(true);
+        when(influxDBRepository.write(anyList())).thenAnswer(invocation -> {
+            List<InfluxPoint> points = invocation.getArgument(0);
+            points.forEach(p -> written.add(p.getMeasurementName()));
+            return true;
+        });
+        assertThat(instance.flush(), is(true));
+        assertThat(written, contains("a", "b"));
+        assertThat(instance.getDroppedCount(), is(0L));
+    }
+
+    @Test
+    public void failedWriteShouldReconnectBeforeRetry() {
+        when(influxDBRepository.isConnected()).thenReturn(true);
+        when(influxDBRepository.write(anyList())).thenReturn(false);
+        InfluxDBWritePipeline instance = new InfluxDBWritePipeline(influxDBRepository, configuration, null);
+
+        instance.add(point("a", 1));
+        assertThat(instance.flush(), is(false));
+        verify(influxDBRepository, never()).connect();
+
+        // the connection can't be established yet, the point is not written
+        assertThat(instance.flush(), is(false));
+        verify(influxDBRepository, times(1)).write(anyList());
+
+        when(influxDBRepository.connect()).thenReturn(true);
+        when(influxDBRepository.write(anyList())).thenReturn(true);
+        assertThat(instance.flush(), is(true));
+        InOrder inOrder = inOrder(influxDBRepository);
+        inOrder.verify(influxDBRepository).disconnect();
+        inOrder.verify(influxDBRepository).connect();
+        verify(influxDBRepository, times(2)).write(anyList());
+
+        // the connection is only renewed after a failure
+        instance.add(point("b", 2));
+        assertThat(instance.flush(), is(true));
+        verify(influxDBRepository, times(2)).connect();
+    }
+
+    @Test
+    public void disconnectedRepositoryShouldNotBeWritten() {
+        when(influxDBRepository.isConnected()).thenReturn(false);
+        InfluxDBWritePipeline instance = new InfluxDBWritePipeline(influxDBRepository, configuration, null);
+
+        instance.add(point("a", 1));
+
+        assertThat(instance.flush(), is(false));
+        verify(influxDBRepository, never()).write(anyList());
+        assertThat(instance.getBufferedCount(), is(1));
+    }
+
+    @Test
+    public void fullBufferShouldDropOldestPoints() {
+        InfluxDBWritePipeline instance = new InfluxDBWritePipeline(influxDBRepository, configuration, null);
+
+        for (int i = 0; i < 5; i++) {
+            instance.add(point("p" + i, i));
+        }
+
+        assertThat(instance.getQueuedCount(), is(5L));
+        assertThat(instance.getDroppedCount(), is(2L));
+        assertThat(instance.getBufferedCount(), is(3));
+    }
+
+    @Test
+    public void bufferFileShouldKeepPointsUntilNextStart(@TempDir Path tempDir) {
+        InfluxDBBufferFile bufferFile = new InfluxDBBufferFile(tempDir.resolve("buffer.dat"));
+        when(influxDBRepository.isConnected()).thenReturn(false);
+        InfluxDBWritePipeline instance = new InfluxDBWritePipeline(influxDBRepository, configuration, bufferFile);
+        instance.start();
+        instance.add(InfluxPoint.newBuilder("a").withTime(Instant.ofEpochMilli(1000)).withValue("on")
+                .withTag("item", "a").build());
+        instance.add(point("b", 2));
+        instance.stop();
+
+        List<InfluxPoint> points = bufferFile.load();
+        assertThat(points.size(), is(2));
+        assertThat(points.get(0).getMeasurementName(), is("a"));
+        assertThat(points.get(0).getTime(), is(Instant.ofEpochMilli(1000)));
+        assertThat(points.get(0).getValue(), is((Object) "on"));
+        assertThat(points.get(0).getTags(), hasEntry("item", "a"));
+        assertThat(points.get(1).getValue(), is((Object) new BigDecimal("2")));
+        assertThat(bufferFile.load(), is(empty()));
+    }
+
+    @Test
+    public void bufferFileShouldSkipNonFiniteValues(@TempDir Path tempDir) {
+        InfluxDBBufferFile bufferFile = new InfluxDBBufferFile(tempDir.resolve("buffer.dat"));
+        bufferFile.save(List.of(InfluxPoint.newBuilder("a").withTime(Instant.now()).withValue(Double.NaN).build(),
+                InfluxPoint.newBuilder("b").withTime(Instant.now()).withValue(1.5).build(),
+                InfluxPoint.newBuilder("c").withTime(Instant.now()).withValue(Double.POSITIVE_INFINITY).build()));
+
+        List<InfluxPoint> points = bufferFile.load();
+        assertThat(points.size(), is(1));
+        assertThat(points.get(0).getMeasurementName(), is("b"));
+        assertThat(points.get(0).getValue(), is((Object) new BigDecimal("1.5")));
+    }
+
+    private InfluxPoint point(String name, int value) {
+        return InfluxPoint.newBuilder(name).withTime(Instant.now()).withValue(new BigDecimal(value)).build();
+    }
+}
@@ -14,7 +14,11 @@ package org.openhab.persistence.influxdb.internal;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.containsStringIgnoringCase;
+import static org.hamcrest.Matchers.endsWith;
 
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -159,6 +163,23 @@ public class InfluxFilterCriteriaQueryCreatorImplTest {
                         + "|> sort(desc:false, columns:[\"_time\"])"));
     }
 
+    @Test
+    public void testDownsampling() {
+        FilterCriteria criteria = createBaseCriteria();
+        ZonedDateTime now = ZonedDateTime.now();
+        criteria.setBeginDate(now.minus(30, ChronoUnit.DAYS));
+        criteria.setEndDate(now);
+
+        String queryV1 = instanceV1.createQuery(criteria, RETENTION_POLICY, Duration.ofHours(1));
+        assertThat(queryV1, containsStringIgnoringCase("SELECT MEAN(value) AS value FROM origin.sampleItem WHERE"));
+        assertThat(queryV1, endsWith("GROUP BY time(3600s);"));
+
+        String queryV2 = instanceV2.createQuery(criteria, RETENTION_POLICY, Duration.ofHours(1));
+        assertThat(queryV2, containsString("|> filter(fn: (r) => r[\"_measurement\"] == \"sampleItem\")\n\t"
+                + "|> aggregateWindow(every:3600s, fn:mean"));
+        assertThat(queryV2, containsString("createEmpty:false"));
+    }
+
     private FilterCriteria createBaseCriteria() {
         return createBaseCriteria(ITEM_NAME);
     }
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxRowQueueTest {
+
+    private static InfluxRow row(int value) {
+        return new InfluxRow(Instant.ofEpochMilli(value), "item", value);
+    }
+
+    private static List<Object> values(InfluxRowQueue rows) {
+        List<Object> values = new ArrayList<>();
+        rows.forEachRemaining(row -> values.add(row.getValue()));
+        return values;
+    }
+
+    @Test
+    public void rowsAreReadWhileTheyAreReceived() throws InterruptedException {
+        InfluxRowQueue rows = new InfluxRowQueue("query", 2, 5, TimeUnit.SECONDS);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                rows.add(row(i));
+            }
+            rows.complete();
+        });
+        producer.start();
+
+        // the producer can only get ahead by the capacity of the queue
+        assertThat(values(rows), contains(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+        producer.join(5000);
+        assertThat(producer.isAlive(), is(false));
+    }
+
+    @Test
+    public void failureEndsTheRows() {
+        InfluxRowQueue rows = new InfluxRowQueue("query", 2, 5, TimeUnit.SECONDS);
+        rows.add(row(1));
+        rows.fail(new IllegalStateException("failed"));
+
+        assertThat(values(rows), contains(1));
+        assertThat(rows.hasNext(), is(false));
+    }
+
+    @Test
+    public void rowsAreDiscardedWhenTheyAreNotRead() {
+        InfluxRowQueue rows = new InfluxRowQueue("query", 1, 100, TimeUnit.MILLISECONDS);
+        assertThat(rows.add(row(1)), is(true));
+        // the queue is full and nobody reads it
+        assertThat(rows.add(row(2)), is(false));
+        assertThat(rows.add(row(3)), is(false));
+
+        assertThat(rows.hasNext(), is(false));
+    }
+
+    @Test
+    public void closedQueueDiscardsRows() {
+        InfluxRowQueue rows = new InfluxRowQueue("query", 2, 5, TimeUnit.SECONDS);
+        rows.add(row(1));
+        rows.close();
+
+        assertThat(rows.add(row(2)), is(false));
+        assertThat(rows.hasNext(), is(false));
+    }
+}
@@ -15,15 +15,24 @@ package org.openhab.persistence.jdbc.db;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+import org.eclipse.jdt.annotation.Nullable;
 import org.knowm.yank.Yank;
 import org.openhab.core.items.GroupItem;
 import org.openhab.core.items.Item;
@@ -79,6 +88,19 @@ public class JdbcBaseDAO {
     protected String sqlGetItemTables;
     protected String sqlCreateItemTable;
     protected String sqlInsertItemValue;
+    protected String sqlInsertItemValues;
+    protected String sqlTimeBucket;
+    protected String sqlCreatePartitionedItemTable;
+    protected String sqlGetPartitions;
+    protected String sqlAddPartition;
+    protected String sqlDropPartition;
+
+    // kinds of cached per-table statements
+    protected static final String SQL_INSERT_ITEM_VALUE = "insertItemValue";
+    protected static final String SQL_INSERT_ITEM_VALUES = "insertItemValues";
+
+    // SQL text of per-table statements, built once per table and statement kind
+    private final Map<String, String> sqlCache = new ConcurrentHashMap<>();
 
     /********
      * INIT *
@@ -138,6 +160,16 @@ public class JdbcBaseDAO {
         sqlGetItemTables = "SELECT table_name FROM information_schema.tables WHERE table_type='BASE TABLE' AND table_schema='#jdbcUriDatabaseName#' AND NOT table_name='#itemsManageTable#'";
         sqlCreateItemTable = "CREATE TABLE IF NOT EXISTS #tableName# (time #tablePrimaryKey# NOT NULL, value #dbType#, PRIMARY KEY(time))";
         sqlInsertItemValue = "INSERT INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, ? ) ON DUPLICATE KEY UPDATE VALUE= ?";
+        sqlInsertItemValues = "INSERT INTO #tableName# (TIME, VALUE) VALUES( ?, ? ) ON DUPLICATE KEY UPDATE VALUE= VALUES(VALUE)";
+        sqlTimeBucket = "FLOOR(UNIX_TIMESTAMP(time) / #bucketSeconds#)";
+        // MySQL/MariaDB range partitions, the last partition pmax takes all rows beyond the regular partitions.
+        // RANGE COLUMNS does not accept TIMESTAMP columns, and UNIX_TIMESTAMP() of a TIMESTAMP with fractional seconds
+        // is no integer, so partitioned tables use a DATETIME time column
+        sqlCreatePartitionedItemTable = "CREATE TABLE IF NOT EXISTS #tableName# (time #tablePartitionedPrimaryKey# NOT NULL, value #dbType#, PRIMARY KEY(time)) "
+                + "PARTITION BY RANGE COLUMNS(time) (PARTITION #partitionName# VALUES LESS THAN ('#partitionEnd#'), PARTITION pmax VALUES LESS THAN (MAXVALUE))";
+        sqlGetPartitions = "SELECT PARTITION_NAME FROM INFORMATION_SCHEMA.PARTITIONS WHERE TABLE_SCHEMA=DATABASE() AND TABLE_NAME='#tableName#' AND PARTITION_NAME IS NOT NULL";
+        sqlAddPartition = "ALTER TABLE #tableName# REORGANIZE PARTITION pmax INTO (PARTITION #partitionName# VALUES LESS THAN ('#partitionEnd#'), PARTITION pmax VALUES LESS THAN (MAXVALUE))";
+        sqlDropPartition = "ALTER TABLE #tableName# DROP PARTITION #partitionName#";
     }
 
     /**
@@ -156,6 +188,7 @@ public class JdbcBaseDAO {
         sqlTypes.put("STRINGITEM", "VARCHAR(65500)");// jdbc max 21845
         sqlTypes.put("SWITCHITEM", "VARCHAR(6)");
         sqlTypes.put("tablePrimaryKey", "TIMESTAMP");
+        sqlTypes.put("tablePartitionedPrimaryKey", "DATETIME");
         sqlTypes.put("tablePrimaryValue", "NOW()");
     }
 
@@ -242,6 +275,18 @@ public class JdbcBaseDAO {
         dbMeta = new DbMetaData();// get DB information
     }
 
+    /**
+     * Returns the SQL text of a per-table statement, substituting its template only the first time it is used for the
+     * table. The text stays the same for a table, as its value type does not change.
+     */
+    protected String getCachedSql(String kind, String tableName, Supplier<String> provider) {
+        return sqlCache.computeIfAbsent(kind + '#' + tableName, k -> provider.get());
+    }
+
+    public void clearSqlCache() {
+        sqlCache.clear();
+    }
+
     /**************
      * ITEMS DAOs *
      **************/
@@ -317,16 +362,193 @@ public class JdbcBaseDAO {
         Yank.execute(sql, null);
     }
 
+    /**
+     * Returns whether item tables can be created with time range partitions.
+     */
+    public boolean isPartitioningSupported() {
+        return false;
+    }
+
+    /**
+     * Creates an item table that is partitioned into time ranges of the given number of days, with partitions for
+     * the current and the next range.
+     */
+    public void doCreatePartitionedItemTable(ItemVO vo, int partitionDays) {
+        String tableName = vo.getTableName();
+        LocalDate start = partitionRangeStart(LocalDate.now(), partitionDays);
+        String sql = createPartitionedItemTableProvider(vo, start, start.plusDays(partitionDays));
+        logger.debug("JDBC::doCreatePartitionedItemTable sql={}", sql);
+        Yank.execute(sql, null);
+        addMissingPartitions(tableName, getPartitions(tableName), partitionDays);
+    }
+
+    /**
+     * Adds the partitions for the current and the next time range to a partitioned table. Tables without
+     * partitions are left as they are.
+     */
+    public void doMaintainPartitions(String tableName, int partitionDays) {
+        NavigableMap<LocalDate, String> partitions = getPartitions(tableName);
+        if (!partitions.isEmpty()) {
+            addMissingPartitions(tableName, partitions, partitionDays);
+        }
+    }
+
+    /**
+     * Removes the values older than the cutoff. Partitioned tables drop the partitions that only hold older values,
+     * so values in the partition of the cutoff stay until the whole partition has expired.
+     */
+    public void doPruneItemTable(String tableName, LocalDateTime cutoff) {
+        NavigableMap<LocalDate, String> partitions = getPartitions(tableName);
+        if (partitions.isEmpty()) {
+            String sql = "DELETE FROM " + queryTableName(tableName) + " WHERE TIME<'" + JDBC_DATE_FORMAT.format(cutoff)
+                    + "'";
+            logger.debug("JDBC::doPruneItemTable sql={}", sql);
+            Yank.execute(sql, null);
+            return;
+        }
+        // a partition ends where the next one starts, the last one is never dropped
+        LocalDate previous = null;
+        for (LocalDate start : partitions.keySet()) {
+            if (previous != null && !start.atStartOfDay().isAfter(cutoff)) {
+                doDropPartition(tableName, partitions.get(previous));
+            }
+            previous = start;
+        }
+    }
+
+    /**
+     * Returns the partitions of a table by the first day of their time range. The catch-all partition is not
+     * returned.
+     */
+    protected NavigableMap<LocalDate, String> getPartitions(String tableName) {
+        NavigableMap<LocalDate, String> partitions = new TreeMap<>();
+        if (!isPartitioningSupported()) {
+            return partitions;
+        }
+        String sql = StringUtilsExt.replaceArrayMerge(sqlGetPartitions, new String[] { "#tableName#" },
+                new String[] { tableName });
+        for (Object[] row : Yank.queryObjectArrays(sql, null)) {
+            String name = String.valueOf(row[0]);
+            LocalDate start = getPartitionStart(tableName, name);
+            if (start != null) {
+                partitions.put(start, name);
+            }
+        }
+        return partitions;
+    }
+
+    protected void doAddPartition(String tableName, LocalDate start, LocalDate end) {
+        String sql = addPartitionProvider(tableName, start, end);
+        logger.debug("JDBC::doAddPartition sql={}", sql);
+        Yank.execute(sql, null);
+    }
+
+    protected void doDropPartition(String tableName, String partitionName) {
+        String sql = StringUtilsExt.replaceArrayMerge(sqlDropPartition,
+                new String[] { "#tableName#", "#partitionName#" }, new String[] { tableName, partitionName });
+        logger.debug("JDBC::doDropPartition sql={}", sql);
+        Yank.execute(sql, null);
+    }
+
+    /**
+     * Returns the part of the partition names before the first day of their range.
+     */
+    protected String partitionPrefix(String tableName) {
+        return "p";
+    }
+
+    private String partitionName(String tableName, LocalDate start) {
+        return partitionPrefix(tableName) + PARTITION_DATE_FORMAT.format(start);
+    }
+
+    /**
+     * Returns the first day of a partition from its name, or null if it is no regular partition.
+     */
+    private LocalDate getPartitionStart(String tableName, String partitionName) {
+        String prefix = partitionPrefix(tableName);
+        if (!partitionName.toLowerCase().startsWith(prefix.toLowerCase())) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partitionName.substring(prefix.length()), PARTITION_DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private void addMissingPartitions(String tableName, NavigableMap<LocalDate, String> partitions,
+            int partitionDays) {
+        LocalDate current = partitionRangeStart(LocalDate.now(), partitionDays);
+        for (LocalDate start = current; !start.isAfter(current.plusDays(partitionDays)); start = start
+                .plusDays(partitionDays)) {
+            if (partitions.isEmpty() || partitions.lastKey().isBefore(start)) {
+                doAddPartition(tableName, start, start.plusDays(partitionDays));
+                partitions.put(start, partitionName(tableName, start));
+            }
+        }
+    }
+
+    /**
+     * Returns the first day of the partition holding the given day. Partitions are aligned to multiples of their
+     * length since 1970-01-01.
+     */
+    protected static LocalDate partitionRangeStart(LocalDate day, int partitionDays) {
+        return LocalDate.ofEpochDay(Math.floorDiv(day.toEpochDay(), partitionDays) * partitionDays);
+    }
+
     public void doStoreItemValue(Item item, ItemVO vo) {
         vo = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#tablePrimaryValue#" },
-                new String[] { vo.getTableName(), sqlTypes.get("tablePrimaryValue") });
+        String tableName = vo.getTableName();
+        String sql = getCachedSql(SQL_INSERT_ITEM_VALUE, tableName,
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#tablePrimaryValue#" },
+                        new String[] { tableName, sqlTypes.get("tablePrimaryValue") }));
         Object[] params = new Object[] { vo.getValue(), vo.getValue() };
         logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, vo.getValue());
         Yank.execute(sql, params);
     }
 
+    /**
+     * Converts the current state of the item into a row value, which is stored later on by
+     * {@link #doStoreItemValues(String, List)}. The time of the row is taken now, as the database can not provide
+     * it when the value is written.
+     */
+    public ItemVO doPrepareItemValue(Item item, ItemVO vo) {
+        vo = storeItemValueProvider(item, vo);
+        vo.setTime(new Date());
+        return vo;
+    }
+
+    /**
+     * Stores several values of the same item table with the JDBC batch API.
+     *
+     * @return false if the batch failed, Yank logs the SQL error and none or only some of the rows may be stored
+     */
+    public boolean doStoreItemValues(String tableName, List<ItemVO> vol) {
+        String dbType = vol.get(0).getDbType();
+        String sql = getCachedSql(SQL_INSERT_ITEM_VALUES, tableName,
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValues, new String[] { "#tableName#", "#dbType#" },
+                        new String[] { tableName, dbType }));
+        logger.debug("JDBC::doStoreItemValues sql={} rows={}", sql, vol.size());
+        return Yank.executeBatch(sql, storeItemValuesParams(vol)) != null;
+    }
+
+    protected Object[][] storeItemValuesParams(List<ItemVO> vol) {
+        Object[][] params = new Object[vol.size()][];
+        for (int i = 0; i < vol.size(); i++) {
+            ItemVO vo = vol.get(i);
+            params[i] = new Object[] { getTimeValue(vo.getTime()), vo.getValue() };
+        }
+        return params;
+    }
+
+    /**
+     * Returns the value that is bound to the time column of a row.
+     */
+    protected Object getTimeValue(Date time) {
+        return new Timestamp(time.getTime());
+    }
+
     public List<HistoricItem> doGetHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
             String table, String name) {
         String sql = histItemFilterQueryProvider(filter, numberDecimalcount, table, name);
@@ -340,12 +562,120 @@ public class JdbcBaseDAO {
         return items;
     }
 
+    /**
+     * Like {@link #doGetHistItemFilterQuery(Item, FilterCriteria, int, String, String)} for an unpaged filter, but
+     * reads the rows lazily in pages of the fetch size while they are iterated.
+     *
+     * The pages are read by key: each page continues after the time of the last row of the previous one instead of
+     * skipping the rows read so far, so every page costs the same and rows stored meanwhile do not shift the pages.
+     */
+    public Iterable<HistoricItem> doStreamHistItemFilterQuery(Item item, FilterCriteria filter,
+            int numberDecimalcount, String table, String name, int fetchSize) {
+        logger.debug("JDBC::doStreamHistItemFilterQuery table={} fetchSize={}", table, fetchSize);
+        return new JdbcHistoricItemStream(fetchSize, (lastTime, pageSize) -> doGetHistItemFilterQuery(item,
+                pageAfter(filter, lastTime, pageSize), numberDecimalcount, table, name));
+    }
+
+    /**
+     * Returns the filter for the first page of the given size after the row with the given time, in the order of the
+     * filter. The time is the primary key of the table, so no row shares the time of the last row read.
+     */
+    static FilterCriteria pageAfter(FilterCriteria filter, @Nullable ZonedDateTime lastTime, int pageSize) {
+        FilterCriteria page = new FilterCriteria().setItemName(filter.getItemName())
+                .setBeginDate(filter.getBeginDate()).setEndDate(filter.getEndDate())
+                .setOrdering(filter.getOrdering()).setOperator(filter.getOperator()).setState(filter.getState())
+                .setPageNumber(0).setPageSize(pageSize);
+        if (lastTime != null) {
+            if (filter.getOrdering() == Ordering.ASCENDING) {
+                page.setBeginDate(lastTime);
+            } else {
+                page.setEndDate(lastTime);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Returns the number of rows of the table within the time range of the filter.
+     */
+    public long doGetRowCount(FilterCriteria filter, String table) {
+        String sql = "SELECT COUNT(*) FROM " + queryTableName(table) + rangeFilterProvider(filter);
+        logger.debug("JDBC::doGetRowCount sql={}", sql);
+        Number count = Yank.queryScalar(sql, Number.class, null);
+        return count == null ? 0 : count.longValue();
+    }
+
+    /**
+     * Queries one value per time bucket of the given length, aggregated in the database.
+     *
+     * @param aggregation AVG, MIN, MAX or LAST
+     */
+    public List<HistoricItem> doGetAggregatedHistItemFilterQuery(Item item, FilterCriteria filter, String table,
+            String aggregation, long bucketSeconds) {
+        String sql = histItemAggregateQueryProvider(filter, table, aggregation, bucketSeconds);
+        logger.debug("JDBC::doGetAggregatedHistItemFilterQuery sql={}", sql);
+        List<Object[]> m = Yank.queryObjectArrays(sql, null);
+        List<HistoricItem> items = new ArrayList<>();
+        for (int i = 0; i < m.size(); i++) {
+            items.add(new JdbcHistoricItem(item.getName(), getState(item, m.get(i)[1]), objectAsDate(m.get(i)[0])));
+        }
+        return items;
+    }
+
     /*************
      * Providers *
      *************/
     static final DateTimeFormatter JDBC_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    /**
+     * Format of the begin and end date of a filter. It keeps the milliseconds, so the time of the last row of a page
+     * can be used as the bound of the next one.
+     */
+    static final DateTimeFormatter JDBC_FILTER_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    static final DateTimeFormatter PARTITION_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
 
-    private String histItemFilterQueryProvider(FilterCriteria filter, int numberDecimalcount, String table,
+    /**
+     * Returns the table name as used in queries.
+     */
+    protected String queryTableName(String table) {
+        return table;
+    }
+
+    protected String rangeFilterProvider(FilterCriteria filter) {
+        String filterString = "";
+        if (filter.getBeginDate() != null) {
+            filterString += filterString.isEmpty() ? " WHERE" : " AND";
+            filterString += " TIME>'" + JDBC_FILTER_DATE_FORMAT.format(filter.getBeginDate()) + "'";
+        }
+        if (filter.getEndDate() != null) {
+            filterString += filterString.isEmpty() ? " WHERE" : " AND";
+            filterString += " TIME<'" + JDBC_FILTER_DATE_FORMAT.format(filter.getEndDate()) + "'";
+        }
+        return filterString;
+    }
+
+    /**
+     * AVG, MIN and MAX return the aggregate of each bucket with the time of its first row. LAST returns the last row
+     * of each bucket as it is stored, which also works for non numeric values.
+     */
+    protected String histItemAggregateQueryProvider(FilterCriteria filter, String table, String aggregation,
+            long bucketSeconds) {
+        String tableName = queryTableName(table);
+        String bucket = StringUtilsExt.replaceArrayMerge(sqlTimeBucket, new String[] { "#bucketSeconds#" },
+                new String[] { String.valueOf(bucketSeconds) });
+        String order = (filter.getOrdering() == Ordering.ASCENDING) ? " ASC" : " DESC";
+        String queryString;
+        if ("LAST".equals(aggregation)) {
+            queryString = "SELECT time, value FROM " + tableName + " WHERE time IN (SELECT MAX(time) FROM "
+                    + tableName + rangeFilterProvider(filter) + " GROUP BY " + bucket + ") ORDER BY time" + order;
+        } else {
+            queryString = "SELECT MIN(time), " + aggregation + "(value) FROM " + tableName
+                    + rangeFilterProvider(filter) + " GROUP BY " + bucket + " ORDER BY 1" + order;
+        }
+        logger.debug("JDBC::query queryString = {}", queryString);
+        return queryString;
+    }
+
+    protected String histItemFilterQueryProvider(FilterCriteria filter, int numberDecimalcount, String table,
             String simpleName) {
         logger.debug(
                 "JDBC::getHistItemFilterQueryProvider filter = {}, numberDecimalcount = {}, table = {}, simpleName = {}",
@@ -354,11 +684,11 @@ public class JdbcBaseDAO {
         String filterString = "";
         if (filter.getBeginDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME>'" + JDBC_DATE_FORMAT.format(filter.getBeginDate()) + "'";
+            filterString += " TIME>'" + JDBC_FILTER_DATE_FORMAT.format(filter.getBeginDate()) + "'";
         }
         if (filter.getEndDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME<'" + JDBC_DATE_FORMAT.format(filter.getEndDate()) + "'";
+            filterString += " TIME<'" + JDBC_FILTER_DATE_FORMAT.format(filter.getEndDate()) + "'";
         }
         filterString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY time ASC" : " ORDER BY time DESC ";
         if (filter.getPageSize() != 0x7fffffff) {
@@ -376,6 +706,23 @@ public class JdbcBaseDAO {
         return queryString;
     }
 
+    protected String createPartitionedItemTableProvider(ItemVO vo, LocalDate start, LocalDate end) {
+        String tableName = vo.getTableName();
+        return StringUtilsExt.replaceArrayMerge(sqlCreatePartitionedItemTable,
+                new String[] { "#tableName#", "#dbType#", "#tablePrimaryKey#", "#tablePartitionedPrimaryKey#",
+                        "#partitionName#", "#partitionEnd#" },
+                new String[] { tableName, vo.getDbType(), sqlTypes.get("tablePrimaryKey"),
+                        sqlTypes.get("tablePartitionedPrimaryKey"), partitionName(tableName, start),
+                        JDBC_DATE_FORMAT.format(end.atStartOfDay()) });
+    }
+
+    protected String addPartitionProvider(String tableName, LocalDate start, LocalDate end) {
+        return StringUtilsExt.replaceArrayMerge(sqlAddPartition,
+                new String[] { "#tableName#", "#partitionName#", "#partitionStart#", "#partitionEnd#" },
+                new String[] { tableName, partitionName(tableName, start),
+                        JDBC_DATE_FORMAT.format(start.atStartOfDay()), JDBC_DATE_FORMAT.format(end.atStartOfDay()) });
+    }
+
     private String updateItemTableNamesProvider(List<ItemVO> namesList) {
         logger.debug("JDBC::updateItemTableNamesProvider namesList.size = {}", namesList.size());
         String queryString = "";
@@ -470,7 +817,7 @@ public class JdbcBaseDAO {
             } else if (it.toUpperCase().contains("DECIMAL") || it.toUpperCase().contains("NUMERIC")) {
                 return new DecimalType((BigDecimal) v);
             } else if (it.toUpperCase().contains("INT")) {
-                return new DecimalType(((Integer) v).intValue());
+                return new DecimalType(((Number) v).intValue());
             }
             return DecimalType.valueOf(((String) v).toString());
         } else if (item instanceof ColorItem) {
@@ -510,8 +857,9 @@ public class JdbcBaseDAO {
     }
 
     protected Integer objectAsInteger(Object v) {
-        if (v instanceof Byte) {
-            return ((Byte) v).intValue();
+        if (v instanceof Number) {
+            // also covers the decimal result of an aggregated query
+            return ((Number) v).intValue();
         }
         return ((Integer) v).intValue();
     }
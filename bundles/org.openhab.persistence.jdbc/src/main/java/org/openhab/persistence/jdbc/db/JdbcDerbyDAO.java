@@ -12,7 +12,6 @@
  */
 package org.openhab.persistence.jdbc.db;
 
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -58,6 +57,8 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         // Prevent error against duplicate time value (seldom): No powerful Merge found:
         // http://www.codeproject.com/Questions/162627/how-to-insert-new-record-in-my-table-if-not-exists
         sqlInsertItemValue = "INSERT INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, CAST( ? as #dbType#) )";
+        sqlInsertItemValues = "INSERT INTO #tableName# (TIME, VALUE) VALUES( ?, CAST( ? as #dbType#) )";
+        sqlTimeBucket = "{fn TIMESTAMPDIFF(SQL_TSI_SECOND, TIMESTAMP('1970-01-01 00:00:00'), time)} / #bucketSeconds#";
     }
 
     private void initSqlTypes() {
@@ -145,14 +146,22 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
     @Override
     public void doStoreItemValue(Item item, ItemVO vo) {
         vo = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
-                new String[] { vo.getTableName().toUpperCase(), vo.getDbType(), sqlTypes.get("tablePrimaryValue") });
+        String tableName = vo.getTableName().toUpperCase();
+        String dbType = vo.getDbType();
+        String sql = getCachedSql(SQL_INSERT_ITEM_VALUE, tableName,
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
+                        new String[] { tableName, dbType, sqlTypes.get("tablePrimaryValue") }));
         Object[] params = new Object[] { vo.getValue() };
         logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, vo.getValue());
         Yank.execute(sql, params);
     }
 
+    @Override
+    public boolean doStoreItemValues(String tableName, List<ItemVO> vol) {
+        return super.doStoreItemValues(tableName.toUpperCase(), vol);
+    }
+
     @Override
     public List<HistoricItem> doGetHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
             String table, String name) {
@@ -172,15 +181,14 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
     /****************************
      * SQL generation Providers *
      ****************************/
-    static final DateTimeFormatter JDBC_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
     /**
      * @param filter
      * @param numberDecimalcount
      * @param table
      * @return
      */
-    private String histItemFilterQueryProvider(FilterCriteria filter, int numberDecimalcount, String table,
+    @Override
+    protected String histItemFilterQueryProvider(FilterCriteria filter, int numberDecimalcount, String table,
             String simpleName) {
         logger.debug(
                 "JDBC::getHistItemFilterQueryProvider filter = {}, numberDecimalcount = {}, table = {}, simpleName = {}",
@@ -189,11 +197,11 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         String filterString = "";
         if (filter.getBeginDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME>'" + JDBC_DATE_FORMAT.format(filter.getBeginDate()) + "'";
+            filterString += " TIME>'" + JDBC_FILTER_DATE_FORMAT.format(filter.getBeginDate()) + "'";
         }
         if (filter.getEndDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME<'" + JDBC_DATE_FORMAT.format(filter.getEndDate()) + "'";
+            filterString += " TIME<'" + JDBC_FILTER_DATE_FORMAT.format(filter.getEndDate()) + "'";
         }
         filterString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY time ASC" : " ORDER BY time DESC";
         if (filter.getPageSize() != 0x7fffffff) {
@@ -205,8 +213,8 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
             // filterString += " OFFSET " + filter.getPageSize() +" ROWS FETCH
             // FIRST||NEXT " + filter.getPageNumber() * filter.getPageSize() + "
             // ROWS ONLY";
-            filterString += " OFFSET " + filter.getPageSize() + " ROWS FETCH FIRST "
-                    + (filter.getPageNumber() * filter.getPageSize() + 1) + " ROWS ONLY";
+            filterString += " OFFSET " + filter.getPageNumber() * filter.getPageSize() + " ROWS FETCH NEXT "
+                    + filter.getPageSize() + " ROWS ONLY";
         }
 
         // http://www.seemoredata.com/en/showthread.php?132-Round-function-in-Apache-Derby
@@ -233,6 +241,11 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         return queryString;
     }
 
+    @Override
+    protected String queryTableName(String table) {
+        return table.toUpperCase();
+    }
+
     /*****************
      * H E L P E R S *
      *****************/
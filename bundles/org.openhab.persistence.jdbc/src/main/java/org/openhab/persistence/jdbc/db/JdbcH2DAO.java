@@ -45,6 +45,8 @@ public class JdbcH2DAO extends JdbcBaseDAO {
         // SQL_INSERT_ITEM_VALUE = "INSERT INTO #tableName# (TIME, VALUE) VALUES( NOW(), CAST( ? as #dbType#) )";
         // http://stackoverflow.com/questions/19768051/h2-sql-database-insert-if-the-record-does-not-exist
         sqlInsertItemValue = "MERGE INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, CAST( ? as #dbType#) )";
+        sqlInsertItemValues = "MERGE INTO #tableName# (TIME, VALUE) VALUES( ?, CAST( ? as #dbType#) )";
+        sqlTimeBucket = "FLOOR(DATEDIFF('SECOND', TIMESTAMP '1970-01-01 00:00:00', time) / #bucketSeconds#)";
     }
 
     /**
@@ -73,9 +75,12 @@ public class JdbcH2DAO extends JdbcBaseDAO {
     @Override
     public void doStoreItemValue(Item item, ItemVO vo) {
         vo = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
-                new String[] { vo.getTableName(), vo.getDbType(), sqlTypes.get("tablePrimaryValue") });
+        String tableName = vo.getTableName();
+        String dbType = vo.getDbType();
+        String sql = getCachedSql(SQL_INSERT_ITEM_VALUE, tableName,
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
+                        new String[] { tableName, dbType, sqlTypes.get("tablePrimaryValue") }));
         Object[] params = new Object[] { vo.getValue() };
         logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, vo.getValue());
         Yank.execute(sql, params);
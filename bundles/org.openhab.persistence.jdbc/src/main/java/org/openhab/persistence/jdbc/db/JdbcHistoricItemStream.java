@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.persistence.HistoricItem;
+
+/**
+ * Reads the rows of a historic query in pages of the fetch size while they are iterated, instead of materialising
+ * all of them in a list.
+ *
+ * Every page is read with its own query and the connection is given back to the pool before the rows of the page are
+ * returned. No database resources are held between pages, so callers may stop iterating at any time. Each page starts
+ * after the time of the last row of the previous page, so reading a page does not depend on how many rows were read
+ * before it.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+public class JdbcHistoricItemStream implements Iterable<HistoricItem> {
+
+    /**
+     * Reads a single page of the query.
+     */
+    @FunctionalInterface
+    public interface PageReader {
+        /**
+         * @param lastTime time of the last row read, or null for the first page
+         * @param pageSize maximum number of rows of the page
+         * @return the rows following the last row read, in the order of the query
+         */
+        List<HistoricItem> read(@Nullable ZonedDateTime lastTime, int pageSize);
+    }
+
+    private final int fetchSize;
+    private final PageReader pageReader;
+
+    public JdbcHistoricItemStream(int fetchSize, PageReader pageReader) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("fetchSize must be greater than 0");
+        }
+        this.fetchSize = fetchSize;
+        this.pageReader = pageReader;
+    }
+
+    @Override
+    public Iterator<HistoricItem> iterator() {
+        return new PageIterator();
+    }
+
+    private class PageIterator implements Iterator<HistoricItem> {
+        private List<HistoricItem> page = Collections.emptyList();
+        private int index;
+        private @Nullable ZonedDateTime lastTime;
+        private boolean lastPage;
+
+        @Override
+        public boolean hasNext() {
+            while (index >= page.size()) {
+                if (lastPage) {
+                    return false;
+                }
+                page = pageReader.read(lastTime, fetchSize);
+                index = 0;
+                if (!page.isEmpty()) {
+                    lastTime = page.get(page.size() - 1).getTimestamp();
+                }
+                // a short page is the last one, this saves a query for the empty page after it
+                lastPage = page.size() < fetchSize;
+            }
+            return true;
+        }
+
+        @Override
+        public HistoricItem next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.get(index++);
+        }
+    }
+}
@@ -12,6 +12,8 @@
  */
 package org.openhab.persistence.jdbc.db;
 
+import java.util.List;
+
 import org.knowm.yank.Yank;
 import org.openhab.core.items.Item;
 import org.openhab.persistence.jdbc.model.ItemVO;
@@ -54,6 +56,9 @@ public class JdbcHsqldbDAO extends JdbcBaseDAO {
         sqlInsertItemValue = "MERGE INTO #tableName# "
                 + "USING (VALUES #tablePrimaryValue#, CAST( ? as #dbType#)) temp (TIME, VALUE) ON (#tableName#.TIME=temp.TIME) "
                 + "WHEN NOT MATCHED THEN INSERT (TIME, VALUE) VALUES (temp.TIME, temp.VALUE)";
+        sqlInsertItemValues = "MERGE INTO #tableName# "
+                + "USING (VALUES CAST( ? as #tablePrimaryKey#), CAST( ? as #dbType#)) temp (TIME, VALUE) ON (#tableName#.TIME=temp.TIME) "
+                + "WHEN NOT MATCHED THEN INSERT (TIME, VALUE) VALUES (temp.TIME, temp.VALUE)";
     }
 
     /**
@@ -103,14 +108,28 @@ public class JdbcHsqldbDAO extends JdbcBaseDAO {
     @Override
     public void doStoreItemValue(Item item, ItemVO vo) {
         vo = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#dbType#", "#tableName#", "#tablePrimaryValue#" }, new String[] {
-                        vo.getTableName(), vo.getDbType(), vo.getTableName(), sqlTypes.get("tablePrimaryValue") });
+        String tableName = vo.getTableName();
+        String dbType = vo.getDbType();
+        String sql = getCachedSql(SQL_INSERT_ITEM_VALUE, tableName,
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#dbType#", "#tableName#", "#tablePrimaryValue#" },
+                        new String[] { tableName, dbType, tableName, sqlTypes.get("tablePrimaryValue") }));
         Object[] params = new Object[] { vo.getValue() };
         logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, vo.getValue());
         Yank.execute(sql, params);
     }
 
+    @Override
+    public boolean doStoreItemValues(String tableName, List<ItemVO> vol) {
+        String dbType = vol.get(0).getDbType();
+        String sql = getCachedSql(SQL_INSERT_ITEM_VALUES, tableName,
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValues,
+                        new String[] { "#tableName#", "#tablePrimaryKey#", "#dbType#", "#tableName#" },
+                        new String[] { tableName, sqlTypes.get("tablePrimaryKey"), dbType, tableName }));
+        logger.debug("JDBC::doStoreItemValues sql={} rows={}", sql, vol.size());
+        return Yank.executeBatch(sql, storeItemValuesParams(vol)) != null;
+    }
+
     /****************************
      * SQL generation Providers *
      ****************************/
@@ -56,6 +56,8 @@ public class JdbcMariadbDAO extends JdbcBaseDAO {
         databaseProps.setProperty("dataSource.cachePrepStmts", "true");
         databaseProps.setProperty("dataSource.prepStmtCacheSize", "250");
         databaseProps.setProperty("dataSource.prepStmtCacheSqlLimit", "2048");
+        // send batched inserts as multi-row INSERT statements
+        databaseProps.setProperty("dataSource.rewriteBatchedStatements", "true");
         databaseProps.setProperty("dataSource.jdbcCompliantTruncation", "false");// jdbc standard max varchar max length
         // of 21845
 
@@ -74,15 +76,28 @@ public class JdbcMariadbDAO extends JdbcBaseDAO {
         dbMeta = new DbMetaData();
         // Initialize sqlTypes, depending on DB version for example
         if (dbMeta.isDbVersionGreater(5, 1)) {
-            sqlTypes.put("DATETIMEITEM", "TIMESTAMP(3)");
-            sqlTypes.put("tablePrimaryKey", "TIMESTAMP(3)");
-            sqlTypes.put("tablePrimaryValue", "NOW(3)");
+            initFractionalSecondsSqlTypes();
         }
     }
 
+    /**
+     * Stores times with milliseconds, supported by newer database versions.
+     */
+    void initFractionalSecondsSqlTypes() {
+        sqlTypes.put("DATETIMEITEM", "TIMESTAMP(3)");
+        sqlTypes.put("tablePrimaryKey", "TIMESTAMP(3)");
+        sqlTypes.put("tablePartitionedPrimaryKey", "DATETIME(3)");
+        sqlTypes.put("tablePrimaryValue", "NOW(3)");
+    }
+
     /**************
      * ITEMS DAOs *
      **************/
+    @Override
+    public boolean isPartitioningSupported() {
+        return true;
+    }
+
     @Override
     public Integer doPingDB() {
         return Yank.queryScalar(sqlPingDB, Long.class, null).intValue();
@@ -12,7 +12,6 @@
  */
 package org.openhab.persistence.jdbc.db;
 
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -55,12 +54,22 @@ public class JdbcPostgresqlDAO extends JdbcBaseDAO {
         sqlIfTableExists = "SELECT * FROM PG_TABLES WHERE TABLENAME='#searchTable#'";
         sqlCreateItemsTableIfNot = "CREATE TABLE IF NOT EXISTS #itemsManageTable# (itemid SERIAL NOT NULL, #colname# #coltype# NOT NULL, CONSTRAINT #itemsManageTable#_pkey PRIMARY KEY (itemid))";
         sqlCreateNewEntryInItemsTable = "INSERT INTO items (itemname) SELECT itemname FROM #itemsManageTable# UNION VALUES ('#itemname#') EXCEPT SELECT itemname FROM items";
-        sqlGetItemTables = "SELECT table_name FROM information_schema.tables WHERE table_type='BASE TABLE' AND table_schema='public' AND NOT table_name='#itemsManageTable#'";
+        // partitions of item tables (item0001_p20200101) are no item tables of their own
+        sqlGetItemTables = "SELECT table_name FROM information_schema.tables WHERE table_type='BASE TABLE' AND table_schema='public' AND NOT table_name='#itemsManageTable#' AND NOT table_name LIKE '%\\_p________'";
         // http://stackoverflow.com/questions/17267417/how-do-i-do-an-upsert-merge-insert-on-duplicate-update-in-postgresql
         // for later use, PostgreSql > 9.5 to prevent PRIMARY key violation use:
         // SQL_INSERT_ITEM_VALUE = "INSERT INTO #tableName# (TIME, VALUE) VALUES( NOW(), CAST( ? as #dbType#) ) ON
         // CONFLICT DO NOTHING";
         sqlInsertItemValue = "INSERT INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, CAST( ? as #dbType#) )";
+        // rows of a batch are written again one by one if the batch fails, PostgreSql > 9.5 skips the ones stored
+        // already
+        sqlInsertItemValues = "INSERT INTO #tableName# (TIME, VALUE) VALUES( ?, CAST( ? as #dbType#) ) ON CONFLICT DO NOTHING";
+        sqlTimeBucket = "FLOOR(EXTRACT(EPOCH FROM time) / #bucketSeconds#)";
+        // declarative partitioning (PostgreSQL 10+), every time range is a table of its own
+        sqlCreatePartitionedItemTable = "CREATE TABLE IF NOT EXISTS #tableName# (time #tablePrimaryKey# NOT NULL, value #dbType#, PRIMARY KEY(time)) PARTITION BY RANGE (time)";
+        sqlGetPartitions = "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid=i.inhrelid JOIN pg_class p ON p.oid=i.inhparent WHERE p.relname='#tableName#'";
+        sqlAddPartition = "CREATE TABLE IF NOT EXISTS #partitionName# PARTITION OF #tableName# FOR VALUES FROM ('#partitionStart#') TO ('#partitionEnd#')";
+        sqlDropPartition = "DROP TABLE IF EXISTS #partitionName#";
     }
 
     /**
@@ -89,6 +98,11 @@ public class JdbcPostgresqlDAO extends JdbcBaseDAO {
         // databaseProps.setProperty("dataSource.cachePrepStmts", "true");
         // databaseProps.setProperty("dataSource.prepStmtCacheSize", "250");
         // databaseProps.setProperty("dataSource.prepStmtCacheSqlLimit", "2048");
+        // send batched inserts as multi-row INSERT statements
+        databaseProps.setProperty("dataSource.reWriteBatchedInserts", "true");
+        // use server side prepared statements from the first execution on, the per table statements are reused
+        // for every value
+        databaseProps.setProperty("dataSource.prepareThreshold", "1");
 
         // Properties for HikariCP
         databaseProps.setProperty("driverClassName", "org.postgresql.Driver");
@@ -120,6 +134,16 @@ public class JdbcPostgresqlDAO extends JdbcBaseDAO {
         return Yank.insert(sql, null);
     }
 
+    @Override
+    public boolean isPartitioningSupported() {
+        return true;
+    }
+
+    @Override
+    protected String partitionPrefix(String tableName) {
+        return tableName + "_p";
+    }
+
     @Override
     public List<ItemsVO> doGetItemTables(ItemsVO vo) {
         String sql = StringUtilsExt.replaceArrayMerge(sqlGetItemTables, new String[] { "#itemsManageTable#" },
@@ -134,9 +158,12 @@ public class JdbcPostgresqlDAO extends JdbcBaseDAO {
     @Override
     public void doStoreItemValue(Item item, ItemVO vo) {
         vo = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
-                new String[] { vo.getTableName(), vo.getDbType(), sqlTypes.get("tablePrimaryValue") });
+        String tableName = vo.getTableName();
+        String dbType = vo.getDbType();
+        String sql = getCachedSql(SQL_INSERT_ITEM_VALUE, tableName,
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
+                        new String[] { tableName, dbType, sqlTypes.get("tablePrimaryValue") }));
         Object[] params = new Object[] { vo.getValue() };
         logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, vo.getValue());
         Yank.execute(sql, params);
@@ -159,15 +186,14 @@ public class JdbcPostgresqlDAO extends JdbcBaseDAO {
     /****************************
      * SQL generation Providers *
      ****************************/
-    static final DateTimeFormatter JDBC_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
     /**
      * @param filter
      * @param numberDecimalcount
      * @param table
      * @return
      */
-    private String histItemFilterQueryProvider(FilterCriteria filter, int numberDecimalcount, String table,
+    @Override
+    protected String histItemFilterQueryProvider(FilterCriteria filter, int numberDecimalcount, String table,
             String simpleName) {
         logger.debug(
                 "JDBC::getHistItemFilterQueryProvider filter = {}, numberDecimalcount = {}, table = {}, simpleName = {}",
@@ -176,11 +202,11 @@ public class JdbcPostgresqlDAO extends JdbcBaseDAO {
         String filterString = "";
         if (filter.getBeginDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME>'" + JDBC_DATE_FORMAT.format(filter.getBeginDate()) + "'";
+            filterString += " TIME>'" + JDBC_FILTER_DATE_FORMAT.format(filter.getBeginDate()) + "'";
         }
         if (filter.getEndDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME<'" + JDBC_DATE_FORMAT.format(filter.getEndDate()) + "'";
+            filterString += " TIME<'" + JDBC_FILTER_DATE_FORMAT.format(filter.getEndDate()) + "'";
         }
         filterString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY time ASC" : " ORDER BY time DESC";
         if (filter.getPageSize() != 0x7fffffff) {
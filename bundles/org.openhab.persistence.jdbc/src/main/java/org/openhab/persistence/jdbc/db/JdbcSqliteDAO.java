@@ -12,6 +12,10 @@
  */
 package org.openhab.persistence.jdbc.db;
 
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
 import org.knowm.yank.Yank;
 import org.openhab.core.items.Item;
 import org.openhab.persistence.jdbc.model.ItemVO;
@@ -28,6 +32,9 @@ import org.slf4j.LoggerFactory;
  * @author Helmut Lehmeyer - Initial contribution
  */
 public class JdbcSqliteDAO extends JdbcBaseDAO {
+    private static final DateTimeFormatter SQLITE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+
     private final Logger logger = LoggerFactory.getLogger(JdbcSqliteDAO.class);
 
     /********
@@ -47,6 +54,8 @@ public class JdbcSqliteDAO extends JdbcBaseDAO {
         sqlIfTableExists = "SELECT name FROM sqlite_master WHERE type='table' AND name='#searchTable#'";
         sqlCreateItemsTableIfNot = "CREATE TABLE IF NOT EXISTS #itemsManageTable# (ItemId INTEGER PRIMARY KEY AUTOINCREMENT, #colname# #coltype# NOT NULL)";
         sqlInsertItemValue = "INSERT OR IGNORE INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, CAST( ? as #dbType#) )";
+        sqlInsertItemValues = "INSERT OR IGNORE INTO #tableName# (TIME, VALUE) VALUES( ?, CAST( ? as #dbType#) )";
+        sqlTimeBucket = "CAST(strftime('%s', time) AS INTEGER) / #bucketSeconds#";
     }
 
     /**
@@ -71,6 +80,12 @@ public class JdbcSqliteDAO extends JdbcBaseDAO {
      * ITEMS DAOs *
      **************/
 
+    @Override
+    protected Object getTimeValue(Date time) {
+        // same text format as the tablePrimaryValue used for single inserts
+        return SQLITE_DATE_FORMAT.format(time.toInstant());
+    }
+
     @Override
     public String doGetDB() {
         return Yank.queryColumn(sqlGetDB, "file", String.class, null).get(0);
@@ -92,9 +107,12 @@ public class JdbcSqliteDAO extends JdbcBaseDAO {
     @Override
     public void doStoreItemValue(Item item, ItemVO vo) {
         vo = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
-                new String[] { vo.getTableName(), vo.getDbType(), sqlTypes.get("tablePrimaryValue") });
+        String tableName = vo.getTableName();
+        String dbType = vo.getDbType();
+        String sql = getCachedSql(SQL_INSERT_ITEM_VALUE, tableName,
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
+                        new String[] { tableName, dbType, sqlTypes.get("tablePrimaryValue") }));
         Object[] params = new Object[] { vo.getValue() };
         logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, vo.getValue());
         Yank.execute(sql, params);
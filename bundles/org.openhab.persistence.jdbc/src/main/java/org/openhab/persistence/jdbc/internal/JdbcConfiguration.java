@@ -14,6 +14,7 @@ package org.openhab.persistence.jdbc.internal;
 
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -60,6 +61,20 @@ public class JdbcConfiguration {
 
     private int errReconnectThreshold = 0;
 
+    // write-behind batching, disabled with batchSize 0
+    private int batchSize = 0;
+    private int batchInterval = 1000;
+    private int batchQueueSize = 10000;
+
+    // aggregation of large historic queries, disabled with queryAggregation null
+    private String queryAggregation = null;
+    private int queryAggregationThreshold = 5000;
+    private int queryFetchSize = 0;
+
+    // table layout and retention, both disabled with 0
+    private int partitionDays = 0;
+    private int retentionDays = 0;
+
     public int timerCount = 0;
     public int time1000Statements = 0;
     public long timer1000 = 0;
@@ -173,6 +188,59 @@ public class JdbcConfiguration {
             logger.debug("JDBC::updateConfig: rebuildTableNames={}", rebuildTableNames);
         }
 
+        String bs = (String) configuration.get("batchSize");
+        if (bs != null && !bs.isBlank() && isNumericPattern.matcher(bs).matches()) {
+            batchSize = Integer.parseInt(bs);
+            logger.debug("JDBC::updateConfig: batchSize={}", batchSize);
+        }
+
+        String bi = (String) configuration.get("batchInterval");
+        if (bi != null && !bi.isBlank() && isNumericPattern.matcher(bi).matches()) {
+            batchInterval = Math.max(Integer.parseInt(bi), 10);
+            logger.debug("JDBC::updateConfig: batchInterval={}", batchInterval);
+        }
+
+        String bq = (String) configuration.get("batchQueueSize");
+        if (bq != null && !bq.isBlank() && isNumericPattern.matcher(bq).matches()) {
+            batchQueueSize = Math.max(Integer.parseInt(bq), batchSize);
+            logger.debug("JDBC::updateConfig: batchQueueSize={}", batchQueueSize);
+        }
+
+        String qa = (String) configuration.get("queryAggregation");
+        if (qa != null && !qa.isBlank() && !"none".equalsIgnoreCase(qa.trim())) {
+            String aggregation = qa.trim().toUpperCase();
+            if (List.of("AVG", "MIN", "MAX", "LAST").contains(aggregation)) {
+                queryAggregation = aggregation;
+                logger.debug("JDBC::updateConfig: queryAggregation={}", queryAggregation);
+            } else {
+                logger.warn("JDBC::updateConfig: unknown queryAggregation '{}', queries are not aggregated", qa);
+            }
+        }
+
+        String qt = (String) configuration.get("queryAggregationThreshold");
+        if (qt != null && !qt.isBlank() && isNumericPattern.matcher(qt).matches()) {
+            queryAggregationThreshold = Math.max(Integer.parseInt(qt), 1);
+            logger.debug("JDBC::updateConfig: queryAggregationThreshold={}", queryAggregationThreshold);
+        }
+
+        String qf = (String) configuration.get("queryFetchSize");
+        if (qf != null && !qf.isBlank() && isNumericPattern.matcher(qf).matches()) {
+            queryFetchSize = Integer.parseInt(qf);
+            logger.debug("JDBC::updateConfig: queryFetchSize={}", queryFetchSize);
+        }
+
+        String pd = (String) configuration.get("partitionDays");
+        if (pd != null && !pd.isBlank() && isNumericPattern.matcher(pd).matches()) {
+            partitionDays = Integer.parseInt(pd);
+            logger.debug("JDBC::updateConfig: partitionDays={}", partitionDays);
+        }
+
+        String rd = (String) configuration.get("retentionDays");
+        if (rd != null && !rd.isBlank() && isNumericPattern.matcher(rd).matches()) {
+            retentionDays = Integer.parseInt(rd);
+            logger.debug("JDBC::updateConfig: retentionDays={}", retentionDays);
+        }
+
         // undocumented
         String ac = (String) configuration.get("maximumPoolSize");
         if (ac != null && !ac.isBlank()) {
@@ -343,6 +411,38 @@ public class JdbcConfiguration {
         return numberDecimalcount;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getBatchInterval() {
+        return batchInterval;
+    }
+
+    public int getBatchQueueSize() {
+        return batchQueueSize;
+    }
+
+    public String getQueryAggregation() {
+        return queryAggregation;
+    }
+
+    public int getQueryAggregationThreshold() {
+        return queryAggregationThreshold;
+    }
+
+    public int getQueryFetchSize() {
+        return queryFetchSize;
+    }
+
+    public int getPartitionDays() {
+        return partitionDays;
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
     public boolean getTableUseRealItemNames() {
         return tableUseRealItemNames;
     }
@@ -374,6 +474,8 @@ public class JdbcConfiguration {
         dBDAO.initAfterFirstDbConnection();
         // Running once again to prior external configured SqlTypes!
         setSqlTypes();
+        // statements built with the previous sqlTypes are outdated now
+        dBDAO.clearSqlCache();
         this.dbConnected = dbConnected;
     }
 
@@ -12,11 +12,16 @@
  */
 package org.openhab.persistence.jdbc.internal;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.knowm.yank.Yank;
@@ -24,6 +29,7 @@ import org.openhab.core.items.Item;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
+import org.openhab.persistence.jdbc.db.JdbcBaseDAO;
 import org.openhab.persistence.jdbc.model.ItemVO;
 import org.openhab.persistence.jdbc.model.ItemsVO;
 import org.openhab.persistence.jdbc.model.JdbcPersistenceItemInfo;
@@ -42,10 +48,13 @@ public class JdbcMapper {
     protected int errCnt;
     protected boolean initialized = false;
     protected JdbcConfiguration conf = null;
-    protected final Map<String, String> sqlTables = new HashMap<>();
+    // item name to table name, filled from the items table on startup
+    protected final Map<String, String> sqlTables = new ConcurrentHashMap<>();
     private long afterAccessMin = 10000;
     private long afterAccessMax = 0;
     private static final String ITEM_NAME_PATTERN = "[^a-zA-Z_0-9\\-]";
+    private static final Set<String> AGGREGATABLE_ITEM_TYPES = Set.of("NUMBERITEM", "DIMMERITEM",
+            "ROLLERSHUTTERITEM");
 
     /*****************
      * MAPPER ITEMS *
@@ -133,7 +142,12 @@ public class JdbcMapper {
     public ItemVO createItemTable(ItemVO vo) {
         logger.debug("JDBC::createItemTable");
         long timerStart = System.currentTimeMillis();
-        conf.getDBDAO().doCreateItemTable(vo);
+        JdbcBaseDAO dao = conf.getDBDAO();
+        if (conf.getPartitionDays() > 0 && dao.isPartitioningSupported()) {
+            dao.doCreatePartitionedItemTable(vo, conf.getPartitionDays());
+        } else {
+            dao.doCreateItemTable(vo);
+        }
         logTime("createItemTable", timerStart, System.currentTimeMillis());
         return vo;
     }
@@ -152,15 +166,99 @@ public class JdbcMapper {
         return item;
     }
 
-    public List<HistoricItem> getHistItemFilterQuery(FilterCriteria filter, int numberDecimalcount, String table,
+    /**
+     * Takes the current state of the item as a row value, to be written later on by {@link #storeItemValues(List)}.
+     *
+     * @return the row value or null if the item has no table
+     */
+    public ItemVO prepareItemValue(Item item) {
+        logger.debug("JDBC::prepareItemValue: item={}", item.toString());
+        String tableName = getTable(item);
+        if (tableName == null) {
+            logger.error("JDBC::store: Unable to store item '{}'.", item.getName());
+            return null;
+        }
+        return conf.getDBDAO().doPrepareItemValue(item, new ItemVO(tableName, null));
+    }
+
+    /**
+     * Writes row values collected by {@link #prepareItemValue(Item)}, one batch per table. If a table got several
+     * values with the same timestamp, only the last one is written. If the batch of a table fails, its rows are
+     * written one by one, so that a single bad row does not lose the others.
+     *
+     * @return the number of rows which could not be written
+     */
+    public int storeItemValues(List<ItemVO> vol) {
+        Map<String, Map<Long, ItemVO>> tables = new LinkedHashMap<>();
+        for (ItemVO vo : vol) {
+            tables.computeIfAbsent(vo.getTableName(), t -> new LinkedHashMap<>()).put(vo.getTime().getTime(), vo);
+        }
+        long timerStart = System.currentTimeMillis();
+        int total = 0;
+        int failed = 0;
+        for (Map.Entry<String, Map<Long, ItemVO>> table : tables.entrySet()) {
+            String tableName = table.getKey();
+            List<ItemVO> rows = new ArrayList<>(table.getValue().values());
+            total += rows.size();
+            if (doStoreItemValues(tableName, rows)) {
+                continue;
+            }
+            if (rows.size() == 1) {
+                failed++;
+                continue;
+            }
+            logger.warn("JDBC::storeItemValues: batch of {} values for table '{}' failed, storing them one by one",
+                    rows.size(), tableName);
+            for (ItemVO row : rows) {
+                if (!doStoreItemValues(tableName, List.of(row))) {
+                    failed++;
+                }
+            }
+        }
+        logTime("storeItemValues", timerStart, System.currentTimeMillis());
+        if (failed > 0) {
+            logger.warn("JDBC::storeItemValues: {} of {} values could not be stored", failed, total);
+            errCnt += failed;
+        } else {
+            errCnt = 0;
+        }
+        return failed;
+    }
+
+    private boolean doStoreItemValues(String tableName, List<ItemVO> rows) {
+        try {
+            return conf.getDBDAO().doStoreItemValues(tableName, rows);
+        } catch (RuntimeException e) {
+            logger.warn("JDBC::storeItemValues: failed to store {} values for table '{}': {}", rows.size(), tableName,
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    public Iterable<HistoricItem> getHistItemFilterQuery(FilterCriteria filter, int numberDecimalcount, String table,
             Item item) {
         logger.debug(
                 "JDBC::getHistItemFilterQuery filter='{}' numberDecimalcount='{}' table='{}' item='{}' itemName='{}'",
                 (filter != null), numberDecimalcount, table, item, item.getName());
         if (table != null) {
             long timerStart = System.currentTimeMillis();
-            List<HistoricItem> r = conf.getDBDAO().doGetHistItemFilterQuery(item, filter, numberDecimalcount, table,
-                    item.getName());
+            JdbcBaseDAO dao = conf.getDBDAO();
+            Iterable<HistoricItem> r;
+            long bucketSeconds = getAggregationBucketSeconds(filter, table);
+            if (bucketSeconds > 0) {
+                String aggregation = conf.getQueryAggregation();
+                if (!AGGREGATABLE_ITEM_TYPES.contains(dao.getItemType(item))) {
+                    // averages and extremes of text values make no sense, use the last value of each bucket
+                    aggregation = "LAST";
+                }
+                r = dao.doGetAggregatedHistItemFilterQuery(item, filter, table, aggregation, bucketSeconds);
+            } else if (conf.getQueryFetchSize() > 0 && filter.getPageSize() == Integer.MAX_VALUE) {
+                // paged queries already limit their rows, only whole ranges are read in pages of the fetch size
+                r = dao.doStreamHistItemFilterQuery(item, filter, numberDecimalcount, table, item.getName(),
+                        conf.getQueryFetchSize());
+            } else {
+                r = dao.doGetHistItemFilterQuery(item, filter, numberDecimalcount, table, item.getName());
+            }
             logTime("insertItemValue", timerStart, System.currentTimeMillis());
             return r;
         } else {
@@ -169,6 +267,55 @@ public class JdbcMapper {
         return null;
     }
 
+    /**
+     * Decides whether a query is aggregated in the database: only unpaged queries with a begin date are, if the
+     * range holds more rows than the configured threshold. The range is then split into as many buckets as the
+     * threshold allows.
+     *
+     * @return the length of a bucket in seconds, or 0 if the raw rows are queried
+     */
+    private long getAggregationBucketSeconds(FilterCriteria filter, String table) {
+        if (conf.getQueryAggregation() == null || filter.getBeginDate() == null
+                || filter.getPageSize() != Integer.MAX_VALUE) {
+            return 0;
+        }
+        int threshold = conf.getQueryAggregationThreshold();
+        long rows = conf.getDBDAO().doGetRowCount(filter, table);
+        if (rows <= threshold) {
+            return 0;
+        }
+        ZonedDateTime end = filter.getEndDate() != null ? filter.getEndDate() : ZonedDateTime.now();
+        long rangeSeconds = Duration.between(filter.getBeginDate(), end).getSeconds();
+        long bucketSeconds = Math.max((rangeSeconds + threshold - 1) / threshold, 1);
+        logger.debug("JDBC::getAggregationBucketSeconds: {} rows in table '{}', aggregating per {} s", rows, table,
+                bucketSeconds);
+        return bucketSeconds;
+    }
+
+    /**
+     * Adds upcoming partitions to partitioned item tables and removes values beyond the retention period.
+     */
+    public void maintainItemTables() {
+        JdbcBaseDAO dao = conf.getDBDAO();
+        boolean partitioned = conf.getPartitionDays() > 0 && dao.isPartitioningSupported();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(conf.getRetentionDays());
+        long timerStart = System.currentTimeMillis();
+        for (String tableName : sqlTables.values()) {
+            try {
+                if (partitioned) {
+                    dao.doMaintainPartitions(tableName, conf.getPartitionDays());
+                }
+                if (conf.getRetentionDays() > 0) {
+                    dao.doPruneItemTable(tableName, cutoff);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("JDBC::maintainItemTables: maintenance of table '{}' failed: {}", tableName,
+                        e.getMessage());
+            }
+        }
+        logTime("maintainItemTables", timerStart, System.currentTimeMillis());
+    }
+
     /***********************
      * DATABASE CONNECTION *
      ***********************/
@@ -235,14 +382,25 @@ public class JdbcMapper {
     }
 
     protected String getTable(Item item) {
+        String itemName = item.getName();
+        String tableName = sqlTables.get(itemName);
+
+        // Table already exists - return the name
+        if (tableName != null) {
+            return tableName;
+        }
+
+        return createTable(item);
+    }
+
+    private synchronized String createTable(Item item) {
         int rowId = 0;
         ItemsVO isvo;
         ItemVO ivo;
 
         String itemName = item.getName();
+        // another thread may have created the table in the meantime
         String tableName = sqlTables.get(itemName);
-
-        // Table already exists - return the name
         if (tableName != null) {
             return tableName;
         }
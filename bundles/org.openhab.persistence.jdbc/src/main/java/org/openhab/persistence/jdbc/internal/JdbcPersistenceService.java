@@ -12,13 +12,23 @@
  */
 package org.openhab.persistence.jdbc.internal;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.NamedThreadFactory;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.items.GroupItem;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
@@ -30,6 +40,7 @@ import org.openhab.core.persistence.PersistenceService;
 import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.UnDefType;
+import org.openhab.persistence.jdbc.model.ItemVO;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -52,8 +63,16 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
 
     private final Logger logger = LoggerFactory.getLogger(JdbcPersistenceService.class);
 
+    // how long store() waits for space in a full write-behind queue before the value is dropped
+    private static final long QUEUE_OFFER_TIMEOUT_MS = 100;
+
     private final ItemRegistry itemRegistry;
 
+    private volatile @Nullable BlockingQueue<ItemVO> pendingValues;
+    private volatile @Nullable ScheduledExecutorService writer;
+    private @Nullable ScheduledFuture<?> maintenanceJob;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
     @Activate
     public JdbcPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
@@ -96,6 +115,12 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
     public void deactivate(final int reason) {
         logger.debug("JDBC::deactivate:  persistence bundle stopping. Disconnecting from database. reason={}", reason);
         // closeConnection();
+        stopWriter();
+        ScheduledFuture<?> maintenanceJob = this.maintenanceJob;
+        if (maintenanceJob != null) {
+            maintenanceJob.cancel(false);
+            this.maintenanceJob = null;
+        }
         initialized = false;
     }
 
@@ -131,12 +156,97 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
                     item, errCnt, conf.getErrReconnectThreshold());
             return;
         }
+        BlockingQueue<ItemVO> queue = pendingValues;
+        if (queue != null) {
+            queueItemValue(item, queue);
+            return;
+        }
         long timerStart = System.currentTimeMillis();
         storeItemValue(item);
         logger.debug("JDBC: Stored item '{}' as '{}' in SQL database at {} in {} ms.", item.getName(),
                 item.getState().toString(), (new java.util.Date()).toString(), System.currentTimeMillis() - timerStart);
     }
 
+    private void queueItemValue(Item item, BlockingQueue<ItemVO> queue) {
+        ItemVO vo = prepareItemValue(item);
+        if (vo == null) {
+            return;
+        }
+        try {
+            if (!queue.offer(vo, QUEUE_OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                logger.warn("JDBC::store: write queue is full ({} values), dropping value of item '{}'", queue.size(),
+                        item.getName());
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        ScheduledExecutorService writer = this.writer;
+        if (writer != null && queue.size() >= conf.getBatchSize() && flushRequested.compareAndSet(false, true)) {
+            writer.execute(this::flushPendingValues);
+        }
+    }
+
+    /**
+     * Writes all queued values, in batches of at most batchSize rows.
+     */
+    private void flushPendingValues() {
+        flushRequested.set(false);
+        BlockingQueue<ItemVO> queue = pendingValues;
+        if (queue != null) {
+            flushPendingValues(queue);
+        }
+    }
+
+    private void flushPendingValues(BlockingQueue<ItemVO> queue) {
+        List<ItemVO> batch = new ArrayList<>(conf.getBatchSize());
+        try {
+            while (queue.drainTo(batch, conf.getBatchSize()) > 0) {
+                long timerStart = System.currentTimeMillis();
+                int failed = storeItemValues(batch);
+                logger.debug("JDBC: Stored {} of {} queued values in SQL database in {} ms.", batch.size() - failed,
+                        batch.size(), System.currentTimeMillis() - timerStart);
+                batch.clear();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("JDBC::flush: failed to store {} queued values: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private void startWriter() {
+        if (conf.getBatchSize() <= 0) {
+            return;
+        }
+        logger.debug("JDBC::startWriter: batchSize={} batchInterval={} ms batchQueueSize={}", conf.getBatchSize(),
+                conf.getBatchInterval(), conf.getBatchQueueSize());
+        pendingValues = new ArrayBlockingQueue<>(conf.getBatchQueueSize());
+        ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("jdbc"));
+        writer.scheduleWithFixedDelay(this::flushPendingValues, conf.getBatchInterval(), conf.getBatchInterval(),
+                TimeUnit.MILLISECONDS);
+        this.writer = writer;
+    }
+
+    private void stopWriter() {
+        ScheduledExecutorService writer = this.writer;
+        if (writer == null) {
+            return;
+        }
+        BlockingQueue<ItemVO> queue = pendingValues;
+        // new values are stored directly from now on
+        pendingValues = null;
+        this.writer = null;
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (queue != null) {
+            flushPendingValues(queue);
+        }
+    }
+
     @Override
     public Set<PersistenceItemInfo> getItemInfo() {
         return getItems();
@@ -194,10 +304,15 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
         }
 
         long timerStart = System.currentTimeMillis();
-        List<HistoricItem> items = getHistItemFilterQuery(filter, conf.getNumberDecimalcount(), table, item);
+        Iterable<HistoricItem> items = getHistItemFilterQuery(filter, conf.getNumberDecimalcount(), table, item);
 
-        logger.debug("JDBC::query: query for {} returned {} rows in {} ms", item.getName(), items.size(),
-                System.currentTimeMillis() - timerStart);
+        if (items instanceof List) {
+            logger.debug("JDBC::query: query for {} returned {} rows in {} ms", item.getName(),
+                    ((List<?>) items).size(), System.currentTimeMillis() - timerStart);
+        } else {
+            logger.debug("JDBC::query: query for {} prepared in {} ms, rows are streamed", item.getName(),
+                    System.currentTimeMillis() - timerStart);
+        }
 
         // Success
         errCnt = 0;
@@ -212,6 +327,12 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
             checkDBSchema();
             // connection has been established ... initialization completed!
             initialized = true;
+            startWriter();
+            if (conf.getPartitionDays() > 0 || conf.getRetentionDays() > 0) {
+                // partitions are added a whole range ahead, so once a day is often enough
+                maintenanceJob = ThreadPoolManager.getScheduledPool("jdbc").scheduleWithFixedDelay(
+                        this::maintainItemTables, 1, TimeUnit.DAYS.toMinutes(1), TimeUnit.MINUTES);
+            }
         } else {
             initialized = false;
         }
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.persistence.jdbc.model.JdbcHistoricItem;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+public class JdbcHistoricItemStreamTest {
+
+    private static final ZonedDateTime START = ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneId.systemDefault());
+
+    private final List<String> reads = new ArrayList<>();
+    private final NavigableMap<ZonedDateTime, Integer> table = new TreeMap<>();
+
+    /**
+     * Simulates a table with the given number of rows read in the given order, recording every page read by the
+     * value of the last row read before it
+     */
+    private JdbcHistoricItemStream stream(int rows, int fetchSize, boolean descending) {
+        for (int i = 0; i < rows; i++) {
+            table.put(START.plusSeconds(i), i);
+        }
+        return new JdbcHistoricItemStream(fetchSize, (lastTime, pageSize) -> {
+            reads.add((lastTime == null ? "-" : table.get(lastTime)) + "/" + pageSize);
+            NavigableMap<ZonedDateTime, Integer> rest = descending ? table.descendingMap() : table;
+            if (lastTime != null) {
+                rest = rest.tailMap(lastTime, false);
+            }
+            List<HistoricItem> page = new ArrayList<>();
+            rest.entrySet().stream().limit(pageSize).forEach(row -> page
+                    .add(new JdbcHistoricItem("item", new DecimalType(row.getValue()), row.getKey())));
+            return page;
+        });
+    }
+
+    private JdbcHistoricItemStream stream(int rows, int fetchSize) {
+        return stream(rows, fetchSize, false);
+    }
+
+    private static List<Integer> values(Iterable<HistoricItem> items) {
+        List<Integer> values = new ArrayList<>();
+        items.forEach(item -> values.add(((DecimalType) item.getState()).intValue()));
+        return values;
+    }
+
+    @Test
+    public void testAllRowsAreReadInPages() {
+        assertThat(values(stream(5, 2)), contains(0, 1, 2, 3, 4));
+        assertThat(reads, contains("-/2", "1/2", "3/2"));
+    }
+
+    @Test
+    public void testEmptyPageEndsFullPages() {
+        assertThat(values(stream(4, 2)), contains(0, 1, 2, 3));
+        assertThat(reads, contains("-/2", "1/2", "3/2"));
+
+        reads.clear();
+        table.clear();
+        assertThat(values(stream(0, 2)), is(empty()));
+        assertThat(reads, contains("-/2"));
+    }
+
+    @Test
+    public void testPagesAreReadLazily() {
+        Iterator<HistoricItem> iterator = stream(10, 3).iterator();
+        assertThat(reads, is(empty()));
+
+        iterator.next();
+        iterator.next();
+        iterator.next();
+        assertThat(reads, contains("-/3"));
+
+        assertThat(iterator.hasNext(), is(true));
+        assertThat(reads, contains("-/3", "2/3"));
+    }
+
+    @Test
+    public void testIteratorMayBeAbandoned() {
+        JdbcHistoricItemStream stream = stream(10, 3);
+
+        // stop after the first row, like a caller only interested in the latest value
+        Iterator<HistoricItem> abandoned = stream.iterator();
+        assertThat(((DecimalType) abandoned.next().getState()).intValue(), is(0));
+        assertThat(reads, contains("-/3"));
+
+        // every iteration starts from the beginning with its own queries
+        assertThat(values(stream), contains(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+        assertThat(reads, contains("-/3", "-/3", "2/3", "5/3", "8/3"));
+    }
+
+    @Test
+    public void testNextAfterLastRow() {
+        Iterator<HistoricItem> iterator = stream(1, 2).iterator();
+        iterator.next();
+        assertThat(iterator.hasNext(), is(false));
+        assertThrows(NoSuchElementException.class, iterator::next);
+        assertThat(reads, contains("-/2"));
+    }
+
+    @Test
+    public void testRowsStoredWhileIteratingDoNotShiftPages() {
+        Iterator<HistoricItem> iterator = stream(5, 2, true).iterator();
+        assertThat(((DecimalType) iterator.next().getState()).intValue(), is(4));
+
+        // a newer row stored meanwhile is not part of a descending iteration that already started
+        table.put(START.plusSeconds(5), 5);
+
+        List<Integer> rest = new ArrayList<>();
+        iterator.forEachRemaining(item -> rest.add(((DecimalType) item.getState()).intValue()));
+        assertThat(rest, contains(3, 2, 1, 0));
+        assertThat(reads, contains("-/2", "3/2", "1/2"));
+    }
+
+    @Test
+    public void testPageContinuesAfterLastTime() {
+        ZonedDateTime begin = START.minusDays(1);
+        ZonedDateTime end = START.plusDays(1);
+        ZonedDateTime last = START.plusNanos(500_000_000);
+        FilterCriteria filter = new FilterCriteria().setItemName("item").setBeginDate(begin).setEndDate(end);
+
+        FilterCriteria first = JdbcBaseDAO.pageAfter(filter, null, 10);
+        assertThat(first.getBeginDate(), is(begin));
+        assertThat(first.getEndDate(), is(end));
+        assertThat(first.getPageNumber(), is(0));
+        assertThat(first.getPageSize(), is(10));
+
+        FilterCriteria descending = JdbcBaseDAO.pageAfter(filter.setOrdering(Ordering.DESCENDING), last, 10);
+        assertThat(descending.getBeginDate(), is(begin));
+        assertThat(descending.getEndDate(), is(last));
+
+        FilterCriteria ascending = JdbcBaseDAO.pageAfter(filter.setOrdering(Ordering.ASCENDING), last, 10);
+        assertThat(ascending.getBeginDate(), is(last));
+        assertThat(ascending.getEndDate(), is(end));
+        assertThat(ascending.getPageNumber(), is(0));
+
+        // the bound keeps the milliseconds of the last row
+        assertThat(JdbcBaseDAO.JDBC_FILTER_DATE_FORMAT.format(last), is("2020-01-01 00:00:00.500"));
+    }
+}
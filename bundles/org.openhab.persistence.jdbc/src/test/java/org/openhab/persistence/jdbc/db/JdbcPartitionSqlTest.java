@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.openhab.persistence.jdbc.model.ItemVO;
+
+/**
+ * Checks the partitioning statements against the item table schema the DAOs create.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+public class JdbcPartitionSqlTest {
+
+    private static final LocalDate START = LocalDate.of(2020, 1, 1);
+    private static final LocalDate END = LocalDate.of(2020, 2, 1);
+
+    private static ItemVO item() {
+        ItemVO vo = new ItemVO("item0001", null);
+        vo.setDbType("DOUBLE");
+        return vo;
+    }
+
+    @Test
+    public void testMysqlWithFractionalSeconds() {
+        JdbcMysqlDAO dao = new JdbcMysqlDAO();
+        dao.initFractionalSecondsSqlTypes();
+
+        assertThat(dao.createPartitionedItemTableProvider(item(), START, END), is(
+                "CREATE TABLE IF NOT EXISTS item0001 (time DATETIME(3) NOT NULL, value DOUBLE, PRIMARY KEY(time)) "
+                        + "PARTITION BY RANGE COLUMNS(time) (PARTITION p20200101 VALUES LESS THAN ('2020-02-01 00:00:00'), "
+                        + "PARTITION pmax VALUES LESS THAN (MAXVALUE))"));
+        assertThat(dao.addPartitionProvider("item0001", START, END),
+                is("ALTER TABLE item0001 REORGANIZE PARTITION pmax INTO (PARTITION p20200101 VALUES LESS THAN "
+                        + "('2020-02-01 00:00:00'), PARTITION pmax VALUES LESS THAN (MAXVALUE))"));
+    }
+
+    @Test
+    public void testMariadbWithFractionalSeconds() {
+        JdbcMariadbDAO dao = new JdbcMariadbDAO();
+        dao.initFractionalSecondsSqlTypes();
+
+        String sql = dao.createPartitionedItemTableProvider(item(), START, END);
+        // RANGE partitioning needs an integer expression, UNIX_TIMESTAMP() of a TIMESTAMP(3) is a decimal
+        assertThat(sql, not(containsString("UNIX_TIMESTAMP")));
+        assertThat(sql, not(containsString("TIMESTAMP(3)")));
+        assertThat(sql, containsString("time DATETIME(3) NOT NULL"));
+    }
+
+    @Test
+    public void testWithoutFractionalSeconds() {
+        JdbcMysqlDAO dao = new JdbcMysqlDAO();
+
+        assertThat(dao.createPartitionedItemTableProvider(item(), START, END),
+                startsWith("CREATE TABLE IF NOT EXISTS item0001 (time DATETIME NOT NULL,"));
+    }
+
+    @Test
+    public void testPostgresql() {
+        JdbcPostgresqlDAO dao = new JdbcPostgresqlDAO();
+
+        assertThat(dao.createPartitionedItemTableProvider(item(), START, END),
+                is("CREATE TABLE IF NOT EXISTS item0001 (time " + dao.sqlTypes.get("tablePrimaryKey")
+                        + " NOT NULL, value DOUBLE, PRIMARY KEY(time)) PARTITION BY RANGE (time)"));
+        assertThat(dao.addPartitionProvider("item0001", START, END),
+                is("CREATE TABLE IF NOT EXISTS item0001_p20200101 PARTITION OF item0001 FOR VALUES FROM "
+                        + "('2020-01-01 00:00:00') TO ('2020-02-01 00:00:00')"));
+    }
+}
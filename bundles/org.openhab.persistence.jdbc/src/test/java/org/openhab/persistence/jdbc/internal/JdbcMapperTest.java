@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.persistence.jdbc.db.JdbcBaseDAO;
+import org.openhab.persistence.jdbc.model.ItemVO;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+public class JdbcMapperTest {
+
+    private final JdbcBaseDAO dao = mock(JdbcBaseDAO.class);
+    private final JdbcMapper mapper = new JdbcMapper();
+    private final List<String> stored = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        JdbcConfiguration conf = mock(JdbcConfiguration.class);
+        when(conf.getDBDAO()).thenReturn(dao);
+        mapper.conf = conf;
+    }
+
+    private static ItemVO row(String tableName, long time, Object value) {
+        ItemVO vo = new ItemVO(tableName, null);
+        vo.setTime(new Date(time));
+        vo.setValue(value);
+        return vo;
+    }
+
+    /**
+     * Lets batches fail, and single rows fail if their value is "bad"
+     */
+    @SuppressWarnings("unchecked")
+    private void failBatchesAndBadRows() {
+        when(dao.doStoreItemValues(anyString(), anyList())).thenAnswer(invocation -> {
+            List<ItemVO> rows = invocation.getArgument(1);
+            if (rows.size() > 1) {
+                return false;
+            }
+            if ("bad".equals(rows.get(0).getValue())) {
+                return false;
+            }
+            stored.add(invocation.getArgument(0) + ":" + rows.get(0).getValue());
+            return true;
+        });
+    }
+
+    @Test
+    public void testSuccessfulBatchResetsErrorCount() {
+        when(dao.doStoreItemValues(anyString(), anyList())).thenReturn(true);
+        mapper.errCnt = 3;
+
+        int failed = mapper.storeItemValues(List.of(row("item0001", 1, "a"), row("item0001", 2, "b"),
+                row("item0002", 1, "c")));
+
+        assertThat(failed, is(0));
+        assertThat(mapper.errCnt, is(0));
+        verify(dao, times(2)).doStoreItemValues(anyString(), anyList());
+    }
+
+    @Test
+    public void testFailedBatchIsStoredRowByRow() {
+        failBatchesAndBadRows();
+        mapper.errCnt = 3;
+
+        int failed = mapper.storeItemValues(List.of(row("item0001", 1, "a"), row("item0001", 2, "bad"),
+                row("item0001", 3, "c")));
+
+        // the bad row is lost, the others are stored
+        assertThat(failed, is(1));
+        assertThat(stored, contains("item0001:a", "item0001:c"));
+        assertThat(mapper.errCnt, is(4));
+    }
+
+    @Test
+    public void testFailureOfOneTableDoesNotAffectOthers() {
+        failBatchesAndBadRows();
+
+        int failed = mapper.storeItemValues(List.of(row("item0001", 1, "bad"), row("item0002", 1, "b")));
+
+        assertThat(failed, is(1));
+        assertThat(stored, contains("item0002:b"));
+        assertThat(mapper.errCnt, is(1));
+    }
+
+    @Test
+    public void testExceptionIsTreatedAsFailedBatch() {
+        when(dao.doStoreItemValues(anyString(), anyList())).thenThrow(new IllegalStateException("no pool"));
+
+        int failed = mapper.storeItemValues(List.of(row("item0001", 1, "a"), row("item0001", 2, "b")));
+
+        assertThat(failed, is(2));
+        assertThat(mapper.errCnt, is(2));
+        // the batch and then each of its rows
+        verify(dao, times(3)).doStoreItemValues(anyString(), anyList());
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.library.types.DateTimeType;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.types.State;
+import org.openhab.core.types.TypeParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A compact binary format for {@link MapDbItem}s.
+ *
+ * The common state types are written as their raw values, all others as class name and full string like the
+ * {@link StateTypeAdapter} does.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbItemCodec {
+    private static final byte VERSION = 1;
+
+    private static final byte TYPE_OTHER = 0;
+    private static final byte TYPE_DECIMAL = 1;
+    private static final byte TYPE_ON_OFF = 2;
+    private static final byte TYPE_OPEN_CLOSED = 3;
+    private static final byte TYPE_PERCENT = 4;
+    private static final byte TYPE_STRING = 5;
+    private static final byte TYPE_DATE_TIME = 6;
+
+    private final Logger logger = LoggerFactory.getLogger(MapDbItemCodec.class);
+
+    public byte[] encode(MapDbItem item) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(item.getTimestamp().toInstant().toEpochMilli());
+            writeString(out, item.getName());
+            writeState(out, item.getState());
+        } catch (IOException e) {
+            // writing to a byte array does not fail
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public @Nullable MapDbItem decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                logger.warn("Couldn't decode item: unknown version {}", version);
+                return null;
+            }
+            MapDbItem item = new MapDbItem();
+            item.setTimestamp(new Date(in.readLong()));
+            item.setName(readString(in));
+            State state = readState(in);
+            if (state == null) {
+                return null;
+            }
+            item.setState(state);
+            return item;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Couldn't decode item: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeState(DataOutputStream out, State state) throws IOException {
+        // compare the exact classes, e.g. HSBType is a PercentType and PercentType is a DecimalType
+        Class<?> type = state.getClass();
+        if (type == DecimalType.class) {
+            out.writeByte(TYPE_DECIMAL);
+            writeDecimal(out, ((DecimalType) state).toBigDecimal());
+        } else if (type == PercentType.class) {
+            out.writeByte(TYPE_PERCENT);
+            writeDecimal(out, ((PercentType) state).toBigDecimal());
+        } else if (type == OnOffType.class) {
+            out.writeByte(TYPE_ON_OFF);
+            out.writeBoolean(state == OnOffType.ON);
+        } else if (type == OpenClosedType.class) {
+            out.writeByte(TYPE_OPEN_CLOSED);
+            out.writeBoolean(state == OpenClosedType.OPEN);
+        } else if (type == StringType.class) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, state.toFullString());
+        } else if (type == DateTimeType.class) {
+            ZonedDateTime dateTime = ((DateTimeType) state).getZonedDateTime();
+            out.writeByte(TYPE_DATE_TIME);
+            out.writeLong(dateTime.toEpochSecond());
+            out.writeInt(dateTime.getNano());
+            writeString(out, dateTime.getZone().getId());
+        } else {
+            out.writeByte(TYPE_OTHER);
+            writeString(out, type.getName());
+            writeString(out, state.toFullString());
+        }
+    }
+
+    private @Nullable State readState(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_DECIMAL:
+                return new DecimalType(readDecimal(in));
+            case TYPE_PERCENT:
+                return new PercentType(readDecimal(in));
+            case TYPE_ON_OFF:
+                return in.readBoolean() ? OnOffType.ON : OnOffType.OFF;
+            case TYPE_OPEN_CLOSED:
+                return in.readBoolean() ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
+            case TYPE_STRING:
+                return new StringType(readString(in));
+            case TYPE_DATE_TIME:
+                Instant instant = Instant.ofEpochSecond(in.readLong(), in.readInt());
+                return new DateTimeType(ZonedDateTime.ofInstant(instant, ZoneId.of(readString(in))));
+            case TYPE_OTHER:
+                String typeName = readString(in);
+                String value = readString(in);
+                try {
+                    @SuppressWarnings("unchecked")
+                    Class<? extends State> valueType = (Class<? extends State>) Class.forName(typeName);
+                    return TypeParser.parseState(List.of(valueType), value);
+                } catch (ClassNotFoundException e) {
+                    logger.warn("Couldn't decode state '{}': unknown type {}", value, typeName);
+                    return null;
+                }
+            default:
+                logger.warn("Couldn't decode state: unknown type tag {}", type);
+                return null;
+        }
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeInt(value.scale());
+        out.writeInt(unscaled.length);
+        out.write(unscaled);
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        int scale = in.readInt();
+        byte[] unscaled = new byte[in.readInt()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
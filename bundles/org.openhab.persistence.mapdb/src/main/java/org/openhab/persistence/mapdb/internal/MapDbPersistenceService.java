@@ -19,16 +19,20 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
+import org.mapdb.Serializer;
 import org.openhab.core.OpenHAB;
 import org.openhab.core.common.ThreadPoolManager;
+import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.items.Item;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
@@ -38,9 +42,11 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
 import org.openhab.core.types.UnDefType;
+import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,30 +61,46 @@ import com.google.gson.GsonBuilder;
  * @author Martin Kühl - Port to 3.x
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class, QueryablePersistenceService.class })
+@Component(service = { PersistenceService.class, QueryablePersistenceService.class }, configurationPid = "org.openhab.mapdb", //
+        property = Constants.SERVICE_PID + "=org.openhab.mapdb")
+@ConfigurableService(category = "persistence", label = "MapDB Persistence Service", description_uri = MapDbPersistenceService.CONFIG_URI)
 public class MapDbPersistenceService implements QueryablePersistenceService {
 
+    protected static final String CONFIG_URI = "persistence:mapdb";
+
     private static final String SERVICE_ID = "mapdb";
     private static final String SERVICE_LABEL = "MapDB";
     private static final String DB_FOLDER_NAME = OpenHAB.getUserDataFolder() + File.separator + "persistence"
             + File.separator + "mapdb";
     private static final String DB_FILE_NAME = "storage.mapdb";
+    // map of the binary item format
+    private static final String ITEM_STORE_NAME = "itemBinaryStore";
+    // map of the former JSON item format, migrated on activation
+    private static final String JSON_ITEM_STORE_NAME = "itemStore";
+    private static final long DEFAULT_COMMIT_INTERVAL = 1000;
 
     private final Logger logger = LoggerFactory.getLogger(MapDbPersistenceService.class);
 
-    private final ExecutorService threadPool = ThreadPoolManager.getPool(getClass().getSimpleName());
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(getClass().getSimpleName());
 
     /** holds the local instance of the MapDB database */
 
     private @NonNullByDefault({}) DB db;
-    private @NonNullByDefault({}) Map<String, String> map;
+    private @NonNullByDefault({}) Map<String, byte[]> map;
+
+    private final MapDbItemCodec codec = new MapDbItemCodec();
 
-    private transient Gson mapper = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter())
-            .create();
+    // at most one commit is pending, stores in the meantime are part of it
+    private final AtomicBoolean commitPending = new AtomicBoolean();
+    private @Nullable ScheduledFuture<?> commitJob;
+    private long commitInterval = DEFAULT_COMMIT_INTERVAL;
+    // guarded by this, commits and closing the database must not overlap
+    private boolean closed;
 
     @Activate
-    public void activate() {
+    public void activate(final @Nullable Map<String, @Nullable Object> config) {
         logger.debug("MapDB persistence service is being activated");
+        modified(config);
 
         File folder = new File(DB_FOLDER_NAME);
         if (!folder.exists()) {
@@ -91,15 +113,39 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
         File dbFile = new File(DB_FOLDER_NAME, DB_FILE_NAME);
         db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
-        map = db.createTreeMap("itemStore").makeOrGet();
+        map = db.createTreeMap(ITEM_STORE_NAME).valueSerializer(Serializer.BYTE_ARRAY).makeOrGet();
+        migrateJsonItems();
         logger.debug("MapDB persistence service is now activated");
     }
 
+    @Modified
+    protected void modified(final @Nullable Map<String, @Nullable Object> config) {
+        Object interval = config == null ? null : config.get("commitInterval");
+        commitInterval = DEFAULT_COMMIT_INTERVAL;
+        if (interval != null) {
+            try {
+                commitInterval = Math.max(Long.parseLong(interval.toString()), 0);
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid commitInterval '{}', using {} ms", interval, DEFAULT_COMMIT_INTERVAL);
+            }
+        }
+        logger.debug("MapDB commit interval is {} ms", commitInterval);
+    }
+
     @Deactivate
     public void deactivate() {
         logger.debug("MapDB persistence service deactivated");
-        if (db != null) {
-            db.close();
+        ScheduledFuture<?> commitJob = this.commitJob;
+        if (commitJob != null) {
+            commitJob.cancel(false);
+        }
+        // waits for a commit job that is already running
+        synchronized (this) {
+            if (db != null && !closed) {
+                commitPendingStores();
+                db.close();
+            }
+            closed = true;
         }
     }
 
@@ -115,8 +161,12 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
     @Override
     public Set<PersistenceItemInfo> getItemInfo() {
-        return map.values().stream().map(this::deserialize).flatMap(MapDbPersistenceService::streamOptional)
-                .collect(Collectors.<PersistenceItemInfo> toUnmodifiableSet());
+        // the items are stored by their name and hold a single value, so the values need not be decoded
+        return map.keySet().stream().map(name -> {
+            MapDbItem item = new MapDbItem();
+            item.setName(name);
+            return item;
+        }).collect(Collectors.<PersistenceItemInfo> toUnmodifiableSet());
     }
 
     @Override
@@ -139,30 +189,69 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         mItem.setName(localAlias);
         mItem.setState(state);
         mItem.setTimestamp(new Date());
-        String json = serialize(mItem);
-        map.put(localAlias, json);
+        map.put(localAlias, codec.encode(mItem));
         commit();
-        if (logger.isDebugEnabled()) {
-            logger.debug("Stored '{}' with state '{}' as '{}' in MapDB database", localAlias, state, json);
-        }
+        logger.debug("Stored '{}' with state '{}' in MapDB database", localAlias, state);
     }
 
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
-        String json = map.get(filter.getItemName());
-        if (json == null) {
+        byte[] data = map.get(filter.getItemName());
+        if (data == null) {
+            return List.of();
+        }
+        MapDbItem item = codec.decode(data);
+        if (item == null) {
+            logger.warn("Couldn't decode stored item '{}'", filter.getItemName());
             return List.of();
         }
-        Optional<MapDbItem> item = deserialize(json);
-        return item.isPresent() ? List.of(item.get()) : List.of();
+        logger.debug("Decoded '{}' with state '{}'", item.getName(), item.getState());
+        return List.of(item);
     }
 
-    private String serialize(MapDbItem item) {
-        return mapper.toJson(item);
+    /**
+     * Schedules a commit unless one is pending already, so that a burst of stores results in a single commit.
+     */
+    private void commit() {
+        if (commitPending.compareAndSet(false, true)) {
+            commitJob = scheduler.schedule(this::commitPendingStores, commitInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Commits the stores since the last commit, unless the database has been closed.
+     */
+    private synchronized void commitPendingStores() {
+        // reset before committing, changes made during the commit need another one
+        if (commitPending.getAndSet(false) && !closed) {
+            db.commit();
+        }
+    }
+
+    /**
+     * Converts the items of the former JSON format into the binary format and removes the JSON map.
+     */
+    private void migrateJsonItems() {
+        if (!db.exists(JSON_ITEM_STORE_NAME)) {
+            return;
+        }
+        Gson mapper = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter()).create();
+        Map<String, String> jsonMap = db.getTreeMap(JSON_ITEM_STORE_NAME);
+        int count = 0;
+        for (Map.Entry<String, String> entry : jsonMap.entrySet()) {
+            Optional<MapDbItem> item = deserialize(mapper, entry.getValue());
+            if (item.isPresent() && !map.containsKey(entry.getKey())) {
+                map.put(entry.getKey(), codec.encode(item.get()));
+                count++;
+            }
+        }
+        db.delete(JSON_ITEM_STORE_NAME);
+        db.commit();
+        logger.info("Migrated {} items of the MapDB database to the binary format", count);
     }
 
     @SuppressWarnings("null")
-    private Optional<MapDbItem> deserialize(String json) {
+    private Optional<MapDbItem> deserialize(Gson mapper, String json) {
         MapDbItem item = mapper.<MapDbItem> fromJson(json, MapDbItem.class);
         if (item == null || !item.isValid()) {
             logger.warn("Deserialized invalid item: {}", item);
@@ -174,14 +263,6 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         return Optional.of(item);
     }
 
-    private void commit() {
-        threadPool.submit(() -> db.commit());
-    }
-
-    private static <T> Stream<T> streamOptional(Optional<T> opt) {
-        return opt.isPresent() ? Stream.of(opt.get()) : Stream.empty();
-    }
-
     @Override
     public List<PersistenceStrategy> getDefaultStrategies() {
         return List.of(PersistenceStrategy.Globals.RESTORE, PersistenceStrategy.Globals.CHANGE);
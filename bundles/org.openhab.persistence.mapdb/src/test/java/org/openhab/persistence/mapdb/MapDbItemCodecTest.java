@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.openhab.core.library.types.DateTimeType;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.unit.SIUnits;
+import org.openhab.core.types.State;
+import org.openhab.persistence.mapdb.internal.MapDbItem;
+import org.openhab.persistence.mapdb.internal.MapDbItemCodec;
+
+/**
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbItemCodecTest {
+    private MapDbItemCodec codec = new MapDbItemCodec();
+
+    private static final List<State> VALUES = Stream.of(DecimalType.ZERO, new DecimalType(1.123),
+            new DecimalType(new BigDecimal("-12345678901234567890.0001")), OnOffType.ON, OnOffType.OFF,
+            OpenClosedType.OPEN, OpenClosedType.CLOSED, PercentType.ZERO, PercentType.valueOf("99.999"),
+            StringType.valueOf(""), StringType.valueOf("äöü @@@ €"),
+            new DateTimeType(ZonedDateTime.of(2020, 3, 29, 2, 30, 15, 123_000_000, ZoneId.of("Europe/Berlin"))),
+            new DateTimeType(ZonedDateTime.of(1969, 12, 31, 23, 59, 59, 0, ZoneId.of("UTC"))), HSBType.fromRGB(1, 2, 3),
+            new QuantityType<>(new BigDecimal("21.23"), SIUnits.CELSIUS)).collect(Collectors.toList());
+
+    @ParameterizedTest
+    @MethodSource
+    public void encodeDecodeRoundtripShouldRecreateTheState(State state) {
+        MapDbItem item = new MapDbItem();
+        item.setName("item");
+        item.setState(state);
+        item.setTimestamp(new Date(1585441815123L));
+
+        MapDbItem actual = codec.decode(codec.encode(item));
+
+        assertThat(actual, is(notNullValue()));
+        assertThat(actual.getName(), is(equalTo("item")));
+        assertThat(actual.getState(), is(equalTo(state)));
+        assertThat(actual.getTimestamp(), is(equalTo(item.getTimestamp())));
+    }
+
+    public static Stream<State> encodeDecodeRoundtripShouldRecreateTheState() {
+        return VALUES.stream();
+    }
+
+    @Test
+    public void decodeShouldRejectInvalidData() {
+        assertThat(codec.decode(new byte[0]), is(nullValue()));
+        assertThat(codec.decode(new byte[] { 42 }), is(nullValue()));
+    }
+}
@@ -0,0 +1,284 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.rrd4j.core.RrdDb;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of open {@link RrdDb} handles, keyed by the database name.
+ *
+ * Handles are reference counted: a handle obtained by {@link #request(String, DbFactory)} must be given back by
+ * {@link #release(String)}. Idle handles stay open and are closed in least-recently-used order once the pool grows
+ * beyond its capacity. Handles that are still in use are never closed, so the pool may temporarily exceed its
+ * capacity under load.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class RRD4jDbPool {
+
+    /**
+     * Opens or creates the database for a pool miss.
+     */
+    @FunctionalInterface
+    public interface DbFactory {
+        @Nullable
+        RrdDb create() throws IOException;
+    }
+
+    /**
+     * Closes a database that is removed from the pool.
+     */
+    @FunctionalInterface
+    public interface DbCloser {
+        void close(String name, RrdDb db) throws IOException;
+    }
+
+    private static class PooledDb {
+        private volatile @Nullable RrdDb db;
+        private int refCount;
+        private boolean discarded;
+        private boolean evicting;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(RRD4jDbPool.class);
+
+    // access ordered, so that iteration starts with the least recently used handle
+    private final Map<String, PooledDb> handles = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final DbCloser closer;
+
+    private int capacity;
+
+    public RRD4jDbPool(int capacity) {
+        this(capacity, (name, db) -> db.close());
+    }
+
+    public RRD4jDbPool(int capacity, DbCloser closer) {
+        this.capacity = capacity;
+        this.closer = closer;
+    }
+
+    /**
+     * Returns the open handle for the given name, opening it with the factory if it is not pooled yet.
+     *
+     * @param name the name of the database
+     * @param factory used to open or create the database if there is no pooled handle
+     * @return the handle or <code>null</code> if the factory could not provide a database
+     * @throws IOException if opening the database failed
+     */
+    public @Nullable RrdDb request(String name, DbFactory factory) throws IOException {
+        PooledDb entry;
+        synchronized (this) {
+            entry = handles.get(name);
+            if (entry == null) {
+                entry = new PooledDb();
+                handles.put(name, entry);
+            }
+            entry.refCount++;
+        }
+
+        // open the file outside of the pool lock, so that a slow open does not block other databases
+        synchronized (entry) {
+            RrdDb db = entry.db;
+            if (db != null) {
+                hits.incrementAndGet();
+                return db;
+            }
+            misses.incrementAndGet();
+            try {
+                db = factory.create();
+            } catch (IOException | RuntimeException e) {
+                release(name);
+                throw e;
+            }
+            if (db == null) {
+                release(name);
+                return null;
+            }
+            entry.db = db;
+        }
+        evictIdle();
+        return entry.db;
+    }
+
+    /**
+     * Gives back a handle that was obtained by {@link #request(String, DbFactory)}.
+     *
+     * @param name the name of the database
+     */
+    public void release(String name) {
+        RrdDb toClose = null;
+        synchronized (this) {
+            PooledDb entry = handles.get(name);
+            if (entry == null) {
+                return;
+            }
+            entry.refCount--;
+            // an entry that is being evicted is removed by the evictor once the close has finished
+            if (entry.refCount <= 0 && (entry.discarded || entry.db == null) && !entry.evicting) {
+                handles.remove(name);
+                toClose = entry.db;
+                entry.db = null;
+            }
+        }
+        if (toClose != null) {
+            close(name, toClose);
+        }
+    }
+
+    /**
+     * Drops the handle for the given name, e.g. because the underlying file has been removed. If the handle is still
+     * in use it is closed as soon as the last user releases it.
+     *
+     * @param name the name of the database
+     */
+    public void discard(String name) {
+        RrdDb toClose = null;
+        synchronized (this) {
+            PooledDb entry = handles.get(name);
+            if (entry == null) {
+                return;
+            }
+            if (entry.refCount <= 0) {
+                handles.remove(name);
+                toClose = entry.db;
+                entry.db = null;
+            } else {
+                entry.discarded = true;
+            }
+        }
+        if (toClose != null) {
+            close(name, toClose);
+        }
+    }
+
+    public synchronized void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Closes all pooled handles.
+     */
+    public void closeAll() {
+        Map<String, RrdDb> toClose = new LinkedHashMap<>();
+        synchronized (this) {
+            for (Map.Entry<String, PooledDb> e : handles.entrySet()) {
+                RrdDb db = e.getValue().db;
+                if (db != null) {
+                    toClose.put(e.getKey(), db);
+                    e.getValue().db = null;
+                }
+            }
+            handles.clear();
+        }
+        toClose.forEach(this::close);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized int getOpenCount() {
+        return handles.size();
+    }
+
+    /**
+     * Returns the names of all databases that are currently pooled.
+     */
+    public synchronized List<String> getNames() {
+        return new ArrayList<>(handles.keySet());
+    }
+
+    private void evictIdle() {
+        List<Map.Entry<String, PooledDb>> victims = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, PooledDb>> it = handles.entrySet().iterator();
+            int excess = handles.size() - capacity;
+            while (excess > 0 && it.hasNext()) {
+                Map.Entry<String, PooledDb> e = it.next();
+                PooledDb entry = e.getValue();
+                if (entry.refCount <= 0 && entry.db != null && !entry.evicting) {
+                    // the entry stays in the pool until it is closed, so that a concurrent request waits for the
+                    // close instead of opening the same file a second time
+                    entry.evicting = true;
+                    victims.add(e);
+                    excess--;
+                }
+            }
+        }
+        for (Map.Entry<String, PooledDb> e : victims) {
+            String name = e.getKey();
+            PooledDb entry = e.getValue();
+            // holding the entry lock, a concurrent request waits for the close and then opens the file again
+            synchronized (entry) {
+                RrdDb db;
+                synchronized (this) {
+                    db = entry.db;
+                    if (entry.refCount > 0 || db == null) {
+                        // requested again since it was chosen, or closed by someone else
+                        entry.evicting = false;
+                        continue;
+                    }
+                    entry.db = null;
+                }
+                evictions.incrementAndGet();
+                close(name, db);
+                synchronized (this) {
+                    entry.evicting = false;
+                    if (entry.refCount <= 0 && entry.db == null && handles.get(name) == entry) {
+                        handles.remove(name);
+                    }
+                }
+            }
+        }
+    }
+
+    private void close(String name, RrdDb db) {
+        try {
+            closer.close(name, db);
+        } catch (IOException e) {
+            logger.debug("Error closing rrd4j database '{}': {}", name, e.getMessage());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "open = " + getOpenCount() + ", hits = " + hits.get() + ", misses = " + misses.get() + ", evictions = "
+                + evictions.get();
+    }
+}
@@ -14,12 +14,15 @@ package org.openhab.persistence.rrd4j.internal;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -31,6 +34,9 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -61,14 +67,19 @@ import org.openhab.core.types.State;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.DsType;
 import org.rrd4j.core.FetchData;
 import org.rrd4j.core.FetchRequest;
+import org.rrd4j.core.RrdBackendFactory;
 import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.RrdDef;
+import org.rrd4j.core.RrdMemoryBackendFactory;
+import org.rrd4j.core.RrdNioBackendFactory;
+import org.rrd4j.core.RrdRandomAccessFileBackendFactory;
 import org.rrd4j.core.Sample;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -83,8 +94,8 @@ import org.slf4j.LoggerFactory;
  * @author Karel Goderis - remove TimerThread dependency
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class,
-        QueryablePersistenceService.class }, configurationPid = "org.openhab.rrd4j", configurationPolicy = ConfigurationPolicy.OPTIONAL)
+@Component(service = { PersistenceService.class, QueryablePersistenceService.class,
+        RRD4jPersistenceService.class }, configurationPid = "org.openhab.rrd4j", configurationPolicy = ConfigurationPolicy.OPTIONAL)
 public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     private static final String DEFAULT_OTHER = "default_other";
@@ -101,17 +112,60 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     private static final String DATASOURCE_STATE = "state";
 
+    private static final String CONFIG_DB_POOL_SIZE = "dbpoolsize";
+    private static final String CONFIG_WRITE_BEHIND = "writebehind";
+    private static final String CONFIG_BACKEND = "backend";
+    private static final String CONFIG_CHECKPOINT_INTERVAL = "checkpointinterval";
+    private static final int DEFAULT_CHECKPOINT_INTERVAL_SECONDS = 300;
+    private static final int FLUSH_INTERVAL_SECONDS = 1;
+    private static final int DEFAULT_DB_POOL_SIZE = 500;
+    private static final int STORE_LOCK_STRIPES = 64;
+    private static final int STATISTICS_INTERVAL_MINUTES = 5;
+
     public static final String DB_FOLDER = getUserPersistenceDataFolder() + File.separator + "rrd4j";
 
     private final Logger logger = LoggerFactory.getLogger(RRD4jPersistenceService.class);
 
-    private final Map<String, @Nullable ScheduledFuture<?>> scheduledJobs = new HashMap<>();
+    private final Map<String, ScheduledFuture<?>> scheduledJobs = new ConcurrentHashMap<>();
+
+    // open database handles, shared by store, query and the chart servlet
+    private final RRD4jDbPool dbPool = new RRD4jDbPool(DEFAULT_DB_POOL_SIZE, this::closeDB);
+
+    // stores of independent items only contend if their names hash to the same stripe
+    private final Lock[] storeLocks = new Lock[STORE_LOCK_STRIPES];
+
+    private final LongAdder lockContentions = new LongAdder();
+    private final LongAdder lockWaitNanos = new LongAdder();
+
+    private @Nullable ScheduledFuture<?> statisticsJob;
+
+    // latest values per database, written by the flusher if write-behind is enabled
+    private final Map<String, PendingSample> pendingSamples = new ConcurrentHashMap<>();
+
+    private volatile WriteBehind writeBehind = WriteBehind.OFF;
+
+    private @Nullable ScheduledFuture<?> flushJob;
+
+    // the backend is chosen on activation, changes are only applied after a restart
+    private Backend configuredBackend = Backend.NIO;
+    private int configuredCheckpointInterval = DEFAULT_CHECKPOINT_INTERVAL_SECONDS;
+    private volatile Backend backend = Backend.NIO;
+    private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL_SECONDS;
+    private volatile @Nullable RrdBackendFactory backendFactory;
+
+    // databases of the memory backend that have changed since their last checkpoint
+    private final Set<String> dirtyDBs = ConcurrentHashMap.newKeySet();
+
+    private @Nullable ScheduledFuture<?> checkpointJob;
 
     protected final ItemRegistry itemRegistry;
 
     @Activate
     public RRD4jPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
+        for (int i = 0; i < storeLocks.length; i++) {
+            storeLocks[i] = new ReentrantLock();
+        }
     }
 
     @Override
@@ -125,73 +179,153 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     }
 
     @Override
-    public synchronized void store(final Item item, @Nullable final String alias) {
+    public void store(final Item item, @Nullable final String alias) {
         if (!isSupportedItemType(item)) {
             logger.trace("Ignoring item '{}' since its type {} is not supported", item.getName(), item.getType());
             return;
         }
         final String name = alias == null ? item.getName() : alias;
-        RrdDb db = getDB(name);
-        if (db != null) {
-            ConsolFun function = getConsolidationFunction(db);
-            long now = System.currentTimeMillis() / 1000;
-            if (function != ConsolFun.AVERAGE) {
+        if (writeBehind != WriteBehind.OFF) {
+            DecimalType state = item.getStateAs(DecimalType.class);
+            if (state != null) {
+                // only remember the value, the flusher writes it once the step of the database has passed
+                PendingSample pending = pendingSamples.computeIfAbsent(name, PendingSample::new);
+                pending.add(item.getName(), state.doubleValue(), System.currentTimeMillis() / 1000);
+            }
+            return;
+        }
+        Lock lock = lockStripe(name);
+        try {
+            RrdDb db = getDB(name);
+            if (db != null) {
                 try {
-                    // we store the last value again, so that the value change
-                    // in the database is not interpolated, but
-                    // happens right at this spot
-                    if (now - 1 > db.getLastUpdateTime()) {
-                        // only do it if there is not already a value
-                        double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
-                        if (!Double.isNaN(lastValue)) {
-                            Sample sample = db.createSample();
-                            sample.setTime(now - 1);
-                            sample.setValue(DATASOURCE_STATE, lastValue);
-                            sample.update();
-                            logger.debug("Stored '{}' with state '{}' in rrd4j database (again)", name,
-                                    mapToState(lastValue, item.getName()));
-                        }
-                    }
-                } catch (IOException e) {
-                    logger.debug("Error storing last value (again): {}", e.getMessage());
+                    storeInDB(db, item, name);
+                } finally {
+                    releaseDB(name);
                 }
             }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void storeInDB(RrdDb db, Item item, String name) {
+        try {
+            DecimalType state = item.getStateAs(DecimalType.class);
+            if (state != null) {
+                writeSample(db, name, item.getName(), System.currentTimeMillis() / 1000,
+                        state.toBigDecimal().doubleValue());
+            }
+        } catch (IllegalArgumentException e) {
+            if (e.getMessage().contains("at least one second step is required")) {
+                // we try to store the value one second later
+                ScheduledFuture<?> job = scheduledJobs.remove(name);
+                if (job != null) {
+                    // do not interrupt, an interrupted channel would close the pooled database
+                    job.cancel(false);
+                }
+                job = scheduler.schedule(() -> store(item, name), 1, TimeUnit.SECONDS);
+                scheduledJobs.put(name, job);
+            } else {
+                logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
+            }
+        } catch (Exception e) {
+            logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
+        }
+    }
+
+    private void writeSample(RrdDb db, String name, String itemName, long time, double value) throws IOException {
+        ConsolFun function = getConsolidationFunction(db);
+        if (function != ConsolFun.AVERAGE) {
             try {
-                Sample sample = db.createSample();
-                sample.setTime(now);
-
-                DecimalType state = item.getStateAs(DecimalType.class);
-                if (state != null) {
-                    double value = state.toBigDecimal().doubleValue();
-                    if (db.getDatasource(DATASOURCE_STATE).getType() == DsType.COUNTER) { // counter values must be
-                                                                                          // adjusted by stepsize
-                        value = value * db.getRrdDef().getStep();
+                // we store the last value again, so that the value change
+                // in the database is not interpolated, but
+                // happens right at this spot
+                if (time - 1 > db.getLastUpdateTime()) {
+                    // only do it if there is not already a value
+                    double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
+                    if (!Double.isNaN(lastValue)) {
+                        Sample sample = db.createSample();
+                        sample.setTime(time - 1);
+                        sample.setValue(DATASOURCE_STATE, lastValue);
+                        sample.update();
+                        logger.debug("Stored '{}' with state '{}' in rrd4j database (again)", name,
+                                mapToState(lastValue, itemName));
                     }
-                    sample.setValue(DATASOURCE_STATE, value);
-                    sample.update();
-                    logger.debug("Stored '{}' with state '{}' in rrd4j database", name, state);
                 }
-            } catch (IllegalArgumentException e) {
-                if (e.getMessage().contains("at least one second step is required")) {
-                    // we try to store the value one second later
-                    ScheduledFuture<?> job = scheduledJobs.get(name);
-                    if (job != null) {
-                        job.cancel(true);
-                        scheduledJobs.remove(name);
-                    }
-                    job = scheduler.schedule(() -> store(item, name), 1, TimeUnit.SECONDS);
-                    scheduledJobs.put(name, job);
-                } else {
-                    logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
+            } catch (IOException e) {
+                logger.debug("Error storing last value (again): {}", e.getMessage());
+            }
+        }
+        Sample sample = db.createSample();
+        sample.setTime(time);
+
+        double storeValue = value;
+        if (db.getDatasource(DATASOURCE_STATE).getType() == DsType.COUNTER) { // counter values must be
+                                                                              // adjusted by stepsize
+            storeValue = value * db.getRrdDef().getStep();
+        }
+        sample.setValue(DATASOURCE_STATE, storeValue);
+        sample.update();
+        if (backend == Backend.MEMORY) {
+            dirtyDBs.add(name);
+        }
+        logger.debug("Stored '{}' with state '{}' in rrd4j database", name, value);
+    }
+
+    /**
+     * Writes the pending samples of all items whose database step has passed since the last update.
+     *
+     * @param average if <code>true</code>, the average of the pending values is written instead of the last one
+     * @param force if <code>true</code>, pending samples are written even if the step has not passed yet
+     */
+    private void flushPendingSamples(boolean average, boolean force) {
+        long now = System.currentTimeMillis() / 1000;
+        for (PendingSample pending : pendingSamples.values()) {
+            if (pending.count > 0) {
+                try {
+                    flushPendingSample(pending, now, average, force);
+                } catch (Exception e) {
+                    logger.warn("Could not persist '{}' to rrd4j database: {}", pending.name, e.getMessage());
                 }
-            } catch (Exception e) {
-                logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    private void flushPendingSample(PendingSample pending, long now, boolean average, boolean force)
+            throws IOException {
+        String name = pending.name;
+        Lock lock = lockStripe(name);
+        try {
+            RrdDb db = getDB(name);
+            if (db == null) {
+                pending.clear();
+                return;
             }
             try {
-                db.close();
-            } catch (IOException e) {
-                logger.debug("Error closing rrd4j database: {}", e.getMessage());
+                long lastUpdate = db.getLastUpdateTime();
+                if (now <= lastUpdate || (!force && now - lastUpdate < db.getRrdDef().getStep())) {
+                    // at most one sample per step, keep coalescing until the step has passed
+                    return;
+                }
+                String itemName;
+                double value;
+                long time;
+                synchronized (pending) {
+                    if (pending.count == 0) {
+                        return;
+                    }
+                    itemName = pending.itemName;
+                    value = average ? pending.sum / pending.count : pending.last;
+                    time = Math.min(now, Math.max(pending.time, lastUpdate + 1));
+                    pending.clear();
+                }
+                writeSample(db, name, itemName, time, value);
+            } finally {
+                releaseDB(name);
             }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -205,61 +339,69 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         String itemName = filter.getItemName();
         RrdDb db = getDB(itemName);
         if (db != null) {
-            ConsolFun consolidationFunction = getConsolidationFunction(db);
-            long start = 0L;
-            long end = filter.getEndDate() == null ? System.currentTimeMillis() / 1000
-                    : filter.getEndDate().toInstant().getEpochSecond();
-
             try {
-                if (filter.getBeginDate() == null) {
-                    // as rrd goes back for years and gets more and more
-                    // inaccurate, we only support descending order
-                    // and a single return value
-                    // if there is no begin date is given - this case is
-                    // required specifically for the historicState()
-                    // query, which we want to support
-                    if (filter.getOrdering() == Ordering.DESCENDING && filter.getPageSize() == 1
-                            && filter.getPageNumber() == 0) {
-                        if (filter.getEndDate() == null) {
-                            // we are asked only for the most recent value!
-                            double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
-                            if (!Double.isNaN(lastValue)) {
-                                HistoricItem rrd4jItem = new RRD4jItem(itemName, mapToState(lastValue, itemName),
-                                        ZonedDateTime.ofInstant(
-                                                Instant.ofEpochMilli(db.getLastArchiveUpdateTime() * 1000),
-                                                ZoneId.systemDefault()));
-                                return Collections.singletonList(rrd4jItem);
-                            } else {
-                                return Collections.emptyList();
-                            }
+                return query(db, filter, itemName);
+            } finally {
+                releaseDB(itemName);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private Iterable<HistoricItem> query(RrdDb db, FilterCriteria filter, String itemName) {
+        ConsolFun consolidationFunction = getConsolidationFunction(db);
+        long start = 0L;
+        long end = filter.getEndDate() == null ? System.currentTimeMillis() / 1000
+                : filter.getEndDate().toInstant().getEpochSecond();
+
+        try {
+            if (filter.getBeginDate() == null) {
+                // as rrd goes back for years and gets more and more
+                // inaccurate, we only support descending order
+                // and a single return value
+                // if there is no begin date is given - this case is
+                // required specifically for the historicState()
+                // query, which we want to support
+                if (filter.getOrdering() == Ordering.DESCENDING && filter.getPageSize() == 1
+                        && filter.getPageNumber() == 0) {
+                    if (filter.getEndDate() == null) {
+                        // we are asked only for the most recent value!
+                        double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
+                        if (!Double.isNaN(lastValue)) {
+                            HistoricItem rrd4jItem = new RRD4jItem(itemName, mapToState(lastValue, itemName),
+                                    ZonedDateTime.ofInstant(Instant.ofEpochMilli(db.getLastArchiveUpdateTime() * 1000),
+                                            ZoneId.systemDefault()));
+                            return Collections.singletonList(rrd4jItem);
                         } else {
-                            start = end;
+                            return Collections.emptyList();
                         }
                     } else {
-                        throw new UnsupportedOperationException("rrd4j does not allow querys without a begin date, "
-                                + "unless order is descending and a single value is requested");
+                        start = end;
                     }
                 } else {
-                    start = filter.getBeginDate().toInstant().getEpochSecond();
+                    throw new UnsupportedOperationException("rrd4j does not allow querys without a begin date, "
+                            + "unless order is descending and a single value is requested");
                 }
-                FetchRequest request = db.createFetchRequest(consolidationFunction, start, end, 1);
-
-                List<HistoricItem> items = new ArrayList<>();
-                FetchData result = request.fetchData();
-                long ts = result.getFirstTimestamp();
-                long step = result.getRowCount() > 1 ? result.getStep() : 0;
-                for (double value : result.getValues(DATASOURCE_STATE)) {
-                    if (!Double.isNaN(value) && (((ts >= start) && (ts <= end)) || (start == end))) {
-                        RRD4jItem rrd4jItem = new RRD4jItem(itemName, mapToState(value, itemName),
-                                ZonedDateTime.ofInstant(Instant.ofEpochMilli(ts * 1000), ZoneId.systemDefault()));
-                        items.add(rrd4jItem);
-                    }
-                    ts += step;
+            } else {
+                start = filter.getBeginDate().toInstant().getEpochSecond();
+            }
+            FetchRequest request = db.createFetchRequest(consolidationFunction, start, end, 1);
+
+            List<HistoricItem> items = new ArrayList<>();
+            FetchData result = request.fetchData();
+            long ts = result.getFirstTimestamp();
+            long step = result.getRowCount() > 1 ? result.getStep() : 0;
+            for (double value : result.getValues(DATASOURCE_STATE)) {
+                if (!Double.isNaN(value) && (((ts >= start) && (ts <= end)) || (start == end))) {
+                    RRD4jItem rrd4jItem = new RRD4jItem(itemName, mapToState(value, itemName),
+                            ZonedDateTime.ofInstant(Instant.ofEpochMilli(ts * 1000), ZoneId.systemDefault()));
+                    items.add(rrd4jItem);
                 }
-                return items;
-            } catch (IOException e) {
-                logger.warn("Could not query rrd4j database for item '{}': {}", itemName, e.getMessage());
+                ts += step;
             }
+            return items;
+        } catch (IOException e) {
+            logger.warn("Could not query rrd4j database for item '{}': {}", itemName, e.getMessage());
         }
         return Collections.emptyList();
     }
@@ -269,37 +411,271 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         return Collections.emptySet();
     }
 
-    protected @Nullable synchronized RrdDb getDB(String alias) {
-        RrdDb db = null;
+    /**
+     * Returns the pooled database handle for the given alias, creating the database file if necessary. Every handle
+     * returned by this method must be given back by {@link #releaseDB(String)}.
+     *
+     * @param alias the alias (or item name) of the database
+     * @return the database handle or <code>null</code> if it could not be opened or created
+     */
+    protected @Nullable RrdDb getDB(String alias) {
         File file = new File(DB_FOLDER + File.separator + alias + ".rrd");
+        if (!file.exists()) {
+            // the file has been removed while its handle was pooled
+            dbPool.discard(alias);
+        }
         try {
-            if (file.exists()) {
-                // recreate the RrdDb instance from the file
-                db = new RrdDb(file.getAbsolutePath());
-            } else {
-                File folder = new File(DB_FOLDER);
-                if (!folder.exists()) {
-                    folder.mkdirs();
-                }
-                RrdDef rrdDef = getRrdDef(alias, file);
-                if (rrdDef != null) {
-                    // create a new database file
-                    db = new RrdDb(rrdDef);
-                } else {
-                    logger.debug(
-                            "Did not create rrd4j database for item '{}' since no rrd definition could be determined. This is likely due to an unsupported item type.",
-                            alias);
-                }
-            }
+            return dbPool.request(alias, () -> openDB(alias, file));
         } catch (IOException e) {
             logger.error("Could not create rrd4j database file '{}': {}", file.getAbsolutePath(), e.getMessage());
         } catch (RejectedExecutionException e) {
             // this happens if the system is shut down
             logger.debug("Could not create rrd4j database file '{}': {}", file.getAbsolutePath(), e.getMessage());
         }
+        return null;
+    }
+
+    /**
+     * Gives back a database handle obtained by {@link #getDB(String)}.
+     *
+     * @param alias the alias (or item name) of the database
+     */
+    protected void releaseDB(String alias) {
+        dbPool.release(alias);
+    }
+
+    private @Nullable RrdDb openDB(String alias, File file) throws IOException {
+        RrdDb db = null;
+        RrdBackendFactory factory = getBackendFactory();
+        if (file.exists()) {
+            if (backend == Backend.MEMORY) {
+                db = loadIntoMemory(file, factory);
+            } else {
+                // recreate the RrdDb instance from the file
+                db = new RrdDb(file.getAbsolutePath(), factory);
+            }
+        } else {
+            File folder = new File(DB_FOLDER);
+            if (!folder.exists()) {
+                folder.mkdirs();
+            }
+            RrdDef rrdDef = getRrdDef(alias, file);
+            if (rrdDef != null) {
+                // create a new database file
+                db = new RrdDb(rrdDef, factory);
+                if (backend == Backend.MEMORY) {
+                    // make sure the file exists right away
+                    checkpoint(alias, db);
+                }
+            } else {
+                logger.debug(
+                        "Did not create rrd4j database for item '{}' since no rrd definition could be determined. This is likely due to an unsupported item type.",
+                        alias);
+            }
+        }
         return db;
     }
 
+    private RrdDb loadIntoMemory(File file, RrdBackendFactory factory) throws IOException {
+        RrdDb fileDb = new RrdDb(file.getAbsolutePath(), true);
+        try {
+            RrdDb memoryDb = new RrdDb(fileDb.getRrdDef(), factory);
+            fileDb.copyStateTo(memoryDb);
+            return memoryDb;
+        } finally {
+            fileDb.close();
+        }
+    }
+
+    /**
+     * Writes the complete content of the given database to its file. The content is written to a temporary file
+     * first, so that the database file is never left half written.
+     */
+    private void checkpoint(String name, RrdDb db) throws IOException {
+        Path target = Paths.get(DB_FOLDER, name + ".rrd");
+        Path temp = Paths.get(DB_FOLDER, name + ".rrd.tmp");
+        Files.write(temp, db.getBytes());
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.trace("Wrote checkpoint of rrd4j database '{}'", name);
+    }
+
+    private void checkpointAll() {
+        for (String name : new ArrayList<>(dirtyDBs)) {
+            Lock lock = lockStripe(name);
+            try {
+                if (dirtyDBs.remove(name)) {
+                    RrdDb db = getDB(name);
+                    if (db != null) {
+                        try {
+                            checkpoint(name, db);
+                        } catch (IOException e) {
+                            dirtyDBs.add(name);
+                            logger.warn("Could not write rrd4j database '{}' to disk: {}", name, e.getMessage());
+                        } finally {
+                            releaseDB(name);
+                        }
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Called by the database pool when a handle is closed.
+     */
+    private void closeDB(String name, RrdDb db) throws IOException {
+        if (backend == Backend.MEMORY) {
+            try {
+                if (dirtyDBs.remove(name)) {
+                    checkpoint(name, db);
+                }
+            } finally {
+                db.close();
+                ((RrdMemoryBackendFactory) getBackendFactory()).delete(db.getPath());
+            }
+        } else {
+            db.close();
+        }
+    }
+
+    private RrdBackendFactory getBackendFactory() {
+        RrdBackendFactory factory = backendFactory;
+        return factory != null ? factory : RrdBackendFactory.getDefaultFactory();
+    }
+
+    private synchronized void initBackend() {
+        backend = configuredBackend;
+        checkpointInterval = configuredCheckpointInterval;
+        switch (backend) {
+            case FILE:
+                backendFactory = new RrdRandomAccessFileBackendFactory();
+                break;
+            case MEMORY:
+                backendFactory = new RrdMemoryBackendFactory();
+                checkpointJob = scheduler.scheduleWithFixedDelay(this::checkpointAll, checkpointInterval,
+                        checkpointInterval, TimeUnit.SECONDS);
+                break;
+            default:
+                // the memory mapped files are synced to disk by rrd4j itself
+                backendFactory = new RrdNioBackendFactory(checkpointInterval);
+                break;
+        }
+        logger.debug("Using rrd4j {} backend with a checkpoint interval of {}s", backend, checkpointInterval);
+    }
+
+    private synchronized void disposeBackend() {
+        ScheduledFuture<?> job = checkpointJob;
+        if (job != null) {
+            job.cancel(false);
+            checkpointJob = null;
+        }
+        // closing the pooled databases writes pending checkpoints
+        dbPool.closeAll();
+        RrdBackendFactory factory = backendFactory;
+        if (factory != null) {
+            try {
+                factory.close();
+            } catch (IOException e) {
+                logger.debug("Error closing rrd4j backend: {}", e.getMessage());
+            }
+            backendFactory = null;
+        }
+    }
+
+    /**
+     * Returns the time of the newest archive row of the given item's database.
+     *
+     * @param itemName the name of the item
+     * @return the time in seconds or -1 if there is no database for the item
+     */
+    public long getLastArchiveUpdateTime(String itemName) {
+        File file = new File(DB_FOLDER + File.separator + itemName + ".rrd");
+        if (!file.exists()) {
+            return -1;
+        }
+        RrdDb db = getDB(itemName);
+        if (db == null) {
+            return -1;
+        }
+        try {
+            return db.getLastArchiveUpdateTime();
+        } catch (IOException e) {
+            return -1;
+        } finally {
+            releaseDB(itemName);
+        }
+    }
+
+    /**
+     * Fetches the values of the given item's database for the chart servlet, reusing the pooled database handle.
+     *
+     * @param itemName the name of the item
+     * @param start the start of the time range in seconds
+     * @param end the end of the time range in seconds
+     * @param resolution the requested resolution in seconds
+     * @return the fetched data or <code>null</code> if there is no database for the item
+     * @throws IOException if the database could not be read
+     */
+    public @Nullable FetchData fetchData(String itemName, long start, long end, long resolution) throws IOException {
+        File file = new File(DB_FOLDER + File.separator + itemName + ".rrd");
+        if (!file.exists()) {
+            dbPool.discard(itemName);
+            return null;
+        }
+        RrdDb db = getDB(itemName);
+        if (db == null) {
+            return null;
+        }
+        try {
+            return db.createFetchRequest(getConsolidationFunction(db), start, end, resolution).fetchData();
+        } finally {
+            releaseDB(itemName);
+        }
+    }
+
+    /**
+     * Acquires the lock stripe for the given database name, the caller has to unlock it.
+     */
+    private Lock lockStripe(String name) {
+        Lock lock = storeLocks[(name.hashCode() & Integer.MAX_VALUE) % storeLocks.length];
+        if (!lock.tryLock()) {
+            long waitStart = System.nanoTime();
+            lock.lock();
+            lockContentions.increment();
+            lockWaitNanos.add(System.nanoTime() - waitStart);
+        }
+        return lock;
+    }
+
+    private synchronized void setWriteBehind(WriteBehind newWriteBehind) {
+        WriteBehind oldWriteBehind = writeBehind;
+        writeBehind = newWriteBehind;
+        ScheduledFuture<?> job = flushJob;
+        if (newWriteBehind == WriteBehind.OFF) {
+            if (job != null) {
+                job.cancel(false);
+                flushJob = null;
+                // write what has been collected before write-behind was disabled
+                flushPendingSamples(oldWriteBehind == WriteBehind.AVERAGE, true);
+            }
+        } else if (job == null) {
+            flushJob = scheduler.scheduleWithFixedDelay(
+                    () -> flushPendingSamples(writeBehind == WriteBehind.AVERAGE, false), FLUSH_INTERVAL_SECONDS,
+                    FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private void logStatistics() {
+        if (logger.isDebugEnabled()) {
+            long contentions = lockContentions.sum();
+            long waitMillis = TimeUnit.NANOSECONDS.toMillis(lockWaitNanos.sum());
+            logger.debug("rrd4j database pool: {}; lock contentions = {}, total lock wait = {} ms", dbPool, contentions,
+                    waitMillis);
+        }
+    }
+
     private @Nullable RrdDefConfig getRrdDefConfig(String itemName) {
         RrdDefConfig useRdc = null;
         for (Map.Entry<String, @Nullable RrdDefConfig> e : rrdDefs.entrySet()) {
@@ -385,12 +761,30 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     @Activate
     protected void activate(final Map<String, Object> config) {
         modified(config);
+        statisticsJob = scheduler.scheduleWithFixedDelay(this::logStatistics, STATISTICS_INTERVAL_MINUTES,
+                STATISTICS_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        ScheduledFuture<?> job = statisticsJob;
+        if (job != null) {
+            job.cancel(false);
+            statisticsJob = null;
+        }
+        setWriteBehind(WriteBehind.OFF);
+        logStatistics();
+        disposeBackend();
     }
 
     @Modified
     protected void modified(final Map<String, Object> config) {
         // clean existing definitions
         rrdDefs.clear();
+        dbPool.setCapacity(DEFAULT_DB_POOL_SIZE);
+        WriteBehind newWriteBehind = WriteBehind.OFF;
+        configuredBackend = Backend.NIO;
+        configuredCheckpointInterval = DEFAULT_CHECKPOINT_INTERVAL_SECONDS;
 
         // add default configurations
 
@@ -433,6 +827,8 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
 
         if (config.isEmpty()) {
             logger.debug("using default configuration only");
+            applyBackend();
+            setWriteBehind(newWriteBehind);
             return;
         }
 
@@ -445,6 +841,47 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
                 continue;
             }
 
+            if (key.equalsIgnoreCase(CONFIG_DB_POOL_SIZE)) {
+                try {
+                    dbPool.setCapacity(Integer.parseInt(String.valueOf(config.get(key)).trim()));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring illegal database pool size: {}", config.get(key));
+                }
+                continue;
+            }
+
+            if (key.equalsIgnoreCase(CONFIG_BACKEND)) {
+                try {
+                    configuredBackend = Backend.valueOf(String.valueOf(config.get(key)).trim().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Ignoring illegal backend: {}", config.get(key));
+                }
+                continue;
+            }
+
+            if (key.equalsIgnoreCase(CONFIG_CHECKPOINT_INTERVAL)) {
+                try {
+                    int interval = Integer.parseInt(String.valueOf(config.get(key)).trim());
+                    if (interval > 0) {
+                        configuredCheckpointInterval = interval;
+                    } else {
+                        logger.warn("Ignoring illegal checkpoint interval: {}", interval);
+                    }
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring illegal checkpoint interval: {}", config.get(key));
+                }
+                continue;
+            }
+
+            if (key.equalsIgnoreCase(CONFIG_WRITE_BEHIND)) {
+                try {
+                    newWriteBehind = WriteBehind.valueOf(String.valueOf(config.get(key)).trim().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Ignoring illegal write-behind mode: {}", config.get(key));
+                }
+                continue;
+            }
+
             String[] subkeys = key.split("\\.");
             if (subkeys.length != 2) {
                 logger.debug("config '{}' should have the format 'name.configkey'", key);
@@ -496,6 +933,59 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
                 }
             }
         }
+
+        applyBackend();
+        setWriteBehind(newWriteBehind);
+    }
+
+    private void applyBackend() {
+        if (backendFactory == null) {
+            initBackend();
+        } else if (configuredBackend != backend || configuredCheckpointInterval != checkpointInterval) {
+            logger.info("Changing the rrd4j backend or checkpoint interval requires a restart of the service");
+        }
+    }
+
+    private enum Backend {
+        NIO,
+        FILE,
+        MEMORY
+    }
+
+    private enum WriteBehind {
+        OFF,
+        LAST,
+        AVERAGE
+    }
+
+    /**
+     * The values of an item that have not been written yet. There is one instance per database, which is reused.
+     */
+    private static class PendingSample {
+        private final String name;
+        private String itemName;
+        private double last;
+        private double sum;
+        private volatile int count;
+        private long time;
+
+        public PendingSample(String name) {
+            this.name = name;
+            this.itemName = name;
+        }
+
+        public synchronized void add(String itemName, double value, long time) {
+            this.itemName = itemName;
+            this.last = value;
+            this.sum += value;
+            this.count++;
+            this.time = time;
+        }
+
+        public synchronized void clear() {
+            sum = 0;
+            count = 0;
+        }
     }
 
     private class RrdArchiveDef {
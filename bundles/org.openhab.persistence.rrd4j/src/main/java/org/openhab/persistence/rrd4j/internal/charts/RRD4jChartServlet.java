@@ -15,12 +15,22 @@ package org.openhab.persistence.rrd4j.internal.charts;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.image.BufferedImage;
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import javax.imageio.ImageIO;
 import javax.servlet.Servlet;
@@ -29,6 +39,8 @@ import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.items.GroupItem;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
@@ -42,8 +54,7 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.http.HttpService;
 import org.osgi.service.http.NamespaceException;
-import org.rrd4j.ConsolFun;
-import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.FetchData;
 import org.rrd4j.graph.RrdGraph;
 import org.rrd4j.graph.RrdGraphDef;
 import org.slf4j.Logger;
@@ -82,6 +93,9 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
 
     protected static final Map<String, Long> PERIODS = new HashMap<>();
 
+    /** maximum size of the encoded charts in the cache, in bytes */
+    private static final long CHART_CACHE_MAX_BYTES = 2 * 1024 * 1024;
+
     static {
         PERIODS.put("h", -3600000L);
         PERIODS.put("4h", -14400000L);
@@ -103,6 +117,20 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     @Reference
     protected ItemUIRegistry itemUIRegistry;
 
+    @Reference
+    protected RRD4jPersistenceService persistenceService;
+
+    private final ExecutorService fetchPool = ThreadPoolManager.getPool("rrd4j-chart");
+
+    // rendered charts as PNG, least recently used are dropped first
+    private final Map<ChartKey, byte[]> chartCache = new LinkedHashMap<>(16, 0.75f, true);
+    // guarded by chartCache
+    private long chartCacheBytes;
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong renderNanos = new AtomicLong();
+
     @Activate
     protected void activate() {
         try {
@@ -118,6 +146,10 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     @Deactivate
     protected void deactivate() {
         httpService.unregister(SERVLET_NAME);
+        synchronized (chartCache) {
+            chartCache.clear();
+            chartCacheBytes = 0;
+        }
     }
 
     @Override
@@ -146,9 +178,11 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         // Set the content type to that provided by the chart provider
         res.setContentType("image/" + getChartType());
         try {
-            BufferedImage chart = createChart(null, null, timeBegin, timeEnd, height, width, req.getParameter("items"),
+            byte[] chart = getChart(null, timeBegin, timeEnd, height, width, req.getParameter("items"),
                     req.getParameter("groups"), null, null);
-            ImageIO.write(chart, getChartType().toString(), res.getOutputStream());
+            if (chart != null) {
+                res.getOutputStream().write(chart);
+            }
         } catch (ItemNotFoundException e) {
             logger.debug("Item not found error while generating chart.");
         } catch (IllegalArgumentException e) {
@@ -164,29 +198,21 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
      * @param graphDef the graph definition to fill
      * @param item the item to add a line for
      * @param counter defines the number of the datasource and is used to determine the line color
+     * @param fetchData the values of the item
      */
-    protected void addLine(RrdGraphDef graphDef, Item item, int counter) {
+    protected void addLine(RrdGraphDef graphDef, Item item, int counter, FetchData fetchData) {
         Color color = LINECOLORS[counter % LINECOLORS.length];
         String label = itemUIRegistry.getLabel(item.getName());
-        String rrdName = RRD4jPersistenceService.DB_FOLDER + File.separator + item.getName() + ".rrd";
-        ConsolFun consolFun;
         if (label != null && label.contains("[") && label.contains("]")) {
             label = label.substring(0, label.indexOf('['));
         }
-        try {
-            RrdDb db = new RrdDb(rrdName);
-            consolFun = db.getRrdDef().getArcDefs()[0].getConsolFun();
-            db.close();
-        } catch (IOException e) {
-            consolFun = ConsolFun.MAX;
-        }
         if (item instanceof NumberItem) {
             // we only draw a line
-            graphDef.datasource(Integer.toString(counter), rrdName, "state", consolFun); // RRD4jService.getConsolidationFunction(item));
+            graphDef.datasource(Integer.toString(counter), "state", fetchData);
             graphDef.line(Integer.toString(counter), color, label, 2);
         } else {
             // we draw a line and fill the area beneath it with a transparent color
-            graphDef.datasource(Integer.toString(counter), rrdName, "state", consolFun); // RRD4jService.getConsolidationFunction(item));
+            graphDef.datasource(Integer.toString(counter), "state", fetchData);
             Color areaColor = AREACOLORS[counter % LINECOLORS.length];
 
             graphDef.area(Integer.toString(counter), areaColor);
@@ -194,6 +220,41 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         }
     }
 
+    /**
+     * Fetches the values of the item from the pooled database of the persistence service.
+     *
+     * @return the values or <code>null</code> if there is no database for the item
+     */
+    private FetchData fetchData(Item item, long start, long end, long resolution) {
+        try {
+            FetchData fetchData = persistenceService.fetchData(item.getName(), start, end, resolution);
+            if (fetchData == null) {
+                logger.debug("No rrd4j database found for item '{}'", item.getName());
+            }
+            return fetchData;
+        } catch (IOException e) {
+            logger.debug("Error fetching chart data for item '{}': {}", item.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the rendered charts cache hit ratio, i.e. the share of charts that did not have to be rendered again.
+     */
+    public double getCacheHitRatio() {
+        long hits = cacheHits.get();
+        long total = hits + cacheMisses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Returns the average time in milliseconds it took to fetch the data and render a chart.
+     */
+    public double getAverageRenderMillis() {
+        long misses = cacheMisses.get();
+        return misses == 0 ? 0 : (double) renderNanos.get() / misses / 1000000;
+    }
+
     @Override
     public void init(ServletConfig config) throws ServletException {
     }
@@ -223,9 +284,32 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     @Override
     public BufferedImage createChart(String service, String theme, Date startTime, Date endTime, int height, int width,
             String items, String groups, Integer dpi, Boolean legend) throws ItemNotFoundException {
+        byte[] chart = getChart(theme, startTime, endTime, height, width, items, groups, dpi, legend);
+        if (chart == null) {
+            return null;
+        }
+        try {
+            return ImageIO.read(new ByteArrayInputStream(chart));
+        } catch (IOException e) {
+            logger.error("Error decoding graph.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the chart as PNG, from the cache if it has been rendered before.
+     *
+     * @return the encoded chart or <code>null</code> if it could not be rendered
+     */
+    private byte @Nullable [] getChart(@Nullable String theme, Date startTime, Date endTime, int height, int width,
+            @Nullable String items, @Nullable String groups, @Nullable Integer dpi, @Nullable Boolean legend)
+            throws ItemNotFoundException {
         RrdGraphDef graphDef = new RrdGraphDef();
 
         long period = (startTime.getTime() - endTime.getTime()) / 1000;
+        long start = startTime.getTime() / 1000;
+        long end = endTime.getTime() / 1000;
+        long resolution = Math.max(1, (end - start) / Math.max(1, width));
 
         graphDef.setWidth(width);
         graphDef.setHeight(height);
@@ -236,14 +320,13 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         graphDef.setLargeFont(new Font("SansSerif", Font.PLAIN, 15));
         graphDef.setSmallFont(new Font("SansSerif", Font.PLAIN, 11));
 
-        int seriesCounter = 0;
+        List<Item> chartItems = new ArrayList<>();
 
         // Loop through all the items
         if (items != null) {
             String[] itemNames = items.split(",");
             for (String itemName : itemNames) {
-                Item item = itemUIRegistry.getItem(itemName);
-                addLine(graphDef, item, seriesCounter++);
+                chartItems.add(itemUIRegistry.getItem(itemName));
             }
         }
 
@@ -254,15 +337,48 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
                 Item item = itemUIRegistry.getItem(groupName);
                 if (item instanceof GroupItem) {
                     GroupItem groupItem = (GroupItem) item;
-                    for (Item member : groupItem.getMembers()) {
-                        addLine(graphDef, member, seriesCounter++);
-                    }
+                    chartItems.addAll(groupItem.getMembers());
                 } else {
                     throw new ItemNotFoundException("Item '" + item.getName() + "' defined in groups is not a group.");
                 }
             }
         }
 
+        // a rendered chart is reused as long as it would cover the same time buckets and none of its items has
+        // got a new archive row since, the item names also capture changes of the group members
+        long lastUpdate = 0;
+        for (Item item : chartItems) {
+            lastUpdate = Math.max(lastUpdate, persistenceService.getLastArchiveUpdateTime(item.getName()));
+        }
+        List<String> itemNames = chartItems.stream().map(Item::getName).collect(Collectors.toList());
+        ChartKey key = new ChartKey(itemNames, theme, period, width, height, dpi, legend, end / resolution,
+                lastUpdate);
+        byte[] cached;
+        synchronized (chartCache) {
+            cached = chartCache.get(key);
+        }
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            return cached;
+        }
+        cacheMisses.incrementAndGet();
+        long renderStart = System.nanoTime();
+
+        // fetch the data of all items concurrently before rendering
+        List<CompletableFuture<FetchData>> fetches = new ArrayList<>();
+        for (Item item : chartItems) {
+            fetches.add(CompletableFuture.supplyAsync(() -> fetchData(item, start, end, resolution), fetchPool));
+        }
+
+        int seriesCounter = 0;
+        for (int i = 0; i < chartItems.size(); i++) {
+            FetchData fetchData = fetches.get(i).join();
+            if (fetchData != null) {
+                addLine(graphDef, chartItems.get(i), seriesCounter, fetchData);
+            }
+            seriesCounter++;
+        }
+
         // Write the chart as a PNG image
         RrdGraph graph;
         try {
@@ -270,8 +386,15 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
             BufferedImage bi = new BufferedImage(graph.getRrdGraphInfo().getWidth(),
                     graph.getRrdGraphInfo().getHeight(), BufferedImage.TYPE_INT_RGB);
             graph.render(bi.getGraphics());
-
-            return bi;
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(bi, getChartType().toString(), png);
+            byte[] chart = png.toByteArray();
+
+            renderNanos.addAndGet(System.nanoTime() - renderStart);
+            cacheChart(key, chart);
+            logger.trace("Rendered chart in {} ms, cache hit ratio {}", (System.nanoTime() - renderStart) / 1000000,
+                    getCacheHitRatio());
+            return chart;
         } catch (IOException e) {
             logger.error("Error generating graph.", e);
         }
@@ -279,8 +402,44 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         return null;
     }
 
+    /**
+     * Adds the chart to the cache, dropping the least recently used charts while the cache is too large.
+     */
+    private void cacheChart(ChartKey key, byte[] chart) {
+        synchronized (chartCache) {
+            byte[] previous = chartCache.put(key, chart);
+            chartCacheBytes += chart.length - (previous == null ? 0 : previous.length);
+            Iterator<byte[]> eldest = chartCache.values().iterator();
+            while (chartCacheBytes > CHART_CACHE_MAX_BYTES && eldest.hasNext()) {
+                chartCacheBytes -= eldest.next().length;
+                eldest.remove();
+            }
+        }
+    }
+
     @Override
     public ImageType getChartType() {
         return ImageType.png;
     }
+
+    /**
+     * Identifies a rendered chart.
+     */
+    private static class ChartKey {
+        private final List<@Nullable Object> values;
+
+        public ChartKey(@Nullable Object... values) {
+            this.values = Arrays.asList(values);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            return obj instanceof ChartKey && values.equals(((ChartKey) obj).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return values.hashCode();
+        }
+    }
 }
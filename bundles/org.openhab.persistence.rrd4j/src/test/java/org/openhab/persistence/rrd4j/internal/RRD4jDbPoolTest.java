@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.rrd4j.core.RrdDb;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+public class RRD4jDbPoolTest {
+
+    private final List<RrdDb> opened = new CopyOnWriteArrayList<>();
+    private final Map<RrdDb, AtomicInteger> closeCounts = new ConcurrentHashMap<>();
+    private final Map<RrdDb, AtomicInteger> users = new ConcurrentHashMap<>();
+    private final List<String> errors = new CopyOnWriteArrayList<>();
+
+    private RrdDb open() {
+        RrdDb db = mock(RrdDb.class);
+        opened.add(db);
+        return db;
+    }
+
+    private void close(String name, RrdDb db) {
+        AtomicInteger userCount = users.get(db);
+        if (userCount != null && userCount.get() > 0) {
+            errors.add("closed " + name + " while in use");
+        }
+        closeCounts.computeIfAbsent(db, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    @Test
+    public void testIdleHandlesAreEvictedInLruOrder() throws Exception {
+        RRD4jDbPool pool = new RRD4jDbPool(2, this::close);
+
+        RrdDb a = pool.request("a", this::open);
+        pool.release("a");
+        pool.request("b", this::open);
+        pool.release("b");
+        assertThat(pool.request("a", this::open), is(sameInstance(a)));
+        pool.release("a");
+        pool.request("c", this::open);
+        pool.release("c");
+
+        assertThat(pool.getNames(), containsInAnyOrder("a", "c"));
+        assertThat(pool.getHits(), is(1L));
+        assertThat(pool.getMisses(), is(3L));
+        assertThat(pool.getEvictions(), is(1L));
+        assertThat(closeCounts.keySet(), contains(opened.get(1)));
+    }
+
+    @Test
+    public void testHandlesInUseAreNotEvicted() throws Exception {
+        RRD4jDbPool pool = new RRD4jDbPool(1, this::close);
+
+        pool.request("a", this::open);
+        pool.request("b", this::open);
+        assertThat(pool.getOpenCount(), is(2));
+        assertThat(closeCounts.isEmpty(), is(true));
+
+        pool.release("a");
+        pool.request("c", this::open);
+        assertThat(pool.getNames(), containsInAnyOrder("b", "c"));
+    }
+
+    @Test
+    public void testConcurrentRequestAndEvict() throws Exception {
+        RRD4jDbPool pool = new RRD4jDbPool(1, this::close);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                String[] names = { "a", "b", "c" };
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 2000; i++) {
+                        String name = names[(i + offset) % names.length];
+                        RrdDb db = pool.request(name, this::open);
+                        if (db == null) {
+                            errors.add("no handle for " + name);
+                            continue;
+                        }
+                        if (closeCounts.containsKey(db)) {
+                            errors.add("got closed handle for " + name);
+                        }
+                        AtomicInteger userCount = users.computeIfAbsent(db, key -> new AtomicInteger());
+                        userCount.incrementAndGet();
+                        Thread.yield();
+                        userCount.decrementAndGet();
+                        pool.release(name);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        pool.closeAll();
+
+        assertThat(errors, is(empty()));
+        assertThat(pool.getOpenCount(), is(0));
+        // every handle that was opened is closed exactly once, none is leaked
+        for (RrdDb db : opened) {
+            AtomicInteger count = closeCounts.get(db);
+            assertThat(count, is(notNullValue()));
+            assertThat(count.get(), is(1));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.javascript.internal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * A compiled JavaScript file together with its invocation statistics.
+ *
+ * Every evaluation gets fresh {@link Bindings}, i.e. its own global scope, so that evaluations do not see the global
+ * variables of each other. The statistics start over when the script is reloaded.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class CachedScript {
+
+    /** Upper limits of the latency histogram buckets in milliseconds, the last bucket has no upper limit */
+    static final long[] LATENCY_BUCKETS_MILLIS = { 1, 5, 10, 50, 100, 500 };
+
+    private final CompiledScript script;
+
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLongArray latencyHistogram = new AtomicLongArray(LATENCY_BUCKETS_MILLIS.length + 1);
+
+    public CachedScript(CompiledScript script) {
+        this.script = script;
+    }
+
+    public CompiledScript getScript() {
+        return script;
+    }
+
+    /**
+     * @return new bindings with an empty global scope to evaluate the script
+     */
+    public Bindings createBindings() {
+        return script.getEngine().createBindings();
+    }
+
+    public void recordInvocation(long elapsedNanos) {
+        invocations.increment();
+        totalNanos.add(elapsedNanos);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        int bucket = 0;
+        while (bucket < LATENCY_BUCKETS_MILLIS.length && elapsedMillis >= LATENCY_BUCKETS_MILLIS[bucket]) {
+            bucket++;
+        }
+        latencyHistogram.incrementAndGet(bucket);
+    }
+
+    public long getInvocationCount() {
+        return invocations.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * @return number of invocations per latency bucket, see {@link #LATENCY_BUCKETS_MILLIS}
+     */
+    public long[] getLatencyHistogram() {
+        long[] histogram = new long[latencyHistogram.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = latencyHistogram.get(i);
+        }
+        return histogram;
+    }
+}
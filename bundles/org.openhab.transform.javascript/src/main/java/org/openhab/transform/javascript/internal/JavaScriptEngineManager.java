@@ -17,8 +17,10 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.script.Compilable;
 import javax.script.CompiledScript;
@@ -44,36 +46,40 @@ public class JavaScriptEngineManager {
 
     private final Logger logger = LoggerFactory.getLogger(JavaScriptEngineManager.class);
     private final ScriptEngineManager manager = new ScriptEngineManager();
-    /* keep memory foot print low. max 2 concurrent threads are estimated */
-    private final Map<String, CompiledScript> compiledScriptMap = new ConcurrentHashMap<>(4, 0.5f, 2);
+    private final Map<String, CachedScript> compiledScriptMap = new ConcurrentHashMap<>();
+    private final AtomicLong removals = new AtomicLong();
 
     /**
-     * Get a pre compiled script {@link CompiledScript} from cache. If it is not in the cache, then load it from
+     * Get a pre compiled script {@link CachedScript} from cache. If it is not in the cache, then load it from
      * storage and put a pre compiled version into the cache.
      *
+     * Cache hits don't take any lock. If several threads miss the same script at the same time, each compiles it
+     * and the first one to finish wins. A script is not cached if a script was removed from the cache while it was
+     * compiled, as the file may have changed after it was read.
+     *
      * @param filename name of the JavaScript file to load
-     * @return a pre compiled script {@link CompiledScript}
+     * @return a pre compiled script {@link CachedScript}
      * @throws TransformationException if compile of JavaScript failed
      */
-    protected CompiledScript getScript(final String filename) throws TransformationException {
-        synchronized (compiledScriptMap) {
-            if (compiledScriptMap.containsKey(filename)) {
-                logger.debug("Loading JavaScript {} from cache.", filename);
-                return compiledScriptMap.get(filename);
-            } else {
-                final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + filename;
-                logger.debug("Loading script {} from storage ", path);
-                try (final Reader reader = new InputStreamReader(new FileInputStream(path))) {
-                    final ScriptEngine engine = manager.getEngineByName("javascript");
-                    final CompiledScript cScript = ((Compilable) engine).compile(reader);
-                    logger.debug("Putting compiled JavaScript {} to cache.", cScript);
-                    compiledScriptMap.put(filename, cScript);
-                    return cScript;
-                } catch (IOException | ScriptException e) {
-                    throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(),
-                            e);
-                }
-            }
+    protected CachedScript getScript(final String filename) throws TransformationException {
+        CachedScript cachedScript = compiledScriptMap.get(filename);
+        if (cachedScript != null) {
+            logger.debug("Loading JavaScript {} from cache.", filename);
+            return cachedScript;
+        }
+        final long removalsBefore = removals.get();
+        final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + filename;
+        logger.debug("Loading script {} from storage ", path);
+        try (final Reader reader = new InputStreamReader(new FileInputStream(path))) {
+            final ScriptEngine engine = manager.getEngineByName("javascript");
+            final CompiledScript cScript = ((Compilable) engine).compile(reader);
+            logger.debug("Putting compiled JavaScript {} to cache.", cScript);
+            CachedScript compiled = new CachedScript(cScript);
+            CachedScript cached = compiledScriptMap.compute(filename, (key, existing) -> existing != null ? existing
+                    : removals.get() == removalsBefore ? compiled : null);
+            return cached != null ? cached : compiled;
+        } catch (IOException | ScriptException e) {
+            throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(), e);
         }
     }
 
@@ -84,6 +90,14 @@ public class JavaScriptEngineManager {
      */
     protected void removeFromCache(String fileName) {
         logger.debug("Removing JavaScript {} from cache.", fileName);
+        removals.incrementAndGet();
         compiledScriptMap.remove(fileName);
     }
+
+    /**
+     * @return the cached scripts by file name, e.g. to inspect their statistics
+     */
+    protected Map<String, CachedScript> getCachedScripts() {
+        return Collections.unmodifiableMap(compiledScriptMap);
+    }
 }
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.javascript.internal;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.core.io.console.Console;
+import org.openhab.core.io.console.extensions.AbstractConsoleCommandExtension;
+import org.openhab.core.io.console.extensions.ConsoleCommandExtension;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+/**
+ * The {@link JavaScriptTransformationCommandExtension} prints the invocation statistics of the cached transformation
+ * scripts, to find slow scripts.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+@Component(service = ConsoleCommandExtension.class)
+public class JavaScriptTransformationCommandExtension extends AbstractConsoleCommandExtension {
+
+    private static final String STATS = "stats";
+
+    private final JavaScriptEngineManager manager;
+
+    @Activate
+    public JavaScriptTransformationCommandExtension(final @Reference JavaScriptEngineManager manager) {
+        super("jstransform", "Inspect the JavaScript transformation.");
+        this.manager = manager;
+    }
+
+    @Override
+    public void execute(String[] args, Console console) {
+        if (args.length == 1 && STATS.equals(args[0])) {
+            Map<String, CachedScript> scripts = new TreeMap<>(manager.getCachedScripts());
+            if (scripts.isEmpty()) {
+                console.println("No JavaScript transformation has been loaded yet.");
+                return;
+            }
+            console.println(
+                    String.format("%-40s %12s %10s  %s", "Script", "Invocations", "Avg [ms]", histogramHeader()));
+            scripts.forEach((filename, script) -> {
+                long invocations = script.getInvocationCount();
+                double average = invocations == 0 ? 0
+                        : (double) script.getTotalNanos() / invocations / TimeUnit.MILLISECONDS.toNanos(1);
+                StringBuilder histogram = new StringBuilder();
+                for (long count : script.getLatencyHistogram()) {
+                    histogram.append(String.format("%8d", count));
+                }
+                console.println(String.format("%-40s %12d %10.2f  %s", filename, invocations, average, histogram));
+            });
+        } else {
+            printUsage(console);
+        }
+    }
+
+    private String histogramHeader() {
+        StringBuilder header = new StringBuilder();
+        for (long limit : CachedScript.LATENCY_BUCKETS_MILLIS) {
+            header.append(String.format("%8s", "<" + limit + "ms"));
+        }
+        header.append(String.format("%8s",
+                ">=" + CachedScript.LATENCY_BUCKETS_MILLIS[CachedScript.LATENCY_BUCKETS_MILLIS.length - 1] + "ms"));
+        return header.toString();
+    }
+
+    @Override
+    public List<String> getUsages() {
+        return List.of(buildCommandUsage(STATS,
+                "list invocation count, average duration and latency histogram of every loaded script"));
+    }
+}
@@ -13,7 +13,6 @@
 package org.openhab.transform.javascript.internal;
 
 import javax.script.Bindings;
-import javax.script.CompiledScript;
 import javax.script.ScriptException;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -70,15 +69,17 @@ public class JavaScriptTransformationService implements TransformationService {
 
         String result = "";
 
+        final CachedScript script = manager.getScript(filename);
+        final Bindings bindings = script.createBindings();
+        final long startNanos = System.nanoTime();
         try {
-            final CompiledScript cScript = manager.getScript(filename);
-            final Bindings bindings = cScript.getEngine().createBindings();
             bindings.put("input", source);
-            result = String.valueOf(cScript.eval(bindings));
+            result = String.valueOf(script.getScript().eval(bindings));
             return result;
         } catch (ScriptException e) {
             throw new TransformationException("An error occurred while executing script. " + e.getMessage(), e);
         } finally {
+            script.recordInvocation(System.nanoTime() - startNanos);
             logger.trace("JavaScript execution elapsed {} ms. Result: {}", System.currentTimeMillis() - startTime,
                     result);
         }
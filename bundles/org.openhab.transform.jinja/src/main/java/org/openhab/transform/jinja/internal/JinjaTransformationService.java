@@ -13,12 +13,17 @@
 package org.openhab.transform.jinja.internal;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -31,6 +36,12 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hubspot.jinjava.Jinjava;
+import com.hubspot.jinjava.interpret.Context;
+import com.hubspot.jinjava.interpret.FatalTemplateErrorsException;
+import com.hubspot.jinjava.interpret.JinjavaInterpreter;
+import com.hubspot.jinjava.interpret.TemplateError;
+import com.hubspot.jinjava.interpret.TemplateError.ErrorType;
+import com.hubspot.jinjava.tree.Node;
 
 /**
  * <p>
@@ -45,8 +56,15 @@ public class JinjaTransformationService implements TransformationService {
 
     private final Logger logger = LoggerFactory.getLogger(JinjaTransformationService.class);
 
+    // maximum number of parsed templates kept in the cache
+    static final int MAX_CACHED_TEMPLATES = 512;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private Jinjava jinjava = new Jinjava();
 
+    private final Map<String, Node> templateCache = new ConcurrentHashMap<>();
+
     /**
      * Transforms the input <code>value</code> by Jinja template.
      *
@@ -62,39 +80,76 @@ public class JinjaTransformationService implements TransformationService {
         bindings.put("value", value);
 
         try {
-            JsonNode tree = new ObjectMapper().readTree(value);
+            JsonNode tree = OBJECT_MAPPER.readTree(value);
             bindings.put("value_json", toObject(tree));
         } catch (IOException e) {
             // ok, then value_json is null...
         }
 
-        String transformationResult = jinjava.render(template, bindings);
+        String transformationResult = render(template, bindings);
 
         logger.debug("transformation resulted in '{}'", transformationResult);
 
         return transformationResult;
     }
 
-    private static @Nullable Object toObject(JsonNode node) {
-        switch (node.getNodeType()) {
-            case ARRAY: {
-                List<@Nullable Object> result = new ArrayList<>();
-                for (JsonNode el : node) {
-                    result.add(toObject(el));
+    /**
+     * Renders the template like {@link Jinjava#render(String, Map)}, but parses every template only once
+     */
+    private String render(String template, Map<String, @Nullable Object> bindings) {
+        Context context = new Context(jinjava.getGlobalContext(), bindings, jinjava.getGlobalConfig().getDisabled());
+        JinjavaInterpreter interpreter = new JinjavaInterpreter(jinjava, context, jinjava.getGlobalConfig());
+        JinjavaInterpreter.pushCurrent(interpreter);
+        try {
+            Node root = templateCache.get(template);
+            if (root == null) {
+                root = interpreter.parse(template);
+                // templates with errors are parsed again, so that every rendering reports the errors
+                if (interpreter.getErrors().isEmpty()) {
+                    cacheTemplate(template, root);
                 }
-                return result;
             }
+            String result = interpreter.render(root);
+            List<TemplateError> fatalErrors = interpreter.getErrors().stream()
+                    .filter(error -> error.getSeverity() == ErrorType.FATAL).collect(Collectors.toList());
+            if (!fatalErrors.isEmpty()) {
+                throw new FatalTemplateErrorsException(template, fatalErrors);
+            }
+            return result;
+        } finally {
+            jinjava.getGlobalContext().reset();
+            JinjavaInterpreter.popCurrent();
+        }
+    }
+
+    private void cacheTemplate(String template, Node root) {
+        if (templateCache.size() >= MAX_CACHED_TEMPLATES) {
+            // templates are usually static configuration, evict an arbitrary entry instead of tracking their usage
+            Iterator<String> iterator = templateCache.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        templateCache.put(template, root);
+    }
+
+    int getCachedTemplateCount() {
+        return templateCache.size();
+    }
+
+    /**
+     * Converts a JSON node to the objects used in the template. Objects and arrays are converted to read-only views,
+     * so that only the values the template actually accesses are converted.
+     */
+    static @Nullable Object toObject(JsonNode node) {
+        switch (node.getNodeType()) {
+            case ARRAY:
+                return new JsonArrayView(node);
             case NUMBER:
                 return node.decimalValue();
-            case OBJECT: {
-                Map<String, @Nullable Object> result = new HashMap<>();
-                Iterator<Entry<String, JsonNode>> it = node.fields();
-                while (it.hasNext()) {
-                    Entry<String, JsonNode> field = it.next();
-                    result.put(field.getKey(), toObject(field.getValue()));
-                }
-                return result;
-            }
+            case OBJECT:
+                return new JsonObjectView(node);
             case STRING:
                 return node.asText();
             case BOOLEAN:
@@ -104,4 +159,85 @@ public class JinjaTransformationService implements TransformationService {
                 return null;
         }
     }
+
+    /**
+     * Read-only {@link List} view of a JSON array
+     */
+    private static class JsonArrayView extends AbstractList<@Nullable Object> {
+        private final JsonNode node;
+
+        private JsonArrayView(JsonNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public @Nullable Object get(int index) {
+            if (index < 0 || index >= node.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + node.size());
+            }
+            return toObject(node.get(index));
+        }
+
+        @Override
+        public int size() {
+            return node.size();
+        }
+    }
+
+    /**
+     * Read-only {@link Map} view of a JSON object, keeping the order of the fields
+     */
+    private static class JsonObjectView extends AbstractMap<String, @Nullable Object> {
+        private final JsonNode node;
+
+        private JsonObjectView(JsonNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public @Nullable Object get(@Nullable Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            JsonNode field = node.get((String) key);
+            return field == null ? null : toObject(field);
+        }
+
+        @Override
+        public boolean containsKey(@Nullable Object key) {
+            return key instanceof String && node.has((String) key);
+        }
+
+        @Override
+        public int size() {
+            return node.size();
+        }
+
+        @Override
+        public Set<Entry<String, @Nullable Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, @Nullable Object>> iterator() {
+                    Iterator<Entry<String, JsonNode>> fields = node.fields();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return fields.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, @Nullable Object> next() {
+                            Entry<String, JsonNode> field = fields.next();
+                            return new SimpleImmutableEntry<>(field.getKey(), toObject(field.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return node.size();
+                }
+            };
+        }
+    }
 }
@@ -59,4 +59,26 @@ public class JinjaTransformationServiceTest {
         // Asserts
         assertEquals("Hello world!", transformedResponse);
     }
+
+    @Test
+    public void testTemplateIsParsedOnce() throws TransformationException {
+        String template = "{{value_json.AM2301.Humidity}}";
+        // method under test
+        assertEquals("99.9", processor.transform(template, "{\"AM2301\":{\"Humidity\":99.9}}"));
+        assertEquals("42", processor.transform(template, "{\"AM2301\":{\"Humidity\":42}}"));
+
+        // Asserts
+        assertEquals(1, processor.getCachedTemplateCount());
+    }
+
+    @Test
+    public void testArrayAndObjectAccess() throws TransformationException {
+        String json = "{\"list\":[1,2,{\"name\":\"three\"}],\"other\":\"ignored\"}";
+        // method under test
+        String transformedResponse = processor
+                .transform("{{value_json.list|length}} {{value_json.list[1]}} {{value_json.list[2].name}}", json);
+
+        // Asserts
+        assertEquals("3 2 three", transformedResponse);
+    }
 }
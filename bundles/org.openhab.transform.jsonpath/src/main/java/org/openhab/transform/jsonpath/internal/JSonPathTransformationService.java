@@ -12,7 +12,12 @@
  */
 package org.openhab.transform.jsonpath.internal;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -24,6 +29,7 @@ import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
@@ -43,6 +49,36 @@ public class JSonPathTransformationService implements TransformationService {
 
     private final Logger logger = LoggerFactory.getLogger(JSonPathTransformationService.class);
 
+    // maximum number of compiled paths kept in the cache
+    static final int MAX_CACHED_PATHS = 256;
+    // several profiles usually transform the same value right after each other, so parsed documents are only kept
+    // for a short time
+    static final int MAX_CACHED_DOCUMENTS = 16;
+    private static final long DOCUMENT_TTL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, JsonPath> pathCache = new ConcurrentHashMap<>();
+    private final Map<String, ParsedDocument> documentCache = new LinkedHashMap<>(MAX_CACHED_DOCUMENTS, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ParsedDocument> eldest) {
+            return size() > MAX_CACHED_DOCUMENTS;
+        }
+    };
+
+    /**
+     * A parsed JSON document. The document is only read, so it can be shared by all transformations.
+     */
+    private static class ParsedDocument {
+        private final Object document;
+        private final long parsedAt;
+
+        private ParsedDocument(Object document, long parsedAt) {
+            this.document = document;
+            this.parsedAt = parsedAt;
+        }
+    }
+
     /**
      * Transforms the input <code>source</code> by JSonPath expression.
      *
@@ -60,7 +96,7 @@ public class JSonPathTransformationService implements TransformationService {
         logger.debug("about to transform '{}' by the function '{}'", source, jsonPathExpression);
 
         try {
-            Object transformationResult = JsonPath.read(source, jsonPathExpression);
+            Object transformationResult = getPath(jsonPathExpression).read(getDocument(source));
             logger.debug("transformation resulted in '{}'", transformationResult);
             if (transformationResult == null) {
                 return null;
@@ -76,6 +112,45 @@ public class JSonPathTransformationService implements TransformationService {
         }
     }
 
+    private JsonPath getPath(String jsonPathExpression) {
+        JsonPath path = pathCache.get(jsonPathExpression);
+        if (path == null) {
+            path = JsonPath.compile(jsonPathExpression);
+            if (pathCache.size() >= MAX_CACHED_PATHS) {
+                // paths are usually static configuration, evict an arbitrary entry instead of tracking their usage
+                Iterator<String> iterator = pathCache.keySet().iterator();
+                if (iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+            pathCache.put(jsonPathExpression, path);
+        }
+        return path;
+    }
+
+    private Object getDocument(String source) {
+        long now = System.nanoTime();
+        synchronized (documentCache) {
+            ParsedDocument parsed = documentCache.get(source);
+            if (parsed != null && now - parsed.parsedAt < DOCUMENT_TTL_NANOS) {
+                return parsed.document;
+            }
+        }
+        // parse outside of the lock, a concurrent parse of the same source is harmless
+        Object document = Configuration.defaultConfiguration().jsonProvider().parse(source);
+        synchronized (documentCache) {
+            documentCache.put(source, new ParsedDocument(document, now));
+        }
+        return document;
+    }
+
+    int getCachedDocumentCount() {
+        synchronized (documentCache) {
+            return documentCache.size();
+        }
+    }
+
     private String flattenList(List<?> list) {
         if (list.size() == 1) {
             return list.get(0).toString();
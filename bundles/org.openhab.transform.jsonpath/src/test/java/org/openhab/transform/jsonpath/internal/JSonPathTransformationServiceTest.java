@@ -127,4 +127,20 @@ public class JSonPathTransformationServiceTest {
         String transformedResponse = processor.transform("$.data", json);
         assertEquals(list, transformedResponse);
     }
+
+    @Test
+    public void testSeveralPathsOnSameDocument() throws TransformationException {
+        assertEquals("bob", processor.transform("$[0].name", jsonArray));
+        assertEquals("2", processor.transform("$[1].id", jsonArray));
+        assertEquals("[1, 2]", processor.transform("$.*.id", jsonArray));
+        assertEquals(1, processor.getCachedDocumentCount());
+    }
+
+    @Test
+    public void testDocumentCacheIsBounded() throws TransformationException {
+        for (int i = 0; i < JSonPathTransformationService.MAX_CACHED_DOCUMENTS + 5; i++) {
+            assertEquals(String.valueOf(i), processor.transform("$.id", "{\"id\":" + i + "}"));
+        }
+        assertEquals(JSonPathTransformationService.MAX_CACHED_DOCUMENTS, processor.getCachedDocumentCount());
+    }
 }
@@ -12,6 +12,10 @@
  */
 package org.openhab.transform.regex.internal;
 
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,6 +44,28 @@ public class RegExTransformationService implements TransformationService {
 
     private static final Pattern SUBSTR_PATTERN = Pattern.compile("^s/(.*?[^\\\\])/(.*?[^\\\\])/(.*)$");
 
+    // maximum number of compiled expressions kept in the cache
+    static final int MAX_CACHE_SIZE = 256;
+
+    private final Map<String, CompiledExpression> cache = new ConcurrentHashMap<>();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    /**
+     * A regular expression as given to the transformation, compiled once and reused for every transformation
+     */
+    private static class CompiledExpression {
+        private final Pattern pattern;
+        private final @Nullable String substitution;
+        private final boolean global;
+
+        private CompiledExpression(Pattern pattern, @Nullable String substitution, boolean global) {
+            this.pattern = pattern;
+            this.substitution = substitution;
+            this.global = global;
+        }
+    }
+
     @Override
     public @Nullable String transform(String regExpression, String source) throws TransformationException {
         if (regExpression == null || source == null) {
@@ -50,23 +76,15 @@ public class RegExTransformationService implements TransformationService {
 
         String result = "";
 
-        Matcher substMatcher = SUBSTR_PATTERN.matcher(regExpression);
-        if (substMatcher.matches()) {
+        CompiledExpression expression = getCompiledExpression(regExpression);
+        String substitution = expression.substitution;
+        if (substitution != null) {
             logger.debug("Using substitution form of regex transformation");
-            String regex = substMatcher.group(1);
-            String substitution = substMatcher.group(2);
-            String options = substMatcher.group(3);
-            if (options.equals("g")) {
-                result = source.trim().replaceAll(regex, substitution);
-            } else {
-                result = source.trim().replaceFirst(regex, substitution);
-            }
-            if (result != null) {
-                return result;
-            }
+            Matcher substMatcher = expression.pattern.matcher(source.trim());
+            return expression.global ? substMatcher.replaceAll(substitution) : substMatcher.replaceFirst(substitution);
         }
 
-        Matcher matcher = Pattern.compile("^" + regExpression + "$", Pattern.DOTALL).matcher(source.trim());
+        Matcher matcher = expression.pattern.matcher(source.trim());
         if (!matcher.matches()) {
             logger.debug(
                     "the given regex '^{}$' doesn't match the given content '{}' -> couldn't compute transformation",
@@ -94,4 +112,48 @@ public class RegExTransformationService implements TransformationService {
 
         return result;
     }
+
+    private CompiledExpression getCompiledExpression(String regExpression) {
+        CompiledExpression expression = cache.get(regExpression);
+        if (expression != null) {
+            cacheHits.incrementAndGet();
+            return expression;
+        }
+        cacheMisses.incrementAndGet();
+        expression = compile(regExpression);
+        if (cache.size() >= MAX_CACHE_SIZE) {
+            // expressions are usually static configuration, so a full cache means they are generated dynamically:
+            // evict an arbitrary entry instead of tracking the usage of each one
+            Iterator<String> iterator = cache.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        cache.put(regExpression, expression);
+        return expression;
+    }
+
+    private CompiledExpression compile(String regExpression) {
+        Matcher substMatcher = SUBSTR_PATTERN.matcher(regExpression);
+        if (substMatcher.matches()) {
+            String regex = substMatcher.group(1);
+            String substitution = substMatcher.group(2);
+            String options = substMatcher.group(3);
+            return new CompiledExpression(Pattern.compile(regex), substitution, options.equals("g"));
+        }
+        return new CompiledExpression(Pattern.compile("^" + regExpression + "$", Pattern.DOTALL), null, false);
+    }
+
+    long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    int getCacheSize() {
+        return cache.size();
+    }
 }
@@ -75,4 +75,26 @@ public class RegExTransformationServiceTest extends AbstractTransformationServic
         // Asserts
         assertEquals("varX=12 varY=54 ", transformedResponse);
     }
+
+    @Test
+    public void testTransformByRegex_compiledExpressionIsReused() throws TransformationException {
+        // method under test
+        assertEquals("SetMode(42)", processor.transform("s/^OP:(.*?),ARG:(.*)$/$1($2)/", "OP:SetMode,ARG:42"));
+        assertEquals("Off(0)", processor.transform("s/^OP:(.*?),ARG:(.*)$/$1($2)/", "OP:Off,ARG:0"));
+
+        // Asserts
+        assertEquals(1, processor.getCacheMisses());
+        assertEquals(1, processor.getCacheHits());
+    }
+
+    @Test
+    public void testTransformByRegex_cacheIsBounded() throws TransformationException {
+        // method under test
+        for (int i = 0; i < RegExTransformationService.MAX_CACHE_SIZE + 10; i++) {
+            assertEquals(String.valueOf(i), processor.transform("v" + i + "=(\\d+)", "v" + i + "=" + i));
+        }
+
+        // Asserts
+        assertEquals(RegExTransformationService.MAX_CACHE_SIZE, processor.getCacheSize());
+    }
 }
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2010-2020 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.scale.internal;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Immutable lookup table built from a scale file.
+ *
+ * The distinct limits of all ranges split the number line into segments: the limits themselves and the open
+ * intervals between them. No range starts or ends inside a segment, so the label of the first matching range (in the
+ * order of the scale file) is computed once per segment, and looking up a value is a binary search over the limits.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+class ScaleTable {
+
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+    private final String format;
+    private final @Nullable String nonNumericLabel;
+
+    /** Sorted, distinct limits of all ranges */
+    private final BigDecimal[] limits;
+
+    /**
+     * Label of the first matching range of each segment, or null if no range matches:
+     * (-inf, limits[0]), [limits[0]], (limits[0], limits[1]), [limits[1]], ..., (limits[n-1], +inf)
+     */
+    private final @Nullable String[] labels;
+
+    /**
+     * @param ranges ranges and their labels, in the order of the scale file
+     * @param format presentation format of the result
+     * @param nonNumericLabel label for non numeric values, null if there is none
+     */
+    ScaleTable(Map<Range, String> ranges, String format, @Nullable String nonNumericLabel) {
+        this.format = format;
+        this.nonNumericLabel = nonNumericLabel;
+
+        TreeSet<BigDecimal> distinctLimits = new TreeSet<>();
+        for (Range range : ranges.keySet()) {
+            if (range.min != null) {
+                distinctLimits.add(range.min);
+            }
+            if (range.max != null) {
+                distinctLimits.add(range.max);
+            }
+        }
+        limits = distinctLimits.toArray(new BigDecimal[0]);
+
+        labels = new @Nullable String[2 * limits.length + 1];
+        for (int segment = 0; segment < labels.length; segment++) {
+            BigDecimal representative = representativeOf(segment);
+            for (Map.Entry<Range, String> entry : ranges.entrySet()) {
+                if (entry.getKey().contains(representative)) {
+                    labels[segment] = entry.getValue();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a value inside of the given segment
+     */
+    private BigDecimal representativeOf(int segment) {
+        if (limits.length == 0) {
+            return BigDecimal.ZERO;
+        } else if (segment == 0) {
+            return limits[0].subtract(BigDecimal.ONE);
+        } else if (segment == labels.length - 1) {
+            return limits[limits.length - 1].add(BigDecimal.ONE);
+        } else if (segment % 2 == 1) {
+            return limits[segment / 2];
+        } else {
+            // dividing by two always gives an exact decimal
+            return limits[segment / 2 - 1].add(limits[segment / 2]).divide(TWO);
+        }
+    }
+
+    /**
+     * @param value value to look up
+     * @return label of the first range containing the value, or null if no range matches
+     */
+    @Nullable String getLabel(BigDecimal value) {
+        int index = Arrays.binarySearch(limits, value);
+        return labels[index >= 0 ? 2 * index + 1 : -2 * (index + 1)];
+    }
+
+    String getFormat() {
+        return format;
+    }
+
+    @Nullable String getNonNumericLabel() {
+        return nonNumericLabel;
+    }
+}
@@ -42,7 +42,7 @@ import org.slf4j.LoggerFactory;
  * @author Markus Rathgeb - drop usage of Guava
  */
 @Component(service = TransformationService.class, property = { "smarthome.transform=SCALE" })
-public class ScaleTransformationService extends AbstractFileTransformationService<Map<Range, String>> {
+public class ScaleTransformationService extends AbstractFileTransformationService<ScaleTable> {
 
     private final Logger logger = LoggerFactory.getLogger(ScaleTransformationService.class);
 
@@ -53,9 +53,8 @@ public class ScaleTransformationService extends AbstractFileTransformationServic
     private static final String FORMAT = "format";
     private static final String FORMAT_VALUE = "%value%";
     private static final String FORMAT_LABEL = "%label%";
-
-    /** Inaccessible range used to store presentation format ]0..0[ */
-    private static final Range FORMAT_RANGE = Range.range(BigDecimal.ZERO, false, BigDecimal.ZERO, false);
+    private static final Pattern FORMAT_VALUE_PATTERN = Pattern.compile(FORMAT_VALUE);
+    private static final Pattern FORMAT_LABEL_PATTERN = Pattern.compile(FORMAT_LABEL);
 
     /**
      * The implementation of {@link OrderedProperties} that let access
@@ -98,47 +97,75 @@ public class ScaleTransformationService extends AbstractFileTransformationServic
      *
      */
     @Override
-    protected String internalTransform(Map<Range, String> data, String source) throws TransformationException {
-        try {
-            final BigDecimal value = new BigDecimal(source);
+    protected String internalTransform(ScaleTable table, String source) throws TransformationException {
+        BigDecimal value = toBigDecimal(source);
+        if (value != null) {
+            return formatResult(table, source, value);
+        }
+        String nonNumeric = table.getNonNumericLabel();
+        if (nonNumeric != null) {
+            return nonNumeric;
+        } else {
+            throw new TransformationException(
+                    "Scale must be used with numeric inputs, valid quantity types or a 'NaN' entry.");
+        }
+    }
 
-            return formatResult(data, source, value);
-        } catch (NumberFormatException e) {
-            // Scale can only be used with numeric inputs, so lets try to see if ever its a valid quantity type
+    /**
+     * @return the numeric value of a number or a quantity type, null if the source is neither
+     */
+    private BigDecimal toBigDecimal(String source) {
+        if (isPlainNumber(source)) {
             try {
-                final QuantityType<?> quantity = new QuantityType<>(source);
-                return formatResult(data, source, quantity.toBigDecimal());
-            } catch (NumberFormatException e2) {
-                String nonNumeric = data.get(null);
-                if (nonNumeric != null) {
-                    return nonNumeric;
-                } else {
-                    throw new TransformationException(
-                            "Scale must be used with numeric inputs, valid quantity types or a 'NaN' entry.");
-                }
+                return new BigDecimal(source);
+            } catch (NumberFormatException e) {
+                // not a number after all, try it as quantity type
             }
         }
+        // Scale can only be used with numeric inputs, so lets try to see if ever its a valid quantity type
+        try {
+            return new QuantityType<>(source).toBigDecimal();
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
-    private String formatResult(Map<Range, String> data, String source, final BigDecimal value)
-            throws TransformationException {
-        String format = data.get(FORMAT_RANGE);
-        String result = getScaleResult(data, source, value);
-        return format.replaceAll(FORMAT_VALUE, source).replaceAll(FORMAT_LABEL, result);
+    /**
+     * Cheap check which avoids throwing (and catching) a NumberFormatException for every quantity type
+     */
+    private static boolean isPlainNumber(String source) {
+        if (source.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if ((c < '0' || c > '9') && c != '.' && c != '-' && c != '+' && c != 'e' && c != 'E') {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private String getScaleResult(Map<Range, String> data, String source, final BigDecimal value)
+    private String formatResult(ScaleTable table, String source, final BigDecimal value)
             throws TransformationException {
-        return data.entrySet().stream().filter(entry -> entry.getKey() != null && entry.getKey().contains(value))
-                .findFirst().map(Map.Entry::getValue)
-                .orElseThrow(() -> new TransformationException("No matching range for '" + source + "'"));
+        String result = table.getLabel(value);
+        if (result == null) {
+            throw new TransformationException("No matching range for '" + source + "'");
+        }
+        String format = table.getFormat();
+        if (FORMAT_LABEL.equals(format)) {
+            return result;
+        }
+        String formatted = FORMAT_VALUE_PATTERN.matcher(format).replaceAll(source);
+        return FORMAT_LABEL_PATTERN.matcher(formatted).replaceAll(result);
     }
 
     @Override
-    protected Map<Range, String> internalLoadTransform(String filename) throws TransformationException {
+    protected ScaleTable internalLoadTransform(String filename) throws TransformationException {
         try (FileReader reader = new FileReader(filename)) {
             final Map<Range, String> data = new LinkedHashMap<>();
-            data.put(FORMAT_RANGE, FORMAT_LABEL);
+            String format = FORMAT_LABEL;
+            String nonNumeric = null;
             final OrderedProperties properties = new OrderedProperties();
             properties.load(reader);
 
@@ -164,9 +191,9 @@ public class ScaleTransformationService extends AbstractFileTransformationServic
                     }
                 } else {
                     if (NON_NUMBER.equals(entry)) {
-                        data.put(null, value);
+                        nonNumeric = value;
                     } else if (FORMAT.equals(entry)) {
-                        data.put(FORMAT_RANGE, value);
+                        format = value;
                     } else {
                         logger.warn("Scale transform file '{}' does not comply with syntax for entry : '{}', '{}'",
                                 filename, entry, value);
@@ -174,7 +201,7 @@ public class ScaleTransformationService extends AbstractFileTransformationServic
                 }
             }
 
-            return data;
+            return new ScaleTable(data, format, nonNumeric);
         } catch (final IOException ex) {
             throw new TransformationException("An error occurred while opening file.", ex);
         }
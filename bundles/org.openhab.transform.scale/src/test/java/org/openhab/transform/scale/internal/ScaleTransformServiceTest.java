@@ -153,4 +153,14 @@ public class ScaleTransformServiceTest {
         String transformedResponse = processor.transform(existingscale, source);
         assertEquals("", transformedResponse);
     }
+
+    @Test
+    public void testTransformByScaleAroundLimits() throws TransformationException {
+        String existingscale = "scale/limits.scale";
+        assertEquals("low", processor.transform(existingscale, "9.999"));
+        assertEquals("middle", processor.transform(existingscale, "10.000"));
+        assertEquals("middle", processor.transform(existingscale, "19.5"));
+        assertEquals("high", processor.transform(existingscale, "2E+1"));
+        assertEquals("extreme", processor.transform(existingscale, "300"));
+    }
 }
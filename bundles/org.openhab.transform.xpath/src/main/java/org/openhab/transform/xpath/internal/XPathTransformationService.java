@@ -13,12 +13,19 @@
 package org.openhab.transform.xpath.internal;
 
 import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -26,6 +33,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationService;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
@@ -43,6 +51,50 @@ public class XPathTransformationService implements TransformationService {
 
     private final Logger logger = LoggerFactory.getLogger(XPathTransformationService.class);
 
+    // maximum number of compiled expressions kept per context
+    static final int MAX_CACHED_EXPRESSIONS = 64;
+
+    // maximum number of idle contexts kept for reuse
+    static final int MAX_POOLED_CONTEXTS = 4;
+
+    // neither DocumentBuilder, XPath nor XPathExpression are thread-safe, so a context is only used by one
+    // transformation at a time. Contexts are pooled by the service rather than per thread, so that they don't outlive
+    // the service on the shared threads calling it.
+    private final Queue<XPathContext> contexts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledContexts = new AtomicInteger();
+
+    /**
+     * The parser, XPath and compiled expressions used by one transformation at a time
+     */
+    private static class XPathContext {
+        private final DocumentBuilder builder;
+        private final XPath xpath = XPathFactory.newInstance().newXPath();
+        private final Map<String, XPathExpression> expressions = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest) {
+                return size() > MAX_CACHED_EXPRESSIONS;
+            }
+        };
+
+        private XPathContext() throws ParserConfigurationException {
+            DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
+            domFactory.setNamespaceAware(true);
+            domFactory.setValidating(false);
+            builder = domFactory.newDocumentBuilder();
+        }
+
+        private XPathExpression compile(String xpathExpression) throws XPathExpressionException {
+            XPathExpression expr = expressions.get(xpathExpression);
+            if (expr == null) {
+                expr = xpath.compile(xpathExpression);
+                expressions.put(xpathExpression, expr);
+            }
+            return expr;
+        }
+    }
+
     @Override
     public @Nullable String transform(String xpathExpression, String source) throws TransformationException {
         if (xpathExpression == null || source == null) {
@@ -53,20 +105,22 @@ public class XPathTransformationService implements TransformationService {
 
         StringReader stringReader = null;
 
+        XPathContext context = null;
         try {
-            DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
-            domFactory.setNamespaceAware(true);
-            domFactory.setValidating(false);
-            DocumentBuilder builder = domFactory.newDocumentBuilder();
+            context = borrowContext();
+            // compile first, so that an invalid expression fails without parsing the document
+            XPathExpression expr = context.compile(xpathExpression);
 
             stringReader = new StringReader(source);
             InputSource inputSource = new InputSource(stringReader);
             inputSource.setEncoding("UTF-8");
 
-            Document doc = builder.parse(inputSource);
-
-            XPath xpath = XPathFactory.newInstance().newXPath();
-            XPathExpression expr = xpath.compile(xpathExpression);
+            Document doc;
+            try {
+                doc = context.builder.parse(inputSource);
+            } finally {
+                context.builder.reset();
+            }
 
             String transformationResult = (String) expr.evaluate(doc, XPathConstants.STRING);
 
@@ -79,6 +133,38 @@ public class XPathTransformationService implements TransformationService {
             if (stringReader != null) {
                 stringReader.close();
             }
+            if (context != null) {
+                returnContext(context);
+            }
         }
     }
+
+    @Deactivate
+    public void deactivate() {
+        contexts.clear();
+        pooledContexts.set(0);
+    }
+
+    private XPathContext borrowContext() throws ParserConfigurationException {
+        XPathContext context = contexts.poll();
+        if (context == null) {
+            return new XPathContext();
+        }
+        pooledContexts.decrementAndGet();
+        return context;
+    }
+
+    private void returnContext(XPathContext context) {
+        // contexts beyond the maximum, created while transformations ran concurrently, are left to the GC
+        if (pooledContexts.incrementAndGet() <= MAX_POOLED_CONTEXTS) {
+            contexts.offer(context);
+        } else {
+            pooledContexts.decrementAndGet();
+        }
+    }
+
+    // Visible for testing
+    int getPooledContextCount() {
+        return contexts.size();
+    }
 }
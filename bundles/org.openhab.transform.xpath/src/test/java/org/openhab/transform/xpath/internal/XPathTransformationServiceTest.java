@@ -38,4 +38,33 @@ public class XPathTransformationServiceTest extends AbstractTransformationServic
         // Asserts
         assertEquals("8", transformedResponse);
     }
+
+    @Test
+    public void testTransformByXPath_repeated() throws TransformationException {
+        // method under test
+        processor.transform("//current_conditions/temp_c/@data", source);
+        String transformedResponse = processor.transform("//current_conditions/temp_c/@data", source);
+
+        // Asserts
+        assertEquals("8", transformedResponse);
+        assertEquals("46", processor.transform("//current_conditions/temp_f/@data", source));
+    }
+
+    @Test
+    public void testTransformByXPath_invalidSourceDoesNotBreakNextTransformation() {
+        assertThrows(TransformationException.class,
+                () -> processor.transform("//current_conditions/temp_c/@data", "<xml_api_reply>"));
+
+        assertDoesNotThrow(() -> assertEquals("8", processor.transform("//current_conditions/temp_c/@data", source)));
+    }
+
+    @Test
+    public void testTransformByXPath_contextsAreReusedAndReleased() throws TransformationException {
+        processor.transform("//current_conditions/temp_c/@data", source);
+        processor.transform("//current_conditions/temp_f/@data", source);
+        assertEquals(1, processor.getPooledContextCount());
+
+        processor.deactivate();
+        assertEquals(0, processor.getPooledContextCount());
+    }
 }
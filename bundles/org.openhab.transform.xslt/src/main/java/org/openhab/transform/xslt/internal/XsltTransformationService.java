@@ -15,9 +15,12 @@ package org.openhab.transform.xslt.internal;
 import java.io.File;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
@@ -43,6 +46,28 @@ public class XsltTransformationService implements TransformationService {
 
     private final Logger logger = LoggerFactory.getLogger(XsltTransformationService.class);
 
+    private final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+    private final Map<String, CachedTemplates> templatesCache = new ConcurrentHashMap<>();
+
+    /**
+     * The compiled stylesheet of a file, together with the file attributes it was compiled from
+     */
+    private static class CachedTemplates {
+        private final Templates templates;
+        private final long lastModified;
+        private final long length;
+
+        private CachedTemplates(Templates templates, long lastModified, long length) {
+            this.templates = templates;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        private boolean isUpToDate(File file) {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+    }
+
     /**
      * Transforms the input <code>source</code> by XSLT.
      *
@@ -50,6 +75,8 @@ public class XsltTransformationService implements TransformationService {
      * is stored under the 'configurations/transform' folder. To organize the
      * various transformations one should use subfolders.
      *
+     * The compiled stylesheet is cached and compiled again when the file has been modified.
+     *
      * @param filename the name of the file which contains the XSLT transformation rule.
      *            The name may contain subfoldernames as well
      * @param source the input to transform
@@ -60,12 +87,12 @@ public class XsltTransformationService implements TransformationService {
             throw new TransformationException("the given parameters 'filename' and 'source' must not be null");
         }
 
-        Source xsl = null;
+        File xsl = null;
 
         try {
             String path = OpenHAB.getConfigFolder() + File.separator + TransformationService.TRANSFORM_FOLDER_NAME
                     + File.separator + filename;
-            xsl = new StreamSource(new File(path));
+            xsl = new File(path);
         } catch (Exception e) {
             String message = "opening file '" + filename + "' throws exception";
 
@@ -81,7 +108,7 @@ public class XsltTransformationService implements TransformationService {
         Transformer transformer;
 
         try {
-            transformer = TransformerFactory.newInstance().newTransformer(xsl);
+            transformer = getTemplates(xsl).newTransformer();
             transformer.transform(new StreamSource(xml), new StreamResult(out));
         } catch (Exception e) {
             logger.error("transformation throws exception", e);
@@ -92,4 +119,23 @@ public class XsltTransformationService implements TransformationService {
 
         return out.toString();
     }
+
+    private Templates getTemplates(File xsl) throws TransformerConfigurationException {
+        String path = xsl.getAbsolutePath();
+        CachedTemplates cached = templatesCache.get(path);
+        if (cached != null && cached.isUpToDate(xsl)) {
+            return cached.templates;
+        }
+        // read the attributes before compiling, so that a modification while compiling triggers another compilation
+        long lastModified = xsl.lastModified();
+        long length = xsl.length();
+        Templates templates;
+        // TransformerFactory is not thread-safe, the compiled Templates are
+        synchronized (transformerFactory) {
+            templates = transformerFactory.newTemplates(new StreamSource(xsl));
+        }
+        logger.debug("compiled stylesheet '{}'", path);
+        templatesCache.put(path, new CachedTemplates(templates, lastModified, length));
+        return templates;
+    }
 }
@@ -14,9 +14,17 @@ package org.openhab.transform.xslt.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openhab.core.OpenHAB;
 import org.openhab.core.transform.TransformationException;
+import org.openhab.core.transform.TransformationService;
 
 /**
  * @author Thomas.Eichstaedt-Engelen
@@ -38,4 +46,49 @@ public class XsltTransformationServiceTest extends AbstractTransformationService
         // Asserts
         assertEquals("8", transformedResponse);
     }
+
+    @Test
+    public void testTransformByXSLT_repeated() throws TransformationException {
+        // method under test
+        processor.transform("http/google_weather.xsl", source);
+        String transformedResponse = processor.transform("http/google_weather.xsl", source);
+
+        // Asserts
+        assertEquals("8", transformedResponse);
+    }
+
+    @Test
+    public void testTransformByXSLT_modifiedStylesheetIsRecompiled(@TempDir Path configFolder)
+            throws TransformationException, IOException {
+        Path transformFolder = Files
+                .createDirectories(configFolder.resolve(TransformationService.TRANSFORM_FOLDER_NAME));
+        Path stylesheet = transformFolder.resolve("constant.xsl");
+        String previousConfigFolder = System.getProperty(OpenHAB.CONFIG_DIR_PROG_ARGUMENT);
+        System.setProperty(OpenHAB.CONFIG_DIR_PROG_ARGUMENT, configFolder.toString());
+        try {
+            Files.write(stylesheet, constantStylesheet("first").getBytes(StandardCharsets.UTF_8));
+            assertEquals("first", processor.transform("constant.xsl", source));
+
+            Files.write(stylesheet, constantStylesheet("second").getBytes(StandardCharsets.UTF_8));
+            stylesheet.toFile().setLastModified(stylesheet.toFile().lastModified() + 2000);
+
+            // method under test
+            String transformedResponse = processor.transform("constant.xsl", source);
+
+            // Asserts
+            assertEquals("second", transformedResponse);
+        } finally {
+            if (previousConfigFolder == null) {
+                System.clearProperty(OpenHAB.CONFIG_DIR_PROG_ARGUMENT);
+            } else {
+                System.setProperty(OpenHAB.CONFIG_DIR_PROG_ARGUMENT, previousConfigFolder);
+            }
+        }
+    }
+
+    private static String constantStylesheet(String text) {
+        return "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+                + "<xsl:output method=\"text\"/><xsl:template match=\"/\">" + text + "</xsl:template>"
+                + "</xsl:stylesheet>";
+    }
 }
@@ -21,6 +21,7 @@ import static org.mockito.Mockito.*;
 import static org.mockito.hamcrest.MockitoHamcrest.argThat;
 
 import java.lang.reflect.Field;
+import java.util.OptionalLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.hamcrest.Description;
@@ -476,6 +477,65 @@ public class ModbusPollerThingHandlerTest extends AbstractModbusOSGiTest {
         verifyNoMoreInteractions(child2);
     }
 
+    @Test
+    public void testUnchangedDataPassedToChildDataThingsEveryNPolls()
+            throws IllegalArgumentException, IllegalAccessException, NoSuchFieldException, SecurityException {
+        PollTask pollTask = Mockito.mock(PollTask.class);
+        doReturn(pollTask).when(comms).registerRegularPoll(notNull(), eq(150l), eq(0L), notNull(), notNull());
+
+        Configuration pollerConfig = new Configuration();
+        pollerConfig.put("refresh", 150L);
+        pollerConfig.put("start", 5);
+        pollerConfig.put("length", 13);
+        pollerConfig.put("type", "holding");
+        pollerConfig.put("updateUnchangedDataEveryNPolls", 3);
+        poller = createPollerThingBuilder("poller").withConfiguration(pollerConfig).withBridge(endpoint.getUID())
+                .build();
+        addThing(poller);
+        verifyEndpointBasicInitInteraction();
+
+        assertThat(poller.getStatus(), is(equalTo(ThingStatus.ONLINE)));
+
+        ArgumentCaptor<ModbusReadCallback> callbackCapturer = ArgumentCaptor.forClass(ModbusReadCallback.class);
+        final ArgumentCaptor<ModbusFailureCallback<ModbusReadRequestBlueprint>> failureCallbackCapturer = ArgumentCaptor
+                .forClass((Class) ModbusFailureCallback.class);
+        verify(comms).registerRegularPoll(notNull(), eq(150l), eq(0L), callbackCapturer.capture(),
+                failureCallbackCapturer.capture());
+        ModbusReadCallback readCallback = callbackCapturer.getValue();
+        ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback = failureCallbackCapturer.getValue();
+
+        ModbusReadRequestBlueprint request = Mockito.mock(ModbusReadRequestBlueprint.class);
+        AsyncModbusReadResult result = new AsyncModbusReadResult(request, Mockito.mock(ModbusRegisterArray.class));
+        AsyncModbusFailure<ModbusReadRequestBlueprint> failure = new AsyncModbusFailure<>(request,
+                Mockito.mock(Exception.class));
+
+        ModbusPollerThingHandler thingHandler = (ModbusPollerThingHandler) poller.getHandler();
+        assertNotNull(thingHandler);
+
+        ModbusDataThingHandler child = Mockito.mock(ModbusDataThingHandler.class);
+        doReturn(OptionalLong.of(5)).when(child).getReadDataFingerprint(result);
+        thingHandler.childHandlerInitialized(child, Mockito.mock(Thing.class));
+
+        // first data, then two unchanged polls skipped, and third unchanged poll passed
+        for (int i = 0; i < 4; i++) {
+            readCallback.handle(result);
+        }
+        verify(child, times(2)).onReadResult(result);
+
+        // changed data
+        doReturn(OptionalLong.of(6)).when(child).getReadDataFingerprint(result);
+        readCallback.handle(result);
+        verify(child, times(3)).onReadResult(result);
+
+        // data is passed after error even if unchanged
+        failureCallback.handle(failure);
+        verify(child).handleReadError(failure);
+        readCallback.handle(result);
+        verify(child, times(4)).onReadResult(result);
+        readCallback.handle(result);
+        verify(child, times(4)).onReadResult(result);
+    }
+
     @Test
     public void testBitsPassedToChildDataThings()
             throws IllegalArgumentException, IllegalAccessException, NoSuchFieldException, SecurityException {